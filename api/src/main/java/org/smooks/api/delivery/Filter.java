@@ -73,6 +73,88 @@ public interface Filter extends Closeable {
     String TERMINATE_ON_VISITOR_EXCEPTION = "terminate.on.visitor.exception";
 
     String READER_POOL_SIZE = "reader.pool.size";
+
+    /**
+     * Reader pool overflow size config parameter. Default value "0".
+     * <p/>
+     * Number of readers the pool keeps on top of its {@link #READER_POOL_SIZE} slots before discarding returned
+     * readers. Only applies to a fixed-size pool (i.e., a positive {@link #READER_POOL_SIZE}).
+     */
+    String READER_POOL_OVERFLOW_SIZE = "reader.pool.overflow.size";
+
+    /**
+     * Reader pool borrow timeout config parameter, in milliseconds. Default value "0" (no waiting).
+     * <p/>
+     * Time a filter execution waits for a reader to be returned to the pool, once as many readers as the pool has
+     * slots are in use, before it creates a reader of its own. Only applies to a fixed-size pool (i.e., a positive
+     * {@link #READER_POOL_SIZE}).
+     */
+    String READER_POOL_BORROW_TIMEOUT = "reader.pool.borrow.timeout";
+
+    /**
+     * Flush policy config parameter. Default value "close".
+     * <p/>
+     * When the output written to a {@link javax.xml.transform.stream.StreamResult} is flushed: "close" (only at the
+     * end of the execution), "element" (after each visited element), "threshold" (every {@link #FLUSH_THRESHOLD}
+     * characters), "interval" (every {@link #FLUSH_INTERVAL} milliseconds) or "fragment" (at the end of each element
+     * matching {@link #FLUSH_SELECTOR}).
+     */
+    String FLUSH_POLICY = "flush.policy";
+
+    /**
+     * Number of characters written after which the output is flushed, under the "threshold" {@link #FLUSH_POLICY}.
+     * Default value "8192".
+     */
+    String FLUSH_THRESHOLD = "flush.threshold";
+
+    /**
+     * Time in milliseconds after which the next write flushes the output, under the "interval" {@link #FLUSH_POLICY}.
+     * Default value "1000".
+     */
+    String FLUSH_INTERVAL = "flush.interval";
+
+    /**
+     * Selector of the elements at the end of which the output is flushed, under the "fragment" {@link #FLUSH_POLICY}.
+     */
+    String FLUSH_SELECTOR = "flush.selector";
+
+    /**
+     * Pre-installed beans config parameter. Default value "true".
+     * <p/>
+     * When "false", the pre-installed beans (i.e., <code>PTIME</code> and <code>PUUID</code>) are not added to the bean
+     * context of each execution, which trims the fixed per-message cost of small payloads. Resources looking these
+     * beans up then find none.
+     */
+    String PREINSTALLED_BEANS = "preinstalled.beans";
+
+    /**
+     * Force content encoding config parameter. Default value "false".
+     * <p/>
+     * By default, a byte-based {@link javax.xml.transform.stream.StreamSource} is handed to the XML reader as bytes so
+     * that the encoding declared by the document (byte order mark or XML declaration) is honoured. The execution
+     * context's content encoding then only applies to documents not declaring an encoding. When this parameter is
+     * "true", the input is always decoded with the execution context's content encoding, regardless of what the
+     * document declares.
+     */
+    String FORCE_CONTENT_ENCODING = "force.content.encoding";
+
+    /**
+     * XML reader config parameter. Default is the SAX driver looked up by {@link org.xml.sax.helpers.XMLReaderFactory}.
+     * <p/>
+     * Fully-qualified class name of the {@link org.xml.sax.XMLReader} parsing XML sources when no
+     * <code>org.xml.sax.driver</code> resource config applies, e.g., <code>org.smooks.engine.resource.reader.AaltoXMLReader</code>.
+     */
+    String XML_READER = "xml.reader";
+
+    /**
+     * Validation schema config parameter. Not set by default.
+     * <p/>
+     * Comma or whitespace separated URIs of the XML schemas validating the input of the SAX NG filter. Validation runs
+     * inline with the parse, in front of the visitors, so that the input is validated and filtered in a single pass.
+     * The first validation error aborts the execution with a <code>org.smooks.xml.SchemaValidationException</code>. The
+     * schemas are compiled once and shared JVM-wide (see <code>org.smooks.xml.SchemaCache</code>).
+     */
+    String VALIDATION_SCHEMA = "validation.schema";
     
     /**
      * Filter the content in the supplied {@link javax.xml.transform.Source} instance, outputing the result
@@ -0,0 +1,90 @@
+/*-
+ * ========================LICENSE_START=================================
+ * API
+ * %%
+ * Copyright (C) 2020 - 2021 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.api.resource.visitor.sax.ng;
+
+import org.smooks.api.ExecutionContext;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Streams the text of an {@link org.w3c.dom.Element} chunk by chunk.
+ * <p/>
+ * Unlike a visitor annotated with {@link org.smooks.api.delivery.sax.TextConsumer}, which reads the whole text of the
+ * <code>Element</code> from the <code>Element</code> itself once the end tag is reached, a
+ * <code>TextChunkVisitor</code> is handed each chunk of text as it is parsed, so that the text of the
+ * <code>Element</code> is never held in memory at once. This suits elements holding very large text such as base64
+ * encoded attachments. The end of the text is signalled by the <code>Element</code>'s end tag: implement
+ * {@link AfterVisitor} as well to be notified of it.
+ * <p/>
+ * A <code>TextChunkVisitor</code> must not be annotated with {@link org.smooks.api.delivery.sax.TextConsumer}.
+ * Otherwise, the text is accumulated regardless.
+ */
+public interface TextChunkVisitor extends ChildrenVisitor {
+
+    /**
+     * Visits a chunk of the text of an <code>Element</code>. This method is invoked once for each chunk of text or
+     * CDATA, in document order. Comments are not visited.
+     *
+     * @param element           the <code>Element</code> owning the text. The <code>Element</code>'s ancestors are
+     *                          traversable unless the global configuration parameter
+     *                          <code>maintain.element.stack</code> is set to false.
+     * @param text              the chunk of text. The chunk is only valid for the duration of the call: copy it,
+     *                          e.g., with {@link CharSequence#toString()}, to keep it.
+     * @param executionContext  the current <code>ExecutionContext</code>
+     */
+    void visitText(Element element, CharSequence text, ExecutionContext executionContext);
+
+    @Override
+    default void visitChildText(CharacterData characterData, ExecutionContext executionContext) {
+        final short nodeType = characterData.getNodeType();
+        if (nodeType == Node.TEXT_NODE || nodeType == Node.CDATA_SECTION_NODE) {
+            visitText((Element) characterData.getParentNode(), characterData.getData(), executionContext);
+        }
+    }
+
+    @Override
+    default void visitChildElement(Element childElement, ExecutionContext executionContext) {
+
+    }
+}
@@ -45,7 +45,9 @@ package org.smooks.benchmark;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.smooks.Smooks;
+import org.smooks.SmooksExecutor;
 import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.io.payload.CompressedSource;
 import org.xml.sax.SAXException;
 
 import javax.xml.transform.stream.StreamSource;
@@ -54,9 +56,9 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
-import java.util.zip.GZIPInputStream;
 
 public class BenchmarkApp {
 
@@ -151,18 +153,27 @@ public class BenchmarkApp {
 
         final Smooks smooks = new Smooks(new DefaultApplicationContextBuilder().setRegisterSystemResources(true).build());
         smooks.addConfigurations(BenchmarkApp.class.getResourceAsStream("/smooks-config.xml"));
-        IntStream.range(0, Math.min(2, Runtime.getRuntime().availableProcessors())).parallel().forEach(value -> {
+        final int workerCount = Math.min(2, Runtime.getRuntime().availableProcessors());
+        final List<CountingInputStream> inputStreams = new ArrayList<>();
+        LOGGER.info("Filtering...");
+        final SmooksExecutor.Metrics metrics = new SmooksExecutor(smooks, workerCount).execute(() -> {
+            if (inputStreams.size() == workerCount) {
+                return null;
+            }
             try {
-                final CountingInputStream inputStream = new CountingInputStream(new GZIPInputStream(Files.newInputStream(Paths.get(testDatasetFile.toURI()))));
-                LOGGER.info("Filtering...");
-                final long startTime = System.currentTimeMillis();
-                smooks.filterSource(new StreamSource(inputStream));
-                final long duration = System.currentTimeMillis() - startTime;
-                LOGGER.info("Filtered {} MBs in {} minutes", (inputStream.getByteCount() / 1024) / 1024, TimeUnit.MILLISECONDS.toMinutes(duration));
+                final CountingInputStream inputStream = new CountingInputStream(CompressedSource.gzip(Files.newInputStream(Paths.get(testDatasetFile.toURI()))).getInputStream());
+                inputStreams.add(inputStream);
+                return new StreamSource(inputStream);
             } catch (IOException e) {
-                LOGGER.error(e.getMessage(), e);
-                throw new RuntimeException(e);
+                throw new UncheckedIOException(e);
+            }
+        }, source -> null, completion -> {
+            if (!completion.isSuccessful()) {
+                LOGGER.error(completion.getFailure().getMessage(), completion.getFailure());
             }
         });
+
+        final long byteCount = inputStreams.stream().mapToLong(CountingInputStream::getByteCount).sum();
+        LOGGER.info("Filtered {} MBs in {} minutes ({} messages/s)", (byteCount / 1024) / 1024, metrics.getElapsedTime(TimeUnit.MINUTES), metrics.getThroughput());
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Benchmark
+ * %%
+ * Copyright (C) 2020 - 2021 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.benchmark;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fixed per-message overhead of filtering many small (&lt; 4 KB) messages, with and without the
+ * {@link org.smooks.api.delivery.Filter#PREINSTALLED_BEANS pre-installed beans}.
+ */
+public class MicroMessageBenchmarkApp {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MicroMessageBenchmarkApp.class);
+    private static final int WARM_UP_ITERATIONS = 50_000;
+    private static final int MEASURED_ITERATIONS = 500_000;
+
+    public static void main(String... args) {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : MEASURED_ITERATIONS;
+        final String message = createMessage();
+        LOGGER.info("Message size is {} bytes", message.length());
+
+        run("default", createSmooks(true), message, iterations);
+        run("no pre-installed beans", createSmooks(false), message, iterations);
+    }
+
+    private static Smooks createSmooks(boolean preinstalledBeans) {
+        final Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setPreinstalledBeans(preinstalledBeans).setReaderPoolSize(1));
+        smooks.addVisitor(new BenchmarkVisitor(), "author");
+        smooks.addVisitor(new BenchmarkVisitor(), "title");
+
+        return smooks;
+    }
+
+    private static void run(String name, Smooks smooks, String message, int iterations) {
+        filter(smooks, message, WARM_UP_ITERATIONS);
+
+        final long startTime = System.nanoTime();
+        filter(smooks, message, iterations);
+        final long duration = System.nanoTime() - startTime;
+
+        LOGGER.info("[{}] Filtered {} messages in {} ms ({} ns/message)", name, iterations, TimeUnit.NANOSECONDS.toMillis(duration), duration / iterations);
+        smooks.close();
+    }
+
+    private static void filter(Smooks smooks, String message, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            smooks.filterSource(smooks.createExecutionContext(), new StringSource(message), new StringResult());
+        }
+    }
+
+    private static String createMessage() {
+        final StringBuilder message = new StringBuilder("<dblp>");
+        for (int i = 0; i < 10; i++) {
+            message.append("<article key=\"journals/acta/").append(i).append("\">")
+                    .append("<author>Author ").append(i).append("</author>")
+                    .append("<title>Title ").append(i).append("</title>")
+                    .append("<year>2015</year>")
+                    .append("</article>");
+        }
+
+        return message.append("</dblp>").toString();
+    }
+}
@@ -116,6 +116,20 @@ public final class XmlUtil {
     public static final char[] QUOT = new char[] {'&', 'q', 'u', 'o', 't', ';'};
     public static final char[] APOS = new char[] {'&', 'a', 'p', 'o', 's', ';'};
 
+    /**
+     * Escapes indexed by character: '>' is the highest character needing an escape.
+     */
+    private static final char[][] TEXT_ESCAPES = new char['>' + 1][];
+    private static final char[][] ATTRIBUTE_ESCAPES = new char['>' + 1][];
+
+    static {
+        TEXT_ESCAPES['<'] = ATTRIBUTE_ESCAPES['<'] = LT;
+        TEXT_ESCAPES['>'] = ATTRIBUTE_ESCAPES['>'] = GT;
+        TEXT_ESCAPES['&'] = ATTRIBUTE_ESCAPES['&'] = AMP;
+        ATTRIBUTE_ESCAPES['\''] = APOS;
+        ATTRIBUTE_ESCAPES['"'] = QUOT;
+    }
+
     private static final String COMMENT_START = "<!--";
     private static final String COMMENT_END   = "-->";
     private static final String CDATA_START   = "<![CDATA[";
@@ -736,47 +750,74 @@ public final class XmlUtil {
     }
 
     public static void encodeTextValue(char[] characters, int offset, int length, Writer writer) throws IOException {
-        for(int i = offset; i < offset + length; i++) {
-            char c = characters[i];
-            switch(c) {
-                case '<' :
-                    writer.write(LT, 0, LT.length);
-                    break;
-                case '>' :
-                    writer.write(GT, 0, GT.length);
-                    break;
-                case '&' :
-                    writer.write(AMP, 0, AMP.length);
-                    break;
-                default:
-                    writer.write(c);
+        encode(characters, offset, length, writer, TEXT_ESCAPES);
+    }
+
+    public static void encodeTextValue(char[] characters, Writer writer) throws IOException {
+        encode(characters, 0, characters.length, writer, TEXT_ESCAPES);
+    }
+
+    public static void encodeTextValue(CharSequence characters, Writer writer) throws IOException {
+        encode(characters, writer, TEXT_ESCAPES);
+    }
+
+    public static void encodeAttributeValue(char[] characters, int offset, int length, Writer writer) throws IOException {
+        encode(characters, offset, length, writer, ATTRIBUTE_ESCAPES);
+    }
+
+    public static void encodeAttributeValue(char[] characters, Writer writer) throws IOException {
+        encode(characters, 0, characters.length, writer, ATTRIBUTE_ESCAPES);
+    }
+
+    public static void encodeAttributeValue(CharSequence characters, Writer writer) throws IOException {
+        encode(characters, writer, ATTRIBUTE_ESCAPES);
+    }
+
+    /**
+     * Writes the characters in runs, breaking a run only on a character having an escape in the supplied table.
+     */
+    private static void encode(char[] characters, int offset, int length, Writer writer, char[][] escapes) throws IOException {
+        final int end = offset + length;
+        int runStart = offset;
+        for (int i = offset; i < end; i++) {
+            final char c = characters[i];
+            if (c < escapes.length && escapes[c] != null) {
+                if (i > runStart) {
+                    writer.write(characters, runStart, i - runStart);
+                }
+                writer.write(escapes[c], 0, escapes[c].length);
+                runStart = i + 1;
             }
         }
+        if (end > runStart) {
+            writer.write(characters, runStart, end - runStart);
+        }
     }
 
-    public static void encodeAttributeValue(char[] characters, int offset, int length, Writer writer) throws IOException {
-        for(int i = offset; i < offset + length; i++) {
-            char c = characters[i];
-            switch(c) {
-                case '<' :
-                    writer.write(LT, 0, LT.length);
-                    break;
-                case '>' :
-                    writer.write(GT, 0, GT.length);
-                    break;
-                case '&' :
-                    writer.write(AMP, 0, AMP.length);
-                    break;
-                case '\'' :
-                    writer.write(APOS, 0, APOS.length);
-                    break;
-                case '\"' :
-                    writer.write(QUOT, 0, QUOT.length);
-                    break;
-                default:
-                    writer.write(c);
+    private static void encode(CharSequence characters, Writer writer, char[][] escapes) throws IOException {
+        final int end = characters.length();
+        int runStart = 0;
+        for (int i = 0; i < end; i++) {
+            final char c = characters.charAt(i);
+            if (c < escapes.length && escapes[c] != null) {
+                if (i > runStart) {
+                    writeRun(characters, runStart, i, writer);
+                }
+                writer.write(escapes[c], 0, escapes[c].length);
+                runStart = i + 1;
             }
         }
+        if (end > runStart) {
+            writeRun(characters, runStart, end, writer);
+        }
+    }
+
+    private static void writeRun(CharSequence characters, int start, int end, Writer writer) throws IOException {
+        if (characters instanceof String) {
+            writer.write((String) characters, start, end - start);
+        } else {
+            writer.append(characters, start, end);
+        }
     }
 
     /**
@@ -45,8 +45,8 @@ package org.smooks.thread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.EmptyStackException;
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /**
  * Stacked ThreadLocal.
@@ -57,51 +57,44 @@ public class StackedThreadLocal<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(StackedThreadLocal.class);
 
     private final String resourceName;
-    private final ThreadLocal<Stack<T>> stackTL = new ThreadLocal<Stack<T>>();
+    private final ThreadLocal<Deque<T>> stackTL = new ThreadLocal<Deque<T>>();
 
     public StackedThreadLocal(String resourceName) {
         this.resourceName = resourceName;
     }
 
     public T get() {
-        Stack<T> execContextStack = getExecutionContextStack();
-        try {
-            return execContextStack.peek();
-        } catch (EmptyStackException e) {
+        Deque<T> execContextStack = stackTL.get();
+        if (execContextStack == null || execContextStack.isEmpty()) {
             if(LOGGER.isDebugEnabled()) {
-                LOGGER.debug("No currently stacked '" + resourceName + "' instance on active Thread.", e);
+                LOGGER.debug("No currently stacked '" + resourceName + "' instance on active Thread.");
             }
             return null;
         }
+        return execContextStack.peek();
     }
 
     public void set(T value) {
-        Stack<T> execContextStack = getExecutionContextStack();
+        Deque<T> execContextStack = stackTL.get();
+        if(execContextStack == null) {
+            execContextStack = new ArrayDeque<T>();
+            stackTL.set(execContextStack);
+        }
         execContextStack.push(value);
     }
 
     public void remove() {
-        Stack<T> execContextStack = getExecutionContextStack();
-        try {
-            execContextStack.pop();
-        } catch (EmptyStackException e) {
+        Deque<T> execContextStack = stackTL.get();
+        if (execContextStack == null || execContextStack.isEmpty()) {
             if(LOGGER.isDebugEnabled()) {
-                LOGGER.debug("No currently stacked '" + resourceName + "' instance on active Thread.", e);
+                LOGGER.debug("No currently stacked '" + resourceName + "' instance on active Thread.");
             }
+            return;
         }
-    }
-
-    private Stack<T> getExecutionContextStack() {
-        Stack<T> stack = stackTL.get();
-        if(stack == null) {
-            synchronized (this) {
-                stack = stackTL.get();
-                if(stack == null) {
-                    stack = new Stack<T>();
-                    stackTL.set(stack);
-                }
-            }
+        execContextStack.pop();
+        if (execContextStack.isEmpty()) {
+            // Don't leave an empty stack behind on the thread...
+            stackTL.remove();
         }
-        return stack;
     }
 }
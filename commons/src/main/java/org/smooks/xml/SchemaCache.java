@@ -0,0 +1,169 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Commons
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.xml;
+
+import org.smooks.assertion.AssertArgument;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JVM-wide cache of compiled XML {@link Schema}s, keyed by the resolved URLs of their schema documents.
+ * <p/>
+ * A {@link Schema} is immutable and thread-safe, so one compiled schema can back the validators of every concurrent
+ * filter execution. A schema URI is resolved against the file system first, then the classpath (with or without a
+ * <code>classpath:</code> scheme), and is otherwise taken as a URL.
+ * <p/>
+ * The classpath is searched with the thread context class loader before the class loader of this class, and the URIs
+ * are resolved before the cache is looked up: applications with their own class loaders sharing this class get the
+ * schemas of their own classpath, even for the same relative URI. The cache holds the URLs as strings and compiles
+ * with the {@link SchemaFactory} of this class's class loader, so it does not pin the class loaders of undeployed
+ * applications. It is never evicted though: {@link #clear()} it when a schema document behind a cached URL changes.
+ */
+public final class SchemaCache {
+
+    private static final ConcurrentMap<List<String>, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+    private SchemaCache() {
+
+    }
+
+    /**
+     * Gets the schema compiled from the supplied schema documents, compiling it on first use.
+     *
+     * @param schemaUris the URIs of the schema documents
+     * @return the compiled schema
+     * @throws SAXException if a schema document cannot be found or compiled
+     */
+    public static Schema getSchema(final String... schemaUris) throws SAXException {
+        AssertArgument.isNotNullAndNotEmpty(schemaUris, "schemaUris");
+        final List<String> schemaUrls = new ArrayList<>(schemaUris.length);
+        for (String schemaUri : schemaUris) {
+            schemaUrls.add(resolve(schemaUri));
+        }
+        final List<String> key = Collections.unmodifiableList(schemaUrls);
+        Schema schema = SCHEMAS.get(key);
+        if (schema == null) {
+            final Source[] sources = new Source[schemaUrls.size()];
+            for (int i = 0; i < sources.length; i++) {
+                sources[i] = new StreamSource(schemaUrls.get(i));
+            }
+            schema = newSchemaFactory().newSchema(sources);
+            final Schema existingSchema = SCHEMAS.putIfAbsent(key, schema);
+            if (existingSchema != null) {
+                schema = existingSchema;
+            }
+        }
+
+        return schema;
+    }
+
+    /**
+     * Discards every compiled schema.
+     */
+    public static void clear() {
+        SCHEMAS.clear();
+    }
+
+    /**
+     * Looks the factory up from this class's class loader rather than the thread context class loader, which could be
+     * an application's. SchemaFactory is not thread-safe so a new one is created per compilation.
+     */
+    private static SchemaFactory newSchemaFactory() {
+        final Thread currentThread = Thread.currentThread();
+        final ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(SchemaCache.class.getClassLoader());
+        try {
+            return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static String resolve(final String schemaUri) throws SAXException {
+        final File file = new File(schemaUri);
+        if (file.isFile()) {
+            return file.toURI().toString();
+        }
+
+        final URI uri;
+        try {
+            uri = new URI(schemaUri);
+        } catch (URISyntaxException e) {
+            throw new SAXException("Invalid schema URI '" + schemaUri + "'", e);
+        }
+        if (uri.getScheme() == null || uri.getScheme().equals("classpath")) {
+            String path = uri.getScheme() == null ? schemaUri : uri.getSchemeSpecificPart();
+            if (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+            URL url = null;
+            final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+            if (contextClassLoader != null) {
+                url = contextClassLoader.getResource(path);
+            }
+            if (url == null) {
+                url = SchemaCache.class.getClassLoader().getResource(path);
+            }
+            if (url == null) {
+                throw new SAXException("Schema '" + schemaUri + "' not found on the file system or the classpath");
+            }
+            return url.toString();
+        }
+
+        return uri.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Commons
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.xml;
+
+import org.smooks.api.SmooksException;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Input failing validation against an XML schema.
+ */
+public class SchemaValidationException extends SmooksException {
+
+    private final String fragmentPath;
+    private final int lineNumber;
+    private final int columnNumber;
+
+    /**
+     * @param fragmentPath the path of the fragment being filtered when the error was reported, or null if unknown
+     * @param cause        the validation error
+     */
+    public SchemaValidationException(final String fragmentPath, final SAXParseException cause) {
+        super("Schema validation error at line " + cause.getLineNumber() + ", column " + cause.getColumnNumber() + (fragmentPath != null ? " in fragment '" + fragmentPath + "'" : "") + ": " + cause.getMessage(), cause);
+        this.fragmentPath = fragmentPath;
+        this.lineNumber = cause.getLineNumber();
+        this.columnNumber = cause.getColumnNumber();
+    }
+
+    /**
+     * @return the path of the fragment being filtered when the error was reported, or null if unknown
+     */
+    public String getFragmentPath() {
+        return fragmentPath;
+    }
+
+    /**
+     * @return the line of the input where the error was reported, or -1 if unknown
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return the column of the input where the error was reported, or -1 if unknown
+     */
+    public int getColumnNumber() {
+        return columnNumber;
+    }
+}
@@ -651,4 +651,57 @@ public class XmlUtilTestCase {
 
         assertEquals(StreamUtils.normalizeLines(indentedXmlExpected, false), StreamUtils.normalizeLines(indentedXML, false));
     }
+
+    @Test
+    public void test_encodeTextValue() throws IOException {
+        assertEquals("", encodeTextValue(""));
+        assertEquals("abc", encodeTextValue("abc"));
+        assertEquals("&lt;a x=\"1\" y='2'&gt; &amp;&amp; &lt;/a&gt;", encodeTextValue("<a x=\"1\" y='2'> && </a>"));
+        assertEquals("&lt;&gt;&amp;", encodeTextValue("<>&"));
+        assertEquals("caf\u00e9 &amp; \ud83d\ude00", encodeTextValue("caf\u00e9 & \ud83d\ude00"));
+
+        StringWriter writer = new StringWriter();
+        XmlUtil.encodeTextValue("x<y&z".toCharArray(), 1, 3, writer);
+        assertEquals("&lt;y&amp;", writer.toString());
+    }
+
+    @Test
+    public void test_encodeAttributeValue() throws IOException {
+        assertEquals("", encodeAttributeValue(""));
+        assertEquals("abc", encodeAttributeValue("abc"));
+        assertEquals("&lt;a x=&quot;1&quot; y=&apos;2&apos;&gt; &amp;&amp; &lt;/a&gt;", encodeAttributeValue("<a x=\"1\" y='2'> && </a>"));
+        assertEquals("&quot;&apos;", encodeAttributeValue("\"'"));
+
+        StringWriter writer = new StringWriter();
+        XmlUtil.encodeAttributeValue("x\"y'z".toCharArray(), 1, 3, writer);
+        assertEquals("&quot;y&apos;", writer.toString());
+    }
+
+    private String encodeTextValue(String value) throws IOException {
+        StringWriter charArrayWriter = new StringWriter();
+        StringWriter stringWriter = new StringWriter();
+        StringWriter charSequenceWriter = new StringWriter();
+
+        XmlUtil.encodeTextValue(value.toCharArray(), charArrayWriter);
+        XmlUtil.encodeTextValue(value, stringWriter);
+        XmlUtil.encodeTextValue(new StringBuilder(value), charSequenceWriter);
+        assertEquals(charArrayWriter.toString(), stringWriter.toString());
+        assertEquals(charArrayWriter.toString(), charSequenceWriter.toString());
+
+        return charArrayWriter.toString();
+    }
+
+    private String encodeAttributeValue(String value) throws IOException {
+        StringWriter charArrayWriter = new StringWriter();
+        StringWriter stringWriter = new StringWriter();
+        StringWriter charSequenceWriter = new StringWriter();
+
+        XmlUtil.encodeAttributeValue(value.toCharArray(), charArrayWriter);
+        XmlUtil.encodeAttributeValue(value, stringWriter);
+        XmlUtil.encodeAttributeValue(new StringBuilder(value), charSequenceWriter);
+        assertEquals(charArrayWriter.toString(), stringWriter.toString());
+        assertEquals(charArrayWriter.toString(), charSequenceWriter.toString());
+
+        return charArrayWriter.toString();
+    }
 }
@@ -0,0 +1,111 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Commons
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.xml;
+
+import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SchemaCacheTestCase {
+
+    @Test
+    public void testGetSchema() throws SAXException {
+        assertSame(SchemaCache.getSchema("/META-INF/xsd/test-xsd-01.xsd"), SchemaCache.getSchema("/META-INF/xsd/test-xsd-01.xsd"));
+        assertNotNull(SchemaCache.getSchema("classpath:/META-INF/xsd/test-xsd-01.xsd"));
+        assertNotSame(SchemaCache.getSchema("META-INF/xsd/test-xsd-01.xsd"), SchemaCache.getSchema("META-INF/xsd/test-xsd-01.xsd", "META-INF/xsd/test-xsd-02.xsd"));
+    }
+
+    @Test
+    public void testGetSchemaGivenMissingSchema() {
+        assertThrows(SAXException.class, () -> SchemaCache.getSchema("/META-INF/xsd/missing.xsd"));
+    }
+
+    @Test
+    public void testGetSchemaGivenContextClassLoaders() throws Exception {
+        URLClassLoader aClassLoader = newSchemaClassLoader("a");
+        URLClassLoader bClassLoader = newSchemaClassLoader("b");
+        Thread currentThread = Thread.currentThread();
+        ClassLoader contextClassLoader = currentThread.getContextClassLoader();
+        try {
+            currentThread.setContextClassLoader(aClassLoader);
+            Schema aSchema = SchemaCache.getSchema("schema-cache-order.xsd");
+            assertSame(aSchema, SchemaCache.getSchema("schema-cache-order.xsd"));
+
+            currentThread.setContextClassLoader(bClassLoader);
+            Schema bSchema = SchemaCache.getSchema("schema-cache-order.xsd");
+
+            assertNotSame(aSchema, bSchema);
+            aSchema.newValidator().validate(new StreamSource(new StringReader("<a/>")));
+            bSchema.newValidator().validate(new StreamSource(new StringReader("<b/>")));
+            assertThrows(SAXException.class, () -> bSchema.newValidator().validate(new StreamSource(new StringReader("<a/>"))));
+        } finally {
+            currentThread.setContextClassLoader(contextClassLoader);
+            aClassLoader.close();
+            bClassLoader.close();
+        }
+    }
+
+    private static URLClassLoader newSchemaClassLoader(String rootElementName) throws IOException {
+        Path classpathDir = Files.createTempDirectory("schema-cache");
+        classpathDir.toFile().deleteOnExit();
+        Path schemaFile = classpathDir.resolve("schema-cache-order.xsd");
+        Files.write(schemaFile, ("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"><xs:element name=\"" + rootElementName + "\"/></xs:schema>").getBytes(StandardCharsets.UTF_8));
+        schemaFile.toFile().deleteOnExit();
+
+        return new URLClassLoader(new URL[]{classpathDir.toUri().toURL()}, null);
+    }
+}
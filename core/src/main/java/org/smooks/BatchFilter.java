@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.engine.delivery.AbstractParser;
+import org.smooks.api.delivery.ContentDeliveryConfig;
+import org.smooks.engine.delivery.BatchReaderPool;
+import org.smooks.engine.delivery.DocumentBuilderPool;
+import org.smooks.engine.delivery.sax.ng.SaxNgContentDeliveryConfig;
+import org.smooks.engine.delivery.sax.ng.SaxNgHandler;
+import org.w3c.dom.Document;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+
+/**
+ * Filters messages one after the other, keeping the {@link org.xml.sax.XMLReader} and the SAX NG {@link Document}
+ * alive across them. Each message is filtered in its own {@link ExecutionContext}. The {@link DocumentBuilder} of the
+ * {@link Document} is borrowed from the SAX NG {@link DocumentBuilderPool} and returned on {@link #close()}.
+ */
+@NotThreadSafe
+class BatchFilter implements AutoCloseable {
+
+    private final Smooks smooks;
+    private BatchReaderPool batchReaderPool;
+    private DocumentBuilderPool documentBuilderPool;
+    private DocumentBuilder documentBuilder;
+    private Document document;
+
+    BatchFilter(final Smooks smooks) {
+        this.smooks = smooks;
+    }
+
+    void filter(final Source source, final Result result) throws SmooksException {
+        final ExecutionContext executionContext = smooks.createExecutionContext();
+        if (batchReaderPool == null) {
+            batchReaderPool = new BatchReaderPool(executionContext.getContentDeliveryRuntime().getReaderPool());
+        }
+        executionContext.put(AbstractParser.READER_POOL_TYPED_KEY, batchReaderPool);
+        if (documentBuilderPool == null) {
+            final ContentDeliveryConfig contentDeliveryConfig = executionContext.getContentDeliveryRuntime().getContentDeliveryConfig();
+            if (contentDeliveryConfig instanceof SaxNgContentDeliveryConfig) {
+                documentBuilderPool = ((SaxNgContentDeliveryConfig) contentDeliveryConfig).getDocumentBuilderPool();
+                documentBuilder = documentBuilderPool.borrowDocumentBuilder();
+                document = documentBuilder.newDocument();
+                document.setStrictErrorChecking(false);
+            }
+        }
+        if (document != null) {
+            executionContext.put(SaxNgHandler.DOCUMENT_TYPED_KEY, document);
+        }
+
+        smooks.filterSource(executionContext, source, result == null ? null : new Result[]{result});
+    }
+
+    @Override
+    public void close() {
+        if (batchReaderPool != null) {
+            batchReaderPool.release();
+        }
+        if (documentBuilder != null) {
+            documentBuilderPool.returnDocumentBuilder(documentBuilder);
+            documentBuilder = null;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.smooks.api.SmooksException;
+
+import javax.xml.transform.Source;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link Smooks#filterBatch(java.util.Iterator, java.util.function.Function) batch filter} operation.
+ * <p/>
+ * A message failing to filter does not abort the batch. Instead, the failure is recorded in the report and the batch
+ * carries on with the next message.
+ */
+public class FilterBatchReport {
+
+    private final List<Failure> failures = new ArrayList<>();
+    private long filteredCount;
+
+    void addFiltered() {
+        filteredCount++;
+    }
+
+    void addFailure(final long index, final Source source, final SmooksException cause) {
+        failures.add(new Failure(index, source, cause));
+    }
+
+    /**
+     * Get the number of messages filtered without error.
+     *
+     * @return The number of messages successfully filtered.
+     */
+    public long getFilteredCount() {
+        return filteredCount;
+    }
+
+    /**
+     * Get the messages that failed to filter, in batch order.
+     *
+     * @return The batch failures.
+     */
+    public List<Failure> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Did all the messages in the batch filter without error?
+     *
+     * @return True if there are no failures, otherwise false.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * A message which failed to filter.
+     */
+    public static class Failure {
+        private final long index;
+        private final Source source;
+        private final SmooksException cause;
+
+        public Failure(final long index, final Source source, final SmooksException cause) {
+            this.index = index;
+            this.source = source;
+            this.cause = cause;
+        }
+
+        /**
+         * Get the zero-based position of the message within the batch.
+         *
+         * @return The message index.
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public SmooksException getCause() {
+            return cause;
+        }
+    }
+}
@@ -44,6 +44,7 @@ package org.smooks;
 
 import org.smooks.api.delivery.Filter;
 import org.smooks.engine.resource.config.ParameterAccessor;
+import org.smooks.io.FlushPolicy;
 
 /**
  * Smooks filter settings for programmatic configuration of the {@link Smooks} instance.
@@ -63,7 +64,17 @@ public class FilterSettings {
     private boolean closeSource = true;
     private boolean closeResult = true;
     private int readerPoolSize;
+    private int readerPoolOverflowSize;
+    private long readerPoolBorrowTimeout;
     private int maxNodeDepth = 1;
+    private boolean preinstalledBeans = true;
+    private boolean forceContentEncoding;
+    private String xmlReader;
+    private FlushPolicy flushPolicy = FlushPolicy.CLOSE;
+    private long flushThreshold = 8192;
+    private long flushInterval = 1000;
+    private String flushSelector;
+    private String validationSchema;
 
     public FilterSettings() {
     }
@@ -129,12 +140,72 @@ public class FilterSettings {
         return this;
     }
 
+    public FilterSettings setReaderPoolOverflowSize(final int readerPoolOverflowSize) {
+        assertNonStaticDecl();
+        this.readerPoolOverflowSize = readerPoolOverflowSize;
+        return this;
+    }
+
+    public FilterSettings setReaderPoolBorrowTimeout(final long readerPoolBorrowTimeout) {
+        assertNonStaticDecl();
+        this.readerPoolBorrowTimeout = readerPoolBorrowTimeout;
+        return this;
+    }
+
     public FilterSettings setMaxNodeDepth(final int maxNodeDepth) {
         assertNonStaticDecl();
         this.maxNodeDepth = maxNodeDepth;
         return this;
     }
 
+    public FilterSettings setPreinstalledBeans(final boolean preinstalledBeans) {
+        assertNonStaticDecl();
+        this.preinstalledBeans = preinstalledBeans;
+        return this;
+    }
+
+    public FilterSettings setForceContentEncoding(final boolean forceContentEncoding) {
+        assertNonStaticDecl();
+        this.forceContentEncoding = forceContentEncoding;
+        return this;
+    }
+
+    public FilterSettings setXmlReader(final String xmlReader) {
+        assertNonStaticDecl();
+        this.xmlReader = xmlReader;
+        return this;
+    }
+
+    public FilterSettings setFlushPolicy(final FlushPolicy flushPolicy) {
+        assertNonStaticDecl();
+        this.flushPolicy = flushPolicy;
+        return this;
+    }
+
+    public FilterSettings setFlushThreshold(final long flushThreshold) {
+        assertNonStaticDecl();
+        this.flushThreshold = flushThreshold;
+        return this;
+    }
+
+    public FilterSettings setFlushInterval(final long flushInterval) {
+        assertNonStaticDecl();
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    public FilterSettings setFlushSelector(final String flushSelector) {
+        assertNonStaticDecl();
+        this.flushSelector = flushSelector;
+        return this;
+    }
+
+    public FilterSettings setValidationSchema(final String validationSchema) {
+        assertNonStaticDecl();
+        this.validationSchema = validationSchema;
+        return this;
+    }
+
     protected void applySettings(Smooks smooks) {
     	// Remove the old params...
         ParameterAccessor.removeParameter(Filter.STREAM_FILTER_TYPE, smooks);        
@@ -145,7 +216,17 @@ public class FilterSettings {
         ParameterAccessor.removeParameter(Filter.CLOSE_SOURCE, smooks);
         ParameterAccessor.removeParameter(Filter.CLOSE_RESULT, smooks);
         ParameterAccessor.removeParameter(Filter.READER_POOL_SIZE, smooks);
+        ParameterAccessor.removeParameter(Filter.READER_POOL_OVERFLOW_SIZE, smooks);
+        ParameterAccessor.removeParameter(Filter.READER_POOL_BORROW_TIMEOUT, smooks);
         ParameterAccessor.removeParameter(Filter.MAX_NODE_DEPTH, smooks);
+        ParameterAccessor.removeParameter(Filter.PREINSTALLED_BEANS, smooks);
+        ParameterAccessor.removeParameter(Filter.FORCE_CONTENT_ENCODING, smooks);
+        ParameterAccessor.removeParameter(Filter.XML_READER, smooks);
+        ParameterAccessor.removeParameter(Filter.FLUSH_POLICY, smooks);
+        ParameterAccessor.removeParameter(Filter.FLUSH_THRESHOLD, smooks);
+        ParameterAccessor.removeParameter(Filter.FLUSH_INTERVAL, smooks);
+        ParameterAccessor.removeParameter(Filter.FLUSH_SELECTOR, smooks);
+        ParameterAccessor.removeParameter(Filter.VALIDATION_SCHEMA, smooks);
 
         // Set the params...
         ParameterAccessor.setParameter(Filter.STREAM_FILTER_TYPE, filterType.toString(), smooks);        
@@ -156,7 +237,23 @@ public class FilterSettings {
         ParameterAccessor.setParameter(Filter.CLOSE_SOURCE, Boolean.toString(closeSource), smooks);
         ParameterAccessor.setParameter(Filter.CLOSE_RESULT, Boolean.toString(closeResult), smooks);
         ParameterAccessor.setParameter(Filter.READER_POOL_SIZE, Integer.toString(readerPoolSize), smooks);
+        ParameterAccessor.setParameter(Filter.READER_POOL_OVERFLOW_SIZE, Integer.toString(readerPoolOverflowSize), smooks);
+        ParameterAccessor.setParameter(Filter.READER_POOL_BORROW_TIMEOUT, Long.toString(readerPoolBorrowTimeout), smooks);
         ParameterAccessor.setParameter(Filter.MAX_NODE_DEPTH, Integer.toString(maxNodeDepth), smooks);
+        ParameterAccessor.setParameter(Filter.PREINSTALLED_BEANS, Boolean.toString(preinstalledBeans), smooks);
+        ParameterAccessor.setParameter(Filter.FORCE_CONTENT_ENCODING, Boolean.toString(forceContentEncoding), smooks);
+        if (xmlReader != null) {
+            ParameterAccessor.setParameter(Filter.XML_READER, xmlReader, smooks);
+        }
+        ParameterAccessor.setParameter(Filter.FLUSH_POLICY, flushPolicy.name().toLowerCase(), smooks);
+        ParameterAccessor.setParameter(Filter.FLUSH_THRESHOLD, Long.toString(flushThreshold), smooks);
+        ParameterAccessor.setParameter(Filter.FLUSH_INTERVAL, Long.toString(flushInterval), smooks);
+        if (flushSelector != null) {
+            ParameterAccessor.setParameter(Filter.FLUSH_SELECTOR, flushSelector, smooks);
+        }
+        if (validationSchema != null) {
+            ParameterAccessor.setParameter(Filter.VALIDATION_SCHEMA, validationSchema, smooks);
+        }
     }
 
 	private void assertNonStaticDecl() {
@@ -75,6 +75,7 @@ import org.smooks.io.payload.JavaResult;
 import org.smooks.engine.lookup.LifecycleManagerLookup;
 import org.smooks.resource.URIResourceLocator;
 import org.smooks.engine.xml.NamespaceManager;
+import org.smooks.io.ConcatenatedDocumentIterator;
 import org.smooks.support.SmooksUtil;
 import org.xml.sax.SAXException;
 
@@ -85,11 +86,14 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.Function;
 
 /**
  * Smooks executor class.
@@ -493,8 +497,8 @@ public class Smooks {
         AssertArgument.isNotNull(source, "source");
         AssertArgument.isNotNull(executionContext, "executionContext");
 
-        if (applicationContext.getClassLoader() != null) {
-            ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        if (applicationContext.getClassLoader() != null && applicationContext.getClassLoader() != contextClassLoader) {
             Thread.currentThread().setContextClassLoader(applicationContext.getClassLoader());
             try {
                 _filter(executionContext, source, results);
@@ -506,13 +510,93 @@ public class Smooks {
         }
     }
 
+    /**
+     * Filter a batch of messages, each one in its own {@link ExecutionContext}.
+     * <p/>
+     * The {@link org.xml.sax.XMLReader} and the SAX NG {@link org.w3c.dom.Document} are kept across the messages of the batch
+     * instead of being created per message. A message failing to filter does not abort the batch: the failure is
+     * recorded in the returned {@link FilterBatchReport}.
+     *
+     * @param sources       The messages to filter.
+     * @param resultFactory Creates the {@link Result} of a message from its {@link Source}. May return
+     *                      <code>null</code> when the message does not produce a result.
+     * @return The batch report.
+     */
+    public FilterBatchReport filterBatch(Iterator<? extends Source> sources, Function<Source, Result> resultFactory) {
+        AssertArgument.isNotNull(sources, "sources");
+        AssertArgument.isNotNull(resultFactory, "resultFactory");
+
+        final FilterBatchReport filterBatchReport = new FilterBatchReport();
+        long index = 0;
+        try (BatchFilter batchFilter = new BatchFilter(this)) {
+            while (sources.hasNext()) {
+                final Source source = sources.next();
+                try {
+                    batchFilter.filter(source, resultFactory.apply(source));
+                    filterBatchReport.addFiltered();
+                } catch (SmooksException e) {
+                    LOGGER.debug("Failed to filter message " + index + " in batch", e);
+                    filterBatchReport.addFailure(index, source, e);
+                } catch (RuntimeException e) {
+                    LOGGER.debug("Failed to filter message " + index + " in batch", e);
+                    filterBatchReport.addFailure(index, source, new SmooksException(e));
+                }
+                index++;
+            }
+        }
+
+        return filterBatchReport;
+    }
+
+    /**
+     * Filter a batch of XML documents concatenated in a single character stream. See
+     * {@link #filterBatch(Iterator, Function)}.
+     *
+     * @param concatenatedDocuments The XML documents, one after the other.
+     * @param resultFactory         Creates the {@link Result} of a document from its {@link Source}. May return
+     *                              <code>null</code> when the document does not produce a result.
+     * @return The batch report.
+     */
+    public FilterBatchReport filterBatch(Reader concatenatedDocuments, Function<Source, Result> resultFactory) {
+        AssertArgument.isNotNull(concatenatedDocuments, "concatenatedDocuments");
+        return filterBatch(new ConcatenatedDocumentIterator(concatenatedDocuments), resultFactory);
+    }
+
+    /**
+     * Open a non-blocking, push-based filter operation: the content is fed to the returned {@link SmooksPushSession}
+     * as it becomes available, instead of being pulled from a {@link Source}. Only supported by the SAX NG filter.
+     *
+     * @param executionContext The {@link ExecutionContext} for this filter operation.
+     * @param results          The filter Results.
+     * @return The push session, to be fed and then ended with {@link SmooksPushSession#endOfInput()}.
+     * @throws SmooksException Failed to open the session.
+     */
+    public SmooksPushSession openPushSession(ExecutionContext executionContext, Result... results) throws SmooksException {
+        AssertArgument.isNotNull(executionContext, "executionContext");
+        return new SmooksPushSession(this, executionContext, results);
+    }
+
+    /**
+     * Chain this Smooks instance to another one, filtering the output of this instance. The output is handed over as
+     * SAX events instead of text. See {@link SmooksPipe}.
+     *
+     * @param smooks The downstream Smooks instance. Must use the SAX NG filter.
+     * @return The pipe, to which further stages can be appended.
+     */
+    public SmooksPipe pipeTo(Smooks smooks) {
+        AssertArgument.isNotNull(smooks, "smooks");
+        List<Smooks> stages = new ArrayList<>();
+        stages.add(this);
+        stages.add(smooks);
+
+        return new SmooksPipe(stages);
+    }
+
     private void _filter(ExecutionContext executionContext, Source source, Result... results) {
         ContentDeliveryRuntime contentDeliveryRuntime = executionContext.getContentDeliveryRuntime();
 
         try {
-            for (ExecutionEventListener executionEventListener : contentDeliveryRuntime.getExecutionEventListeners()) {
-                executionEventListener.onEvent(new FilterLifecycleEvent(FilterLifecycleEvent.EventType.STARTED, executionContext));
-            }
+            fireFilterLifecycleEvent(executionContext, FilterLifecycleEvent.EventType.STARTED);
 
             ContentDeliveryConfig contentDeliveryConfig = contentDeliveryRuntime.getContentDeliveryConfig();
 
@@ -528,35 +612,21 @@ public class Smooks {
             }
 
             Filter filter = contentDeliveryConfig.newFilter(executionContext);
+            executionContext.put(AbstractFilter.FILTER_TYPED_KEY, filter);
+            // still bound to the thread for callers of the deprecated AbstractFilter.getFilter()
             AbstractFilter.setFilter(filter);
             try {
                 // Attach the source and results to the context...
                 FilterSource.setSource(executionContext, source);
                 FilterResult.setResults(executionContext, results);
 
-                // Add pre installed beans + global BeanContext lifecycle observers...
-                BeanContext beanContext = executionContext.getBeanContext();
-                beanContext.addBean(Time.BEAN_ID, new Time());
-                beanContext.addBean(UniqueID.BEAN_ID, new UniqueID());
-                for (BeanContextLifecycleObserver observer : applicationContext.getBeanContextLifecycleObservers()) {
-                    beanContext.addObserver(observer);
-                }
-
+                final boolean addPreinstalledBeans = initBeanContext(executionContext);
                 try {
                     contentDeliveryConfig.executeHandlerInit(executionContext);
                     filter.doFilter();
                 } finally {
                     try {
-                        // We want to make sure that all the beans from the BeanContext are available in the
-                        // JavaResult, if one is supplied by the user...
-                        JavaResult javaResult = (JavaResult) FilterResult.getResult(executionContext, JavaResult.class);
-                        if (javaResult != null) {
-                            javaResult.getResultMap().putAll(executionContext.getBeanContext().getBeanMap());
-                        }
-
-                        // Remove the pre-installed beans...
-                        beanContext.removeBean(Time.BEAN_ID, null);
-                        beanContext.removeBean(UniqueID.BEAN_ID, null);
+                        finalizeBeanContext(executionContext, addPreinstalledBeans);
                     } finally {
                         contentDeliveryConfig.executeHandlerCleanup(executionContext);
                     }
@@ -568,6 +638,7 @@ public class Smooks {
                 executionContext.setTerminationError(t);
                 throw new SmooksException("Smooks Filtering operation failed.", t);
             } finally {
+                executionContext.remove(AbstractFilter.FILTER_TYPED_KEY);
                 AbstractFilter.removeCurrentFilter();
                 try {
                     filter.close();
@@ -576,12 +647,69 @@ public class Smooks {
                 }
             }
         } finally {
-            for (ExecutionEventListener executionEventListener : contentDeliveryRuntime.getExecutionEventListeners()) {
-                executionEventListener.onEvent(new FilterLifecycleEvent(FilterLifecycleEvent.EventType.FINISHED, executionContext));
+            fireFilterLifecycleEvent(executionContext, FilterLifecycleEvent.EventType.FINISHED);
+        }
+    }
+
+    void fireFilterLifecycleEvent(ExecutionContext executionContext, FilterLifecycleEvent.EventType eventType) {
+        final List<ExecutionEventListener> executionEventListeners = executionContext.getContentDeliveryRuntime().getExecutionEventListeners();
+        if (!executionEventListeners.isEmpty()) {
+            final FilterLifecycleEvent filterLifecycleEvent = new FilterLifecycleEvent(eventType, executionContext);
+            for (ExecutionEventListener executionEventListener : executionEventListeners) {
+                executionEventListener.onEvent(filterLifecycleEvent);
             }
         }
     }
 
+    /**
+     * Add the pre-installed beans and the global {@link BeanContextLifecycleObserver}s to the bean context of the
+     * supplied execution.
+     *
+     * @return True if the pre-installed beans were added, otherwise false.
+     */
+    boolean initBeanContext(ExecutionContext executionContext) {
+        BeanContext beanContext = executionContext.getBeanContext();
+        final boolean addPreinstalledBeans = isPreinstalledBeansRequired(executionContext.getContentDeliveryRuntime().getContentDeliveryConfig());
+        if (addPreinstalledBeans) {
+            beanContext.addBean(Time.BEAN_ID, new Time());
+            beanContext.addBean(UniqueID.BEAN_ID, new UniqueID());
+        }
+        for (BeanContextLifecycleObserver observer : applicationContext.getBeanContextLifecycleObservers()) {
+            beanContext.addObserver(observer);
+        }
+        return addPreinstalledBeans;
+    }
+
+    /**
+     * Copy the beans to the {@link JavaResult}, if any, and remove the pre-installed beans.
+     */
+    void finalizeBeanContext(ExecutionContext executionContext, boolean preinstalledBeansAdded) {
+        // We want to make sure that all the beans from the BeanContext are available in the
+        // JavaResult, if one is supplied by the user...
+        JavaResult javaResult = (JavaResult) FilterResult.getResult(executionContext, JavaResult.class);
+        if (javaResult != null) {
+            javaResult.getResultMap().putAll(executionContext.getBeanContext().getBeanMap());
+        }
+
+        // Remove the pre-installed beans...
+        if (preinstalledBeansAdded) {
+            executionContext.getBeanContext().removeBean(Time.BEAN_ID, null);
+            executionContext.getBeanContext().removeBean(UniqueID.BEAN_ID, null);
+        }
+    }
+
+    /**
+     * Are the {@link Time} and {@link UniqueID} pre-installed beans required for the filter run? They are unless
+     * explicitly switched off with {@link Filter#PREINSTALLED_BEANS}.
+     */
+    private boolean isPreinstalledBeansRequired(ContentDeliveryConfig contentDeliveryConfig) {
+        if (contentDeliveryConfig instanceof AbstractContentDeliveryConfig) {
+            return ((AbstractContentDeliveryConfig) contentDeliveryConfig).isPreinstalledBeans();
+        } else {
+            return true;
+        }
+    }
+
     /**
      * Get the Smooks {@link ApplicationContext} associated with
      * this Smooks instance.
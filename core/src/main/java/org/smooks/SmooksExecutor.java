@@ -0,0 +1,434 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.SmooksException;
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Filters many messages in parallel with a shared {@link Smooks} instance.
+ * <p/>
+ * Messages are pulled from a {@link Supplier} on the calling thread and filtered by a fixed number of worker threads.
+ * Each worker keeps its own {@link org.xml.sax.XMLReader} and SAX NG {@link org.w3c.dom.Document} for all the
+ * messages it filters. The number of messages pulled from the supplier but not yet handed to the completion consumer
+ * is bounded by {@link #setMaxInFlight(int)}: the supplier is not called again until a message completes.
+ * <p/>
+ * Usage:
+ * <pre>
+ * SmooksExecutor smooksExecutor = new SmooksExecutor(smooks, 8).setOrdered(true);
+ * SmooksExecutor.Metrics metrics = smooksExecutor.execute(sourceSupplier, source -&gt; new StringResult(), completion -&gt; {
+ *     ...
+ * });
+ * </pre>
+ */
+@ThreadSafe
+public class SmooksExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmooksExecutor.class);
+    private static final Task END_OF_INPUT = new Task(-1, null);
+
+    private final Smooks smooks;
+    private final int workerCount;
+    private volatile int maxInFlight;
+    private volatile boolean ordered;
+
+    /**
+     * Public constructor.
+     *
+     * @param smooks      The {@link Smooks} instance filtering the messages.
+     * @param workerCount The number of worker threads.
+     */
+    public SmooksExecutor(final Smooks smooks, final int workerCount) {
+        AssertArgument.isNotNull(smooks, "smooks");
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("'workerCount' must be greater than 0");
+        }
+        this.smooks = smooks;
+        this.workerCount = workerCount;
+        this.maxInFlight = workerCount * 2;
+    }
+
+    /**
+     * Set the maximum number of messages in flight, that is, pulled from the supplier but not yet handed to the
+     * completion consumer. Default is twice the worker count.
+     *
+     * @param maxInFlight The maximum number of messages in flight.
+     * @return This instance.
+     */
+    public SmooksExecutor setMaxInFlight(final int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("'maxInFlight' must be greater than 0");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Hand completed messages to the completion consumer in the order they were supplied. Default is
+     * <code>false</code>: messages are handed over as soon as they complete.
+     *
+     * @param ordered True to emit completions in supply order, otherwise false.
+     * @return This instance.
+     */
+    public SmooksExecutor setOrdered(final boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Filter the supplied messages, blocking until all of them have completed.
+     * <p/>
+     * A message failing to filter does not stop the execution: its {@link Completion} carries the failure. The
+     * completion consumer is invoked by the worker threads, one completion at a time when ordered.
+     *
+     * @param sourceSupplier     Supplies the messages to filter. Returns <code>null</code> when there are no more
+     *                           messages.
+     * @param resultFactory      Creates the {@link Result} of a message from its {@link Source}. May return
+     *                           <code>null</code> when the message does not produce a result.
+     * @param completionConsumer Receives the outcome of each message.
+     * @return The execution metrics.
+     * @throws SmooksException The execution was interrupted, or the completion consumer or a worker thread failed.
+     */
+    public Metrics execute(final Supplier<? extends Source> sourceSupplier, final Function<Source, Result> resultFactory, final Consumer<Completion> completionConsumer) throws SmooksException {
+        AssertArgument.isNotNull(sourceSupplier, "sourceSupplier");
+        AssertArgument.isNotNull(resultFactory, "resultFactory");
+        AssertArgument.isNotNull(completionConsumer, "completionConsumer");
+
+        final Metrics metrics = new Metrics();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+        final AtomicReference<Throwable> consumerError = new AtomicReference<>();
+        final AtomicReference<Throwable> workerError = new AtomicReference<>();
+        final Emitter emitter = new Emitter(ordered, completionConsumer, inFlight, consumerError);
+
+        final Thread[] workers = new Thread[workerCount];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Worker(tasks, resultFactory, emitter, metrics), "smooks-executor-worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].setUncaughtExceptionHandler((worker, throwable) -> {
+                workerError.compareAndSet(null, throwable);
+                // a dead worker may hold permits: wake up the dispatcher so that it sees the failure
+                inFlight.release(maxInFlight);
+            });
+            workers[i].start();
+        }
+
+        final boolean joined;
+        try {
+            long index = 0;
+            Source source;
+            while (consumerError.get() == null && workerError.get() == null && (source = sourceSupplier.get()) != null) {
+                inFlight.acquire();
+                if (workerError.get() != null) {
+                    break;
+                }
+                tasks.put(new Task(index++, source));
+                metrics.submittedCount.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            throw new SmooksException("Interrupted while dispatching messages", e);
+        } finally {
+            for (int i = 0; i < workers.length; i++) {
+                tasks.add(END_OF_INPUT);
+            }
+            // never throws so that it does not mask the failure being propagated, if any
+            joined = join(workers);
+            metrics.stop();
+        }
+
+        if (!joined) {
+            throw new SmooksException("Interrupted while waiting for workers");
+        }
+        if (workerError.get() != null) {
+            throw new SmooksException("Worker thread failed", workerError.get());
+        }
+        if (consumerError.get() != null) {
+            throw new SmooksException("Completion consumer failed", consumerError.get());
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Waits for the workers to end. On interrupt, interrupts the workers and stops waiting.
+     *
+     * @return False if interrupted, otherwise true.
+     */
+    private boolean join(final Thread[] workers) {
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                for (Thread interruptedWorker : workers) {
+                    interruptedWorker.interrupt();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Task {
+        private final long index;
+        private final Source source;
+
+        private Task(final long index, final Source source) {
+            this.index = index;
+            this.source = source;
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final BlockingQueue<Task> tasks;
+        private final Function<Source, Result> resultFactory;
+        private final Emitter emitter;
+        private final Metrics metrics;
+
+        private Worker(final BlockingQueue<Task> tasks, final Function<Source, Result> resultFactory, final Emitter emitter, final Metrics metrics) {
+            this.tasks = tasks;
+            this.resultFactory = resultFactory;
+            this.emitter = emitter;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void run() {
+            BatchFilter batchFilter = null;
+            SmooksException batchFilterFailure = null;
+            try {
+                batchFilter = new BatchFilter(smooks);
+            } catch (Throwable t) {
+                // every message taken by this worker fails with it, so that each one still completes
+                batchFilterFailure = t instanceof SmooksException ? (SmooksException) t : new SmooksException("Failed to create the batch filter", t);
+            }
+            try {
+                Task task;
+                while ((task = tasks.take()) != END_OF_INPUT) {
+                    Result result = null;
+                    SmooksException failure = batchFilterFailure;
+                    if (failure == null) {
+                        try {
+                            result = resultFactory.apply(task.source);
+                            batchFilter.filter(task.source, result);
+                            metrics.filteredCount.incrementAndGet();
+                        } catch (SmooksException e) {
+                            failure = e;
+                        } catch (Throwable t) {
+                            failure = new SmooksException(t);
+                        }
+                    }
+                    if (failure != null) {
+                        LOGGER.debug("Failed to filter message " + task.index, failure);
+                        metrics.failedCount.incrementAndGet();
+                    }
+                    emitter.emit(new Completion(task.index, task.source, result, failure));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                if (batchFilter != null) {
+                    batchFilter.close();
+                }
+            }
+        }
+    }
+
+    private static class Emitter {
+        private final boolean ordered;
+        private final Consumer<Completion> completionConsumer;
+        private final Semaphore inFlight;
+        private final AtomicReference<Throwable> consumerError;
+        private final Map<Long, Completion> pendingCompletions = new HashMap<>();
+        private long nextIndex;
+
+        private Emitter(final boolean ordered, final Consumer<Completion> completionConsumer, final Semaphore inFlight, final AtomicReference<Throwable> consumerError) {
+            this.ordered = ordered;
+            this.completionConsumer = completionConsumer;
+            this.inFlight = inFlight;
+            this.consumerError = consumerError;
+        }
+
+        private void emit(final Completion completion) {
+            if (ordered) {
+                synchronized (pendingCompletions) {
+                    pendingCompletions.put(completion.getIndex(), completion);
+                    Completion nextCompletion;
+                    while ((nextCompletion = pendingCompletions.remove(nextIndex)) != null) {
+                        nextIndex++;
+                        accept(nextCompletion);
+                    }
+                }
+            } else {
+                accept(completion);
+            }
+        }
+
+        private void accept(final Completion completion) {
+            try {
+                if (consumerError.get() == null) {
+                    completionConsumer.accept(completion);
+                }
+            } catch (Throwable t) {
+                consumerError.compareAndSet(null, t);
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Outcome of filtering a message.
+     */
+    public static class Completion {
+        private final long index;
+        private final Source source;
+        private final Result result;
+        private final SmooksException failure;
+
+        public Completion(final long index, final Source source, final Result result, final SmooksException failure) {
+            this.index = index;
+            this.source = source;
+            this.result = result;
+            this.failure = failure;
+        }
+
+        /**
+         * Get the zero-based position of the message in supply order.
+         *
+         * @return The message index.
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * Get the reason the message failed to filter.
+         *
+         * @return The failure, or <code>null</code> if the message was filtered successfully.
+         */
+        public SmooksException getFailure() {
+            return failure;
+        }
+
+        public boolean isSuccessful() {
+            return failure == null;
+        }
+    }
+
+    /**
+     * Throughput metrics of a {@link SmooksExecutor#execute(Supplier, Function, Consumer) execution}.
+     */
+    public static class Metrics {
+        private final AtomicLong submittedCount = new AtomicLong();
+        private final AtomicLong filteredCount = new AtomicLong();
+        private final AtomicLong failedCount = new AtomicLong();
+        private final long startTime = System.nanoTime();
+        private volatile long endTime;
+
+        private void stop() {
+            endTime = System.nanoTime();
+        }
+
+        public long getSubmittedCount() {
+            return submittedCount.get();
+        }
+
+        public long getFilteredCount() {
+            return filteredCount.get();
+        }
+
+        public long getFailedCount() {
+            return failedCount.get();
+        }
+
+        /**
+         * Get the time elapsed since the execution started, up to its end once it has ended.
+         *
+         * @param timeUnit The unit of the returned time.
+         * @return The elapsed time.
+         */
+        public long getElapsedTime(final TimeUnit timeUnit) {
+            return timeUnit.convert((endTime == 0 ? System.nanoTime() : endTime) - startTime, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Get the number of messages completed, successfully or not, per second.
+         *
+         * @return The throughput in messages per second.
+         */
+        public double getThroughput() {
+            final long elapsedNanos = getElapsedTime(TimeUnit.NANOSECONDS);
+            return elapsedNanos == 0 ? 0 : (getFilteredCount() + getFailedCount()) * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.smooks.api.SmooksException;
+import org.smooks.assertion.AssertArgument;
+import org.smooks.io.payload.ContentHandlerResult;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chain of {@link Smooks} instances, each one filtering the output of the previous one. See
+ * {@link Smooks#pipeTo(Smooks)}.
+ * <pre>
+ * smooks1.pipeTo(smooks2).pipeTo(smooks3).filterSource(source, result);
+ * </pre>
+ * The output of a stage is handed to the next stage as SAX events, in the same thread, through a
+ * {@link ContentHandlerResult} firing them at a {@link SmooksPushSession} of the next stage: no text is encoded and
+ * parsed again between the stages and the namespace declarations are carried over. Every stage but the first one
+ * must use the SAX NG filter.
+ * <p/>
+ * A pipe is immutable and, like a Smooks instance, can filter concurrent executions.
+ */
+@ThreadSafe
+public class SmooksPipe {
+
+    private final List<Smooks> stages;
+
+    SmooksPipe(final List<Smooks> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Append a stage to a copy of this pipe.
+     *
+     * @param smooks The Smooks instance filtering the output of the last stage of this pipe.
+     * @return The new pipe.
+     */
+    public SmooksPipe pipeTo(final Smooks smooks) {
+        AssertArgument.isNotNull(smooks, "smooks");
+        final List<Smooks> pipeStages = new ArrayList<>(stages);
+        pipeStages.add(smooks);
+
+        return new SmooksPipe(pipeStages);
+    }
+
+    public List<Smooks> getStages() {
+        return stages;
+    }
+
+    /**
+     * Filter the content in the supplied {@link Source} instance through the stages of the pipe, each one in its own
+     * {@link org.smooks.api.ExecutionContext}, outputting data of the last stage to the supplied {@link Result}
+     * instances.
+     *
+     * @param source  The Source of the first stage.
+     * @param results The Results of the last stage.
+     * @throws SmooksException Failed to filter.
+     */
+    public void filterSource(final Source source, final Result... results) throws SmooksException {
+        AssertArgument.isNotNull(source, "source");
+
+        final SmooksPushSession[] pushSessions = new SmooksPushSession[stages.size()];
+        final ContentHandlerResult[] pipeResults = new ContentHandlerResult[stages.size()];
+        try {
+            Result[] stageResults = results;
+            for (int i = stages.size() - 1; i > 0; i--) {
+                final Smooks stage = stages.get(i);
+                pushSessions[i] = stage.openPushSession(stage.createExecutionContext(), stageResults);
+                pipeResults[i] = new ContentHandlerResult(pushSessions[i].getContentHandler());
+                stageResults = new Result[]{pipeResults[i]};
+            }
+            stages.get(0).filterSource(source, stageResults);
+            for (int i = 1; i < stages.size(); i++) {
+                try {
+                    pipeResults[i].close();
+                } catch (IOException e) {
+                    throw new SmooksException("Failed to end the document piped to stage " + i, e);
+                }
+                pushSessions[i].endOfInput();
+            }
+        } finally {
+            // upstream first: a session abandoned by a failure flushes and closes its results, aborting the document
+            // piped to the next stage, and the last stage hands what it got to the caller's results
+            for (int i = 1; i < stages.size(); i++) {
+                if (pipeResults[i] != null) {
+                    pipeResults[i].abort();
+                }
+                if (pushSessions[i] != null) {
+                    pushSessions[i].close();
+                }
+            }
+        }
+    }
+}
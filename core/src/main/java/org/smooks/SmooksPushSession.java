@@ -0,0 +1,264 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.delivery.ContentDeliveryConfig;
+import org.smooks.api.delivery.Filter;
+import org.smooks.engine.delivery.AbstractFilter;
+import org.smooks.engine.delivery.event.FilterLifecycleEvent;
+import org.smooks.engine.delivery.sax.ng.SaxNgFilter;
+import org.smooks.io.payload.FilterResult;
+import org.smooks.io.payload.FilterSource;
+import org.xml.sax.ContentHandler;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.transform.Result;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking, push-based filter operation. See {@link Smooks#openPushSession(ExecutionContext, Result...)}.
+ * <p/>
+ * The bytes of the document are {@link #feed(ByteBuffer) fed} as they arrive (e.g., from a Netty or NIO channel)
+ * and filtered straight away by the SAX NG filter, without blocking on, or buffering, the rest of the document.
+ * The session completes on {@link #endOfInput()}.
+ * <pre>
+ * try (SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), result)) {
+ *     pushSession.feed(byteBuffer);
+ *     ...
+ *     pushSession.endOfInput();
+ * }
+ * </pre>
+ * The document must be encoded in UTF-8, US-ASCII or ISO-8859-1, as supported by the Aalto async parser.
+ * <p/>
+ * A session is not thread-safe but need not be fed from a single thread: feeding from successive I/O callbacks on
+ * different threads is fine as long as the calls do not overlap. Like {@link Smooks#filterSource(javax.xml.transform.Source, Result...)},
+ * each call runs with the Smooks class loader as the thread context class loader and the session's filter bound to
+ * the thread, both restored on return.
+ */
+@NotThreadSafe
+public class SmooksPushSession implements AutoCloseable {
+
+    private final Smooks smooks;
+    private final ExecutionContext executionContext;
+    private final ContentDeliveryConfig contentDeliveryConfig;
+    private final SaxNgFilter filter;
+    private final boolean preinstalledBeansAdded;
+    private boolean open = true;
+
+    SmooksPushSession(final Smooks smooks, final ExecutionContext executionContext, final Result... results) {
+        this.smooks = smooks;
+        this.executionContext = executionContext;
+        contentDeliveryConfig = executionContext.getContentDeliveryRuntime().getContentDeliveryConfig();
+
+        final ClassLoader contextClassLoader = setContextClassLoader();
+        try {
+            smooks.fireFilterLifecycleEvent(executionContext, FilterLifecycleEvent.EventType.STARTED);
+            final Filter newFilter = contentDeliveryConfig.newFilter(executionContext);
+            if (!(newFilter instanceof SaxNgFilter)) {
+                closeFilter(newFilter);
+                smooks.fireFilterLifecycleEvent(executionContext, FilterLifecycleEvent.EventType.FINISHED);
+                throw new SmooksException("Push sessions are only supported by the SAX NG filter");
+            }
+            filter = (SaxNgFilter) newFilter;
+            executionContext.put(AbstractFilter.FILTER_TYPED_KEY, filter);
+            AbstractFilter.setFilter(filter);
+            try {
+                // the document is pushed as a byte stream rather than pulled from one
+                FilterSource.setSource(executionContext, new StreamSource());
+                FilterResult.setResults(executionContext, results);
+
+                boolean preinstalledBeansAdded = false;
+                try {
+                    preinstalledBeansAdded = smooks.initBeanContext(executionContext);
+                    contentDeliveryConfig.executeHandlerInit(executionContext);
+                    filter.startPush();
+                } catch (RuntimeException e) {
+                    end(preinstalledBeansAdded, e);
+                    throw e;
+                }
+                this.preinstalledBeansAdded = preinstalledBeansAdded;
+            } finally {
+                AbstractFilter.removeCurrentFilter();
+            }
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Filter the next bytes of the document.
+     *
+     * @param byteBuffer The bytes. The buffer is fully consumed on return and can be reused by the caller.
+     * @throws SmooksException Failed to filter the bytes. The session is closed.
+     */
+    public void feed(final ByteBuffer byteBuffer) throws SmooksException {
+        assertOpen();
+        final ClassLoader contextClassLoader = bindToThread();
+        try {
+            filter.push(byteBuffer);
+        } catch (RuntimeException e) {
+            end(preinstalledBeansAdded, e);
+            throw e;
+        } finally {
+            unbindFromThread(contextClassLoader);
+        }
+    }
+
+    /**
+     * The handler to fire the SAX events of the document at, as an alternative to {@link #feed(ByteBuffer) feeding}
+     * its bytes, e.g., from the {@link org.smooks.io.SAXWriter} of an upstream filter. The session completes on
+     * {@link #endOfInput()} as usual.
+     * <p/>
+     * Unlike {@link #feed(ByteBuffer)}, a handler error leaves the session open: the caller must {@link #close()} it.
+     *
+     * @return The content handler, which is also a {@link org.xml.sax.ext.LexicalHandler}.
+     */
+    public ContentHandler getContentHandler() {
+        assertOpen();
+        return filter.getPushContentHandler();
+    }
+
+    /**
+     * Signal the end of the document, completing the filter operation and closing the session.
+     *
+     * @throws SmooksException Failed to filter the end of the document (e.g., the document is incomplete).
+     */
+    public void endOfInput() throws SmooksException {
+        assertOpen();
+        final ClassLoader contextClassLoader = bindToThread();
+        RuntimeException error = null;
+        try {
+            filter.endPush();
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            try {
+                end(preinstalledBeansAdded, error);
+            } finally {
+                unbindFromThread(contextClassLoader);
+            }
+        }
+    }
+
+    /**
+     * Abort the filter operation if {@link #endOfInput()} was not called, otherwise do nothing.
+     */
+    @Override
+    public void close() {
+        if (open) {
+            final ClassLoader contextClassLoader = bindToThread();
+            try {
+                end(preinstalledBeansAdded, new SmooksException("Push session closed before the end of the input"));
+            } finally {
+                unbindFromThread(contextClassLoader);
+            }
+        }
+    }
+
+    public ExecutionContext getExecutionContext() {
+        return executionContext;
+    }
+
+    private void assertOpen() {
+        if (!open) {
+            throw new IllegalStateException("Push session is closed");
+        }
+    }
+
+    /**
+     * @return The thread context class loader to restore on {@link #unbindFromThread(ClassLoader)}.
+     */
+    private ClassLoader bindToThread() {
+        final ClassLoader contextClassLoader = setContextClassLoader();
+        AbstractFilter.setFilter(filter);
+        return contextClassLoader;
+    }
+
+    private void unbindFromThread(final ClassLoader contextClassLoader) {
+        AbstractFilter.removeCurrentFilter();
+        Thread.currentThread().setContextClassLoader(contextClassLoader);
+    }
+
+    private ClassLoader setContextClassLoader() {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final ClassLoader classLoader = smooks.getApplicationContext().getClassLoader();
+        if (classLoader != null && classLoader != contextClassLoader) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+        }
+        return contextClassLoader;
+    }
+
+    private void end(final boolean preinstalledBeansAdded, final RuntimeException error) {
+        open = false;
+        try {
+            if (error != null) {
+                executionContext.setTerminationError(error);
+            }
+            try {
+                smooks.finalizeBeanContext(executionContext, preinstalledBeansAdded);
+            } finally {
+                contentDeliveryConfig.executeHandlerCleanup(executionContext);
+            }
+        } finally {
+            executionContext.remove(AbstractFilter.FILTER_TYPED_KEY);
+            try {
+                closeFilter(filter);
+            } finally {
+                smooks.fireFilterLifecycleEvent(executionContext, FilterLifecycleEvent.EventType.FINISHED);
+            }
+        }
+    }
+
+    private static void closeFilter(final Filter filter) {
+        try {
+            filter.close();
+        } catch (IOException e) {
+            throw new SmooksException(e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import org.smooks.api.SmooksException;
+import org.smooks.assertion.AssertArgument;
+import org.smooks.io.RecordFragmentIterator;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.Closeable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Filters a large document made of independent records in parallel.
+ * <p/>
+ * The calling thread tokenizes the document into record fragments (see {@link RecordFragmentIterator}) which are
+ * dispatched to a {@link SmooksExecutor}. Every worker runs the same {@link Smooks} configuration on the fragments it
+ * receives. Completions are handed to the completion consumer in document order, whether the results are streamed
+ * output or bound beans (i.e., a {@link org.smooks.io.payload.JavaResult}).
+ * <p/>
+ * Usage:
+ * <pre>
+ * SmooksSplitter smooksSplitter = new SmooksSplitter(smooks, 8, "dblp/article", "dblp/inproceedings");
+ * smooksSplitter.split(new StreamSource(inputStream), source -&gt; new JavaResult(), completion -&gt; {
+ *     ...
+ * });
+ * </pre>
+ */
+@ThreadSafe
+public class SmooksSplitter {
+
+    // Woodstox rather than whichever StAX implementation is found first: Aalto does not replace entity references
+    private static final XMLInputFactory XML_INPUT_FACTORY = new WstxInputFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+    }
+
+    private final SmooksExecutor smooksExecutor;
+    private final String[] splitSelectors;
+    private volatile boolean ancestorContext;
+
+    /**
+     * Public constructor.
+     *
+     * @param smooks         The {@link Smooks} instance filtering the records.
+     * @param workerCount    The number of worker threads.
+     * @param splitSelectors The record elements. See {@link RecordFragmentIterator}.
+     */
+    public SmooksSplitter(final Smooks smooks, final int workerCount, final String... splitSelectors) {
+        AssertArgument.isNotNullAndNotEmpty(splitSelectors, "splitSelectors");
+        this.smooksExecutor = new SmooksExecutor(smooks, workerCount).setOrdered(true);
+        this.splitSelectors = splitSelectors.clone();
+    }
+
+    /**
+     * Wrap each record in the start and end tags of its ancestors so that selectors and visitors depending on the
+     * ancestors (e.g., <code>dblp/article</code>) keep matching. Default is <code>false</code>.
+     *
+     * @param ancestorContext True to wrap records in their ancestors, otherwise false.
+     * @return This instance.
+     */
+    public SmooksSplitter setAncestorContext(final boolean ancestorContext) {
+        this.ancestorContext = ancestorContext;
+        return this;
+    }
+
+    /**
+     * See {@link SmooksExecutor#setMaxInFlight(int)}.
+     *
+     * @param maxInFlight The maximum number of records in flight.
+     * @return This instance.
+     */
+    public SmooksSplitter setMaxInFlight(final int maxInFlight) {
+        smooksExecutor.setMaxInFlight(maxInFlight);
+        return this;
+    }
+
+    /**
+     * Split the supplied document into records and filter them, blocking until all of them have completed.
+     *
+     * @param source             The document. Its stream, if any, is closed on return.
+     * @param resultFactory      Creates the {@link Result} of a record from its {@link Source}. May return
+     *                           <code>null</code> when the record does not produce a result.
+     * @param completionConsumer Receives the outcome of each record, in document order.
+     * @return The execution metrics.
+     * @throws SmooksException Failed to read the document, or the execution was interrupted.
+     */
+    public SmooksExecutor.Metrics split(final Source source, final Function<Source, Result> resultFactory, final Consumer<SmooksExecutor.Completion> completionConsumer) throws SmooksException {
+        AssertArgument.isNotNull(source, "source");
+
+        try (RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(createXMLStreamReader(source), getInput(source), ancestorContext, splitSelectors)) {
+            return smooksExecutor.execute(() -> recordFragmentIterator.hasNext() ? recordFragmentIterator.next() : null, resultFactory, completionConsumer);
+        }
+    }
+
+    private static Closeable getInput(final Source source) {
+        if (source instanceof StreamSource) {
+            final StreamSource streamSource = (StreamSource) source;
+            return streamSource.getReader() != null ? streamSource.getReader() : streamSource.getInputStream();
+        }
+        return null;
+    }
+
+    private XMLStreamReader createXMLStreamReader(final Source source) {
+        try {
+            if (source instanceof StreamSource && ((StreamSource) source).getReader() != null) {
+                return XML_INPUT_FACTORY.createXMLStreamReader(((StreamSource) source).getReader());
+            } else if (source instanceof StreamSource && ((StreamSource) source).getInputStream() != null) {
+                return XML_INPUT_FACTORY.createXMLStreamReader(((StreamSource) source).getInputStream());
+            } else {
+                return XML_INPUT_FACTORY.createXMLStreamReader(source);
+            }
+        } catch (XMLStreamException e) {
+            throw new SmooksException("Failed to open document for splitting", e);
+        }
+    }
+}
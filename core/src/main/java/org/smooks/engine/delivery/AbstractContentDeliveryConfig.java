@@ -100,6 +100,7 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
     private Boolean isDefaultSerializationOn;
     private Boolean closeSource;
     private Boolean closeResult;
+    private Boolean preinstalledBeans;
 
     public void setRegistry(Registry registry) {
         this.registry = registry;
@@ -200,6 +201,9 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
 
     @Override
     public void executeHandlerInit(final ExecutionContext executionContext) {
+        if (executionLifecycleInitializables.isEmpty()) {
+            return;
+        }
         for (ExecutionLifecycleInitializable executionLifecycleInitializable : executionLifecycleInitializables) {
             executionLifecycleInitializable.executeExecutionLifecycleInitialize(executionContext);
         }
@@ -207,6 +211,9 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
 
     @Override
     public void executeHandlerCleanup(final ExecutionContext executionContext) {
+        if (executionLifecycleCleanables.isEmpty()) {
+            return;
+        }
         for (ExecutionLifecycleCleanable handler : executionLifecycleCleanables) {
             try {
                 handler.executeExecutionLifecycleCleanup(executionContext);
@@ -302,4 +309,12 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
 
         return closeResult;
     }
-}
\ No newline at end of file
+
+    public boolean isPreinstalledBeans() {
+        if (preinstalledBeans == null) {
+            preinstalledBeans = Boolean.parseBoolean(ParameterAccessor.getParameterValue(Filter.PREINSTALLED_BEANS, String.class, "true", this));
+        }
+
+        return preinstalledBeans;
+    }
+}
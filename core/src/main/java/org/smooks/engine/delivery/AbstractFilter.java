@@ -47,11 +47,14 @@ import org.slf4j.LoggerFactory;
 import org.smooks.Smooks;
 import org.smooks.api.SmooksException;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.Filter;
 import org.smooks.engine.resource.config.ParameterAccessor;
 import org.smooks.io.NullReader;
 import org.smooks.io.NullWriter;
 import org.smooks.io.Stream;
+import org.smooks.io.payload.ChannelResult;
+import org.smooks.io.payload.ContentHandlerResult;
 import org.smooks.thread.StackedThreadLocal;
 
 import javax.xml.transform.Result;
@@ -60,6 +63,7 @@ import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -76,6 +80,10 @@ public abstract class AbstractFilter implements Filter {
      */
     private static final StackedThreadLocal<Filter> filterThreadLocal = new StackedThreadLocal<>("Filter");
 
+    /**
+     * The {@link Filter} executing an {@link ExecutionContext}.
+     */
+    public static final TypedKey<Filter> FILTER_TYPED_KEY = new TypedKey<>();
 
     /**
      * Set the default stream filter type on the supplied Smooks instance.
@@ -87,11 +95,28 @@ public abstract class AbstractFilter implements Filter {
         ParameterAccessor.setParameter(STREAM_FILTER_TYPE, filterType.toString(), smooks);
     }
 
+    /**
+     * Get the {@link Filter} executing the supplied {@link ExecutionContext}.
+     *
+     * @param executionContext The execution context.
+     * @return The {@link Filter} instance.
+     */
+    public static Filter getFilter(ExecutionContext executionContext) {
+        Filter filter = executionContext.get(FILTER_TYPED_KEY);
+        if (filter == null) {
+            throw new IllegalStateException("Call to getFilter(ExecutionContext) before the filter is set for the ExecutionContext.  This method can only be called within the context of a Smooks execution, which sets the filter.");
+        }
+        return filter;
+    }
+
     /**
      * Get the {@link Filter} instance for the current thread.
      *
      * @return The thread-bound {@link Filter} instance.
+     * @deprecated The filter is only bound to the thread while Smooks executes on it, which a thread handing work to
+     * another cannot rely on. Use {@link #getFilter(ExecutionContext)} instead.
      */
+    @Deprecated
     public static Filter getFilter() {
         Filter filter = AbstractFilter.filterThreadLocal.get();
         if (filter == null) {
@@ -104,14 +129,19 @@ public abstract class AbstractFilter implements Filter {
      * Set the {@link Filter} instance for the current thread.
      *
      * @param filter The thread-bound {@link Filter} instance.
+     * @deprecated Use {@link #FILTER_TYPED_KEY} to bind the filter to the {@link ExecutionContext} instead.
      */
+    @Deprecated
     public static void setFilter(Filter filter) {
         AbstractFilter.filterThreadLocal.set(filter);
     }
 
     /**
      * Remove the {@link Filter} bound to the current thread.
+     *
+     * @deprecated Use {@link #FILTER_TYPED_KEY} to bind the filter to the {@link ExecutionContext} instead.
      */
+    @Deprecated
     public static void removeCurrentFilter() {
         AbstractFilter.filterThreadLocal.remove();
     }
@@ -140,7 +170,9 @@ public abstract class AbstractFilter implements Filter {
     }
 
     protected Writer getWriter(final Result result, final ExecutionContext executionContext) {
-        if (result instanceof StreamResult) {
+        if (result instanceof ChannelResult) {
+            return ((ChannelResult) result).getWriter(executionContext != null ? Charset.forName(executionContext.getContentEncoding()) : StandardCharsets.UTF_8);
+        } else if (result instanceof StreamResult) {
             StreamResult streamResult = (StreamResult) result;
             if (streamResult.getWriter() != null) {
                 return streamResult.getWriter();
@@ -188,7 +220,13 @@ public abstract class AbstractFilter implements Filter {
     }
 
     protected void close(Result result) {
-        if (result instanceof StreamResult) {
+        if (result instanceof ChannelResult) {
+            try {
+                ((ChannelResult) result).close();
+            } catch (Throwable throwable) {
+                LOGGER.debug("Failed to close channel.  May already be closed.", throwable);
+            }
+        } else if (result instanceof StreamResult) {
             StreamResult streamResult = ((StreamResult) result);
 
             try {
@@ -215,4 +253,16 @@ public abstract class AbstractFilter implements Filter {
             }
         }
     }
+
+    /**
+     * Closes a result the filter failed to write completely. A {@link ContentHandlerResult} is aborted instead so that
+     * its content handler is not told the document ended.
+     */
+    protected void abort(Result result) {
+        if (result instanceof ContentHandlerResult) {
+            ((ContentHandlerResult) result).abort();
+        } else {
+            close(result);
+        }
+    }
 }
@@ -48,6 +48,8 @@ import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksException;
 import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.ContentDeliveryConfig;
+import org.smooks.api.delivery.Filter;
+import org.smooks.api.delivery.ReaderPool;
 import org.smooks.api.lifecycle.LifecycleManager;
 import org.smooks.api.resource.config.Parameter;
 import org.smooks.api.resource.config.ResourceConfig;
@@ -57,11 +59,13 @@ import org.smooks.assertion.AssertArgument;
 import org.smooks.engine.injector.Scope;
 import org.smooks.engine.lifecycle.PostConstructLifecyclePhase;
 import org.smooks.engine.lookup.LifecycleManagerLookup;
+import org.smooks.engine.resource.config.ParameterAccessor;
 import org.smooks.engine.resource.reader.NullSourceXMLReader;
 import org.smooks.engine.resource.reader.XStreamXMLReader;
 import org.smooks.engine.xml.NamespaceManager;
 import org.smooks.io.DocumentInputSource;
 import org.smooks.io.NullReader;
+import org.smooks.io.XmlEncodingSniffer;
 import org.smooks.io.payload.FilterSource;
 import org.smooks.io.payload.JavaSource;
 import org.smooks.namespace.NamespaceDeclarationStack;
@@ -95,6 +99,12 @@ public class AbstractParser {
     
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractParser.class);
     private static final TypedKey<Stack<XMLReader>> XML_READER_STACK_TYPED_KEY = new TypedKey<>();
+
+    /**
+     * {@link ReaderPool} overriding the {@link org.smooks.api.delivery.ContentDeliveryRuntime#getReaderPool() runtime
+     * reader pool} for a single execution. Used when an {@link XMLReader} is kept across several executions.
+     */
+    public static final TypedKey<ReaderPool> READER_POOL_TYPED_KEY = new TypedKey<>();
     
     private final ExecutionContext executionContext;
     private final ResourceConfig saxDriverConfig;
@@ -124,6 +134,21 @@ public class AbstractParser {
         return saxDriverConfig;
     }
 
+    /**
+     * Get the {@link ReaderPool} to borrow {@link XMLReader}s from for the supplied execution.
+     *
+     * @param executionContext The execution context.
+     * @return The {@link ReaderPool} bound to the execution context with {@link #READER_POOL_TYPED_KEY}, otherwise
+     * the reader pool of the execution's content delivery runtime.
+     */
+    public static ReaderPool getReaderPool(ExecutionContext executionContext) {
+        ReaderPool readerPool = executionContext.get(READER_POOL_TYPED_KEY);
+        if (readerPool == null) {
+            readerPool = executionContext.getContentDeliveryRuntime().getReaderPool();
+        }
+        return readerPool;
+    }
+
     public static void attachXMLReader(XMLReader xmlReader, ExecutionContext execContext) {
         getReaders(execContext).push(xmlReader);
 
@@ -224,6 +249,61 @@ public class AbstractParser {
 		}
 	}
 
+    /**
+     * Creates the {@link InputSource} handed to the supplied {@link XMLReader}.
+     * <p/>
+     * A byte-based {@link StreamSource} is handed to an XML reader as bytes, leaving the decoding to the reader so that
+     * the encoding declared by the document takes precedence. The <code>contentEncoding</code> only applies to
+     * documents not declaring an encoding. The input is decoded up front, as per
+     * {@link #createInputSource(Source, String)}, when the {@link Filter#FORCE_CONTENT_ENCODING} parameter is on or
+     * when the reader is a {@link SmooksXMLReader}, since such readers may expect a character stream.
+     *
+     * @param source          the filter source
+     * @param contentEncoding the content encoding of the execution
+     * @param xmlReader       the reader to parse the source with
+     * @return the input source
+     */
+    protected InputSource createInputSource(Source source, String contentEncoding, XMLReader xmlReader) {
+        if (!(source instanceof StreamSource) || ((StreamSource) source).getReader() != null || xmlReader instanceof SmooksXMLReader || isContentEncodingForced()) {
+            return createInputSource(source, contentEncoding);
+        }
+
+        InputStream inputStream = getInputStream((StreamSource) source);
+        if (inputStream == null) {
+            throw new SmooksException("Invalid StreamSource. Unable to extract an InputStream (even by systemId) or Reader instance.");
+        }
+
+        InputSource inputSource = new InputSource();
+        inputSource.setSystemId(source.getSystemId());
+        if (contentEncoding == null || contentEncoding.equalsIgnoreCase(StandardCharsets.UTF_8.name())) {
+            // UTF-8 is the XML default so the reader's own encoding detection gives the same outcome...
+            inputSource.setByteStream(inputStream);
+        } else {
+            if (!inputStream.markSupported()) {
+                inputStream = new BufferedInputStream(inputStream);
+            }
+            try {
+                if (XmlEncodingSniffer.sniff(inputStream) == null) {
+                    inputSource.setEncoding(contentEncoding);
+                }
+            } catch (IOException e) {
+                throw new SmooksException("Unable to read input stream.", e);
+            }
+            inputSource.setByteStream(inputStream);
+        }
+
+        return inputSource;
+    }
+
+    private boolean isContentEncodingForced() {
+        if (executionContext == null) {
+            return false;
+        }
+        ContentDeliveryConfig deliveryConfig = executionContext.getContentDeliveryRuntime().getContentDeliveryConfig();
+
+        return Boolean.parseBoolean(ParameterAccessor.getParameterValue(Filter.FORCE_CONTENT_ENCODING, String.class, "false", deliveryConfig));
+    }
+
     protected InputSource createInputSource(Source source, String contentEncoding) {
         // Also attach the underlying stream to the InputSource...
         if (source instanceof StreamSource) {
@@ -292,7 +372,16 @@ public class AbstractParser {
         } else if (source instanceof DOMSource) {
             xmlReader = new DOMReader();
         } else {
-            xmlReader = XMLReaderFactory.createXMLReader();
+            final String xmlReaderClassName = executionContext != null ? ParameterAccessor.getParameterValue(Filter.XML_READER, String.class, executionContext.getContentDeliveryRuntime().getContentDeliveryConfig()) : null;
+            if (xmlReaderClassName != null) {
+                try {
+                    xmlReader = (XMLReader) ClassUtil.forName(xmlReaderClassName, getClass()).newInstance();
+                } catch (ClassNotFoundException | IllegalAccessException | InstantiationException | ClassCastException e) {
+                    throw new SAXException("Failed to create XMLReader '" + xmlReaderClassName + "'.", e);
+                }
+            } else {
+                xmlReader = XMLReaderFactory.createXMLReader();
+            }
         }
 
         if (xmlReader instanceof SmooksXMLReader) {
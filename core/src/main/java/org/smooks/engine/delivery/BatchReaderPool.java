@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery;
+
+import org.smooks.api.delivery.ReaderPool;
+import org.xml.sax.XMLReader;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * {@link ReaderPool} holding on to an {@link XMLReader} across the executions of a batch.
+ * <p/>
+ * The first reader returned to the pool is kept back and handed out on the next borrow, instead of being returned
+ * to the delegate pool (and possibly lost when the delegate pool is full). Call {@link #release()} when the batch is
+ * done to hand the reader back to the delegate pool.
+ */
+@NotThreadSafe
+public class BatchReaderPool implements ReaderPool {
+
+    private final ReaderPool readerPool;
+    private XMLReader xmlReader;
+
+    public BatchReaderPool(final ReaderPool readerPool) {
+        this.readerPool = readerPool;
+    }
+
+    @Override
+    public XMLReader borrowXMLReader() {
+        if (xmlReader != null) {
+            final XMLReader borrowedXmlReader = xmlReader;
+            xmlReader = null;
+            return borrowedXmlReader;
+        } else {
+            return readerPool.borrowXMLReader();
+        }
+    }
+
+    @Override
+    public void returnXMLReader(final XMLReader xmlReader) {
+        if (this.xmlReader == null) {
+            this.xmlReader = xmlReader;
+        } else {
+            readerPool.returnXMLReader(xmlReader);
+        }
+    }
+
+    /**
+     * Return the held {@link XMLReader}, if any, to the delegate pool.
+     */
+    public void release() {
+        if (xmlReader != null) {
+            readerPool.returnXMLReader(xmlReader);
+            xmlReader = null;
+        }
+    }
+}
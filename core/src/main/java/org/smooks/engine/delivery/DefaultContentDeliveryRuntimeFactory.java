@@ -44,6 +44,7 @@ package org.smooks.engine.delivery;
 
 import org.smooks.api.delivery.*;
 import org.smooks.api.profile.ProfileSet;
+import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.api.resource.visitor.Visitor;
 import org.smooks.engine.delivery.dom.DOMFilterProvider;
 import org.smooks.engine.delivery.sax.ng.SaxNgFilterProvider;
@@ -54,6 +55,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultContentDeliveryRuntimeFactory implements ContentDeliveryRuntimeFactory {
     private final Map<ContentDeliveryConfigBuilder, ReaderPool> readerPools = new HashMap<>();
@@ -71,9 +73,14 @@ public class DefaultContentDeliveryRuntimeFactory implements ContentDeliveryRunt
             synchronized (this) {
                 if (contentDeliveryConfigBuilders.get(profileSet.getBaseProfile()) == null) {
                     contentDeliveryConfigBuilder = new DefaultContentDeliveryConfigBuilder(profileSet, registry, Arrays.asList(new SaxNgFilterProvider(), new DOMFilterProvider()));
-                    final int readerPoolSize = Integer.parseInt(registry.lookup(new GlobalParamsLookup(registry)).getParameterValue(Filter.READER_POOL_SIZE, String.class, "0"));
+                    final ResourceConfig globalParams = registry.lookup(new GlobalParamsLookup(registry));
+                    final int readerPoolSize = Integer.parseInt(globalParams.getParameterValue(Filter.READER_POOL_SIZE, String.class, "0"));
                     if (readerPoolSize == -1) {
                         readerPools.put(contentDeliveryConfigBuilder, new DynamicReaderPool());
+                    } else if (readerPoolSize > 0) {
+                        final int readerPoolOverflowSize = Integer.parseInt(globalParams.getParameterValue(Filter.READER_POOL_OVERFLOW_SIZE, String.class, "0"));
+                        final long readerPoolBorrowTimeout = Long.parseLong(globalParams.getParameterValue(Filter.READER_POOL_BORROW_TIMEOUT, String.class, "0"));
+                        readerPools.put(contentDeliveryConfigBuilder, new StripedReaderPool(readerPoolSize, readerPoolOverflowSize, readerPoolBorrowTimeout, TimeUnit.MILLISECONDS));
                     } else {
                         readerPools.put(contentDeliveryConfigBuilder, new DefaultReaderPool(readerPoolSize));
                     }
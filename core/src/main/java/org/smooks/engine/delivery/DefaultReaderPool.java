@@ -43,6 +43,7 @@
 package org.smooks.engine.delivery;
 
 import org.smooks.api.delivery.ReaderPool;
+import org.smooks.api.resource.reader.ResettableXMLReader;
 import org.xml.sax.XMLReader;
 
 import java.util.concurrent.atomic.AtomicReferenceArray;
@@ -68,6 +69,9 @@ public class DefaultReaderPool implements ReaderPool {
     
     @Override
     public void returnXMLReader(final XMLReader xmlReader) {
+        if (xmlReader instanceof ResettableXMLReader) {
+            ((ResettableXMLReader) xmlReader).reset();
+        }
         for (int i = 0; i < xmlReaderPool.length(); i++) {
             if (xmlReaderPool.compareAndSet(i, null, xmlReader)) {
                 break;
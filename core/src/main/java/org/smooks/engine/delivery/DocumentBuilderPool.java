@@ -0,0 +1,104 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery;
+
+import org.smooks.api.SmooksException;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, lock-free pool of {@link DocumentBuilder}s.
+ * <p/>
+ * Unlike a {@link ThreadLocal} cache, the number of idle builders is bounded by the pool size rather than by the
+ * number of threads that ever filtered a message. Builders returned to a full pool are left to the GC.
+ */
+@ThreadSafe
+public class DocumentBuilderPool {
+
+    private final Queue<DocumentBuilder> documentBuilders = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+
+    public DocumentBuilderPool(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Borrow a {@link DocumentBuilder} from the pool, creating one when the pool is empty.
+     *
+     * @return A {@link DocumentBuilder} instance.
+     */
+    public DocumentBuilder borrowDocumentBuilder() {
+        final DocumentBuilder documentBuilder = documentBuilders.poll();
+        if (documentBuilder != null) {
+            size.decrementAndGet();
+            return documentBuilder;
+        }
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new SmooksException(e);
+        }
+    }
+
+    /**
+     * Return a {@link DocumentBuilder} to the pool.
+     *
+     * @param documentBuilder The {@link DocumentBuilder} instance to be returned. If the pool is full, the instance
+     *                        is left to the GC.
+     */
+    public void returnDocumentBuilder(final DocumentBuilder documentBuilder) {
+        if (size.incrementAndGet() <= maxSize) {
+            documentBuilder.reset();
+            documentBuilders.offer(documentBuilder);
+        } else {
+            size.decrementAndGet();
+        }
+    }
+}
@@ -43,6 +43,7 @@
 package org.smooks.engine.delivery;
 
 import org.smooks.api.delivery.ReaderPool;
+import org.smooks.api.resource.reader.ResettableXMLReader;
 import org.xml.sax.XMLReader;
 
 import java.util.concurrent.atomic.AtomicReference;
@@ -70,6 +71,9 @@ public class DynamicReaderPool implements ReaderPool {
     
     @Override
     public void returnXMLReader(final XMLReader xmlReader) {
+        if (xmlReader instanceof ResettableXMLReader) {
+            ((ResettableXMLReader) xmlReader).reset();
+        }
         final AtomicReferenceArray<XMLReader> xmlReaderPool = xmlReaderPoolReference.get();
         for (int i = 0; i < xmlReaderPool.length(); i++) {
             if (xmlReaderPool.compareAndSet(i, null, xmlReader)) {
@@ -0,0 +1,345 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery;
+
+import org.smooks.api.delivery.ReaderPool;
+import org.smooks.api.resource.reader.ResettableXMLReader;
+import org.smooks.assertion.AssertArgument;
+import org.xml.sax.XMLReader;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReaderPool} spreading its slots across stripes, one per core.
+ * <p/>
+ * A thread starts borrowing from, and returning to, its home stripe (picked from the thread ID) before moving on to
+ * the other stripes, so that threads seldom contend on the same slots. A reader returned while every slot is
+ * taken goes to a bounded overflow queue. It is only discarded once the overflow is full.
+ * <p/>
+ * With a borrow timeout, {@link #borrowXMLReader()} reports a miss only while fewer readers than the pool has slots
+ * are around. Otherwise, it waits for a reader to be returned. This keeps bursts from creating readers that the pool
+ * would have to discard afterwards. On timeout, the borrow is reported as a miss and the caller creates a reader.
+ * <p/>
+ * The pool keeps counters, read through {@link #getMetrics()}, for sizing {@link org.smooks.api.delivery.Filter#READER_POOL_SIZE}.
+ */
+@ThreadSafe
+public class StripedReaderPool implements ReaderPool {
+
+    private final AtomicReferenceArray<XMLReader>[] stripes;
+    private final int capacity;
+    private final Queue<XMLReader> overflow = new ConcurrentLinkedQueue<>();
+    private final int maxOverflowSize;
+    private final AtomicInteger overflowSize = new AtomicInteger();
+    private final long borrowTimeoutNanos;
+
+    private final AtomicInteger borrowedCount = new AtomicInteger();
+    private final AtomicInteger readerCount = new AtomicInteger();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final ReentrantLock returnLock = new ReentrantLock();
+    private final Condition readerReturned = returnLock.newCondition();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder discardedCount = new LongAdder();
+    private final LongAdder borrowTimeNanos = new LongAdder();
+
+    public StripedReaderPool(final int maxReaderPoolSize) {
+        this(maxReaderPoolSize, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxReaderPoolSize number of slots across all stripes
+     * @param maxOverflowSize   number of readers kept on top of the slots before returned readers are discarded
+     * @param borrowTimeout     time a borrow waits for a reader once all slots are borrowed, 0 for not waiting
+     * @param timeUnit          unit of <code>borrowTimeout</code>
+     */
+    @SuppressWarnings("unchecked")
+    public StripedReaderPool(final int maxReaderPoolSize, final int maxOverflowSize, final long borrowTimeout, final TimeUnit timeUnit) {
+        AssertArgument.isNotNull(timeUnit, "timeUnit");
+        if (maxReaderPoolSize < 1) {
+            throw new IllegalArgumentException("maxReaderPoolSize must be greater than 0");
+        }
+        if (maxOverflowSize < 0 || borrowTimeout < 0) {
+            throw new IllegalArgumentException("maxOverflowSize and borrowTimeout must not be negative");
+        }
+
+        final int stripeCount = Math.min(Runtime.getRuntime().availableProcessors(), maxReaderPoolSize);
+        stripes = new AtomicReferenceArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicReferenceArray<>(maxReaderPoolSize / stripeCount + (i < maxReaderPoolSize % stripeCount ? 1 : 0));
+        }
+        capacity = maxReaderPoolSize;
+        this.maxOverflowSize = maxOverflowSize;
+        borrowTimeoutNanos = timeUnit.toNanos(borrowTimeout);
+    }
+
+    @Override
+    public XMLReader borrowXMLReader() {
+        final long startTime = System.nanoTime();
+        try {
+            XMLReader xmlReader = pollXMLReader();
+            if (xmlReader == null) {
+                if (borrowTimeoutNanos > 0 && !reserveReader()) {
+                    xmlReader = awaitXMLReader(startTime + borrowTimeoutNanos);
+                } else if (borrowTimeoutNanos == 0) {
+                    readerCount.incrementAndGet();
+                }
+            }
+            borrowedCount.incrementAndGet();
+            if (xmlReader != null) {
+                hitCount.increment();
+            } else {
+                missCount.increment();
+            }
+
+            return xmlReader;
+        } finally {
+            borrowTimeNanos.add(System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public void returnXMLReader(final XMLReader xmlReader) {
+        borrowedCount.decrementAndGet();
+        if (xmlReader instanceof ResettableXMLReader) {
+            ((ResettableXMLReader) xmlReader).reset();
+        }
+
+        if (!offerXMLReader(xmlReader)) {
+            if (overflowSize.incrementAndGet() <= maxOverflowSize) {
+                overflow.offer(xmlReader);
+            } else {
+                overflowSize.decrementAndGet();
+                readerCount.decrementAndGet();
+                discardedCount.increment();
+            }
+        }
+
+        if (waiterCount.get() > 0) {
+            returnLock.lock();
+            try {
+                readerReturned.signal();
+            } finally {
+                returnLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Gets a snapshot of the pool counters.
+     *
+     * @return the pool metrics
+     */
+    public Metrics getMetrics() {
+        int idleCount = overflowSize.get();
+        for (AtomicReferenceArray<XMLReader> stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) {
+                if (stripe.get(i) != null) {
+                    idleCount++;
+                }
+            }
+        }
+
+        return new Metrics(hitCount.sum(), missCount.sum(), discardedCount.sum(), borrowTimeNanos.sum(), idleCount, Math.max(borrowedCount.get(), 0));
+    }
+
+    private XMLReader awaitXMLReader(final long deadline) {
+        waiterCount.incrementAndGet();
+        returnLock.lock();
+        try {
+            long remainingNanos = deadline - System.nanoTime();
+            while (true) {
+                final XMLReader xmlReader = pollXMLReader();
+                if (xmlReader != null || reserveReader()) {
+                    return xmlReader;
+                } else if (remainingNanos <= 0) {
+                    readerCount.incrementAndGet();
+                    return null;
+                }
+                remainingNanos = readerReturned.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readerCount.incrementAndGet();
+            return null;
+        } finally {
+            returnLock.unlock();
+            waiterCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserves the creation of a reader by the caller, as long as fewer readers than the pool has slots are around.
+     */
+    private boolean reserveReader() {
+        int count;
+        do {
+            count = readerCount.get();
+            if (count >= capacity) {
+                return false;
+            }
+        } while (!readerCount.compareAndSet(count, count + 1));
+
+        return true;
+    }
+
+    private XMLReader pollXMLReader() {
+        final int homeStripe = homeStripe();
+        for (int i = 0; i < stripes.length; i++) {
+            final AtomicReferenceArray<XMLReader> stripe = stripes[(homeStripe + i) % stripes.length];
+            for (int j = 0; j < stripe.length(); j++) {
+                final XMLReader xmlReader = stripe.getAndSet(j, null);
+                if (xmlReader != null) {
+                    return xmlReader;
+                }
+            }
+            if (i == 0 && overflowSize.get() > 0) {
+                final XMLReader xmlReader = overflow.poll();
+                if (xmlReader != null) {
+                    overflowSize.decrementAndGet();
+                    return xmlReader;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private boolean offerXMLReader(final XMLReader xmlReader) {
+        final int homeStripe = homeStripe();
+        for (int i = 0; i < stripes.length; i++) {
+            final AtomicReferenceArray<XMLReader> stripe = stripes[(homeStripe + i) % stripes.length];
+            for (int j = 0; j < stripe.length(); j++) {
+                if (stripe.compareAndSet(j, null, xmlReader)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int homeStripe() {
+        return (int) (Thread.currentThread().getId() % stripes.length);
+    }
+
+    /**
+     * Snapshot of the {@link StripedReaderPool} counters.
+     */
+    public static class Metrics {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long discardedCount;
+        private final long borrowTimeNanos;
+        private final int idleCount;
+        private final int borrowedCount;
+
+        private Metrics(final long hitCount, final long missCount, final long discardedCount, final long borrowTimeNanos, final int idleCount, final int borrowedCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.discardedCount = discardedCount;
+            this.borrowTimeNanos = borrowTimeNanos;
+            this.idleCount = idleCount;
+            this.borrowedCount = borrowedCount;
+        }
+
+        /**
+         * @return number of borrows served by a pooled reader
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * @return number of borrows that found no pooled reader, each of which led the caller to create a reader
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * @return number of readers created because of a miss, which is the same as {@link #getMissCount()}
+         */
+        public long getCreatedCount() {
+            return missCount;
+        }
+
+        /**
+         * @return number of returned readers dropped because both the slots and the overflow were full
+         */
+        public long getDiscardedCount() {
+            return discardedCount;
+        }
+
+        /**
+         * @return mean time spent in a borrow, including any wait for a returned reader
+         */
+        public long getMeanBorrowTime(final TimeUnit timeUnit) {
+            final long borrowCount = hitCount + missCount;
+            return borrowCount == 0 ? 0 : timeUnit.convert(borrowTimeNanos / borrowCount, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return number of readers sitting in the pool
+         */
+        public int getIdleCount() {
+            return idleCount;
+        }
+
+        /**
+         * @return number of readers currently borrowed
+         */
+        public int getBorrowedCount() {
+            return borrowedCount;
+        }
+    }
+}
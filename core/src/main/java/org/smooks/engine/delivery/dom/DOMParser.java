@@ -153,7 +153,7 @@ public class DOMParser extends AbstractParser {
   		ExecutionContext executionContext = getExecutionContext();
   		
   		if(executionContext != null) {
-			ReaderPool readerPool = executionContext.getContentDeliveryRuntime().getReaderPool();
+			ReaderPool readerPool = getReaderPool(executionContext);
 
 	  		XMLReader domReader = getXMLReader(executionContext);
 
@@ -175,7 +175,7 @@ public class DOMParser extends AbstractParser {
 
                 attachXMLReader(domReader, executionContext);
                 configureReader(domReader, contentHandler, executionContext, source);
-		        domReader.parse(createInputSource(source, executionContext.getContentEncoding()));
+		        domReader.parse(createInputSource(source, executionContext.getContentEncoding(), domReader));
 	  		} finally {
                 try {
                     if(domReader instanceof HierarchyChangeReader) {
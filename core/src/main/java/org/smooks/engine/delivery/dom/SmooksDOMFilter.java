@@ -279,6 +279,7 @@ public class SmooksDOMFilter extends AbstractFilter {
             }
         }
 
+        boolean filtered = false;
         try {
             Node resultNode;
 
@@ -310,12 +311,17 @@ public class SmooksDOMFilter extends AbstractFilter {
             } else if (result instanceof DOMResult) {
                 ((DOMResult) result).setNode(resultNode);
             }
+            filtered = true;
         } finally {
             if (closeSource) {
                 close(source);
             }
             if (closeResult) {
-                close(result);
+                if (filtered) {
+                    close(result);
+                } else {
+                    abort(result);
+                }
             }
         }
     }
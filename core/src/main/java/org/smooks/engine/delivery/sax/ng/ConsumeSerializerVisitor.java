@@ -125,20 +125,13 @@ public class ConsumeSerializerVisitor extends SimpleSerializerVisitor implements
         executionContext.getMementoCaretaker().restore(elementMemento);
         try {
             if (closeEmptyElements && !elementMemento.isOpen()) {
-                writer.write('<');
-                writer.write(element.getTagName());
-                domSerializer.writeAttributes(element.getAttributes(), writer);
-                writer.write("/>");
+                domSerializer.writeEmptyElement(element, writer);
             } else {
                 if (!elementMemento.isOpen()) {
                     writeStartElement(element, executionContext);
                 }
-                writer.write("</");
-                writer.write(element.getTagName());
-                writer.write('>');
+                domSerializer.writeEndElement(element, writer);
             }
-
-            writer.flush();
         } catch (IOException e) {
             throw new SmooksException(e.getMessage(), e);
         }
@@ -168,7 +161,6 @@ public class ConsumeSerializerVisitor extends SimpleSerializerVisitor implements
             try {
                 final Writer charDataWriter = new FragmentWriter(executionContext, new NodeFragment(characterData));
                 domSerializer.writeCharacterData(characterData, charDataWriter);
-                charDataWriter.flush();
             } catch (IOException e) {
                 throw new SmooksException(e.getMessage(), e);
             }
@@ -182,7 +174,6 @@ public class ConsumeSerializerVisitor extends SimpleSerializerVisitor implements
             if (!elementMemento.isOpen()) {
                 try {
                     writeStartElement(parentElement, nodeWriter, executionContext);
-                    nodeWriter.flush();
                 } catch (IOException e) {
                     throw new SmooksException(e);
                 }
@@ -44,13 +44,13 @@ package org.smooks.engine.delivery.sax.ng;
 
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksConfigException;
-import org.smooks.api.SmooksException;
 import org.smooks.api.delivery.ContentDeliveryConfig;
 import org.smooks.api.delivery.ContentHandlerBinding;
 import org.smooks.api.delivery.Filter;
 import org.smooks.api.delivery.FilterBypass;
 import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.api.resource.config.xpath.Predicate;
+import org.smooks.api.resource.config.xpath.SelectorPath;
 import org.smooks.api.resource.config.xpath.SelectorStep;
 import org.smooks.api.resource.visitor.Visitor;
 import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
@@ -59,17 +59,21 @@ import org.smooks.api.resource.visitor.sax.ng.ChildrenVisitor;
 import org.smooks.engine.delivery.AbstractContentDeliveryConfig;
 import org.smooks.engine.delivery.ContentHandlerBindingIndex;
 import org.smooks.engine.delivery.DefaultContentHandlerBinding;
+import org.smooks.engine.delivery.DocumentBuilderPool;
 import org.smooks.engine.delivery.ordering.Sorter;
 import org.smooks.engine.resource.config.DefaultResourceConfig;
 import org.smooks.engine.resource.config.ParameterAccessor;
 import org.smooks.engine.resource.config.xpath.ElementPositionCounter;
+import org.smooks.engine.resource.config.xpath.SelectorPathFactory;
 import org.smooks.engine.resource.config.xpath.predicate.PositionPredicateEvaluator;
 import org.smooks.engine.resource.config.xpath.step.ElementSelectorStep;
+import org.smooks.io.FlushPolicy;
+import org.smooks.xml.SchemaCache;
+import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -84,7 +88,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SaxNgContentDeliveryConfig extends AbstractContentDeliveryConfig {
     
     private final Map<String, SaxNgVisitorBindings> saxNgVisitorBindingsCache = new ConcurrentHashMap<>();
-    private final ThreadLocal<DocumentBuilder> cachedDocumentBuilder = new ThreadLocal<>();
+    private final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool(Runtime.getRuntime().availableProcessors() * 2);
     private final ContentHandlerBindingIndex<ChildrenVisitor> childVisitorIndex = new ContentHandlerBindingIndex<>();
     private final ContentHandlerBindingIndex<BeforeVisitor> beforeVisitorIndex = new ContentHandlerBindingIndex<>();
     private final ContentHandlerBindingIndex<AfterVisitor> afterVisitorIndex = new ContentHandlerBindingIndex<>();
@@ -95,6 +99,11 @@ public class SaxNgContentDeliveryConfig extends AbstractContentDeliveryConfig {
     private Boolean reverseVisitOrderOnVisitAfter;
     private Boolean terminateOnVisitorException;
     private Optional<FilterBypass> filterBypass;
+    private FlushPolicy flushPolicy;
+    private Long flushThreshold;
+    private Long flushInterval;
+    private SelectorPath flushSelectorPath;
+    private Optional<Schema> validationSchema;
     
     public ContentHandlerBindingIndex<BeforeVisitor> getBeforeVisitorIndex() {
         return beforeVisitorIndex;
@@ -116,19 +125,13 @@ public class SaxNgContentDeliveryConfig extends AbstractContentDeliveryConfig {
         return filterBypass.orElse(null);
     }
 
+    public DocumentBuilderPool getDocumentBuilderPool() {
+        return documentBuilderPool;
+    }
+
     @Override
     public Filter newFilter(final ExecutionContext executionContext) {
-        DocumentBuilder documentBuilder = cachedDocumentBuilder.get();
-        if (documentBuilder == null) {
-            try {
-                documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-                cachedDocumentBuilder.set(documentBuilder);
-            } catch (ParserConfigurationException e) {
-                throw new SmooksException(e);
-            }
-        }
-
-        return new SaxNgFilter(executionContext, documentBuilder, getCloseSource(), getCloseResult());
+        return new SaxNgFilter(executionContext, documentBuilderPool, getCloseSource(), getCloseResult());
     }
 
     @Override
@@ -378,4 +381,68 @@ public class SaxNgContentDeliveryConfig extends AbstractContentDeliveryConfig {
         }
         return maxNodeDepth;
     }
-}
\ No newline at end of file
+
+    public FlushPolicy getFlushPolicy() {
+        if (flushPolicy == null) {
+            final String flushPolicyParam = ParameterAccessor.getParameterValue(Filter.FLUSH_POLICY, String.class, FlushPolicy.CLOSE.name(), this);
+            try {
+                flushPolicy = FlushPolicy.valueOf(flushPolicyParam.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new SmooksConfigException("Invalid '" + Filter.FLUSH_POLICY + "' parameter value '" + flushPolicyParam + "'. Expected one of " + Arrays.toString(FlushPolicy.values()) + ".");
+            }
+            if (flushPolicy == FlushPolicy.FRAGMENT && getFlushSelectorPath() == null) {
+                throw new SmooksConfigException("'" + Filter.FLUSH_SELECTOR + "' parameter required by the '" + FlushPolicy.FRAGMENT + "' flush policy.");
+            }
+        }
+        return flushPolicy;
+    }
+
+    /**
+     * @return the number of characters after which the output is flushed, 0 if not flushed on size
+     */
+    public long getFlushThreshold() {
+        if (flushThreshold == null) {
+            flushThreshold = getFlushPolicy() == FlushPolicy.THRESHOLD ? Long.parseLong(ParameterAccessor.getParameterValue(Filter.FLUSH_THRESHOLD, String.class, "8192", this)) : 0L;
+        }
+        return flushThreshold;
+    }
+
+    /**
+     * @return the time in milliseconds after which the output is flushed, 0 if not flushed on time
+     */
+    public long getFlushInterval() {
+        if (flushInterval == null) {
+            flushInterval = getFlushPolicy() == FlushPolicy.INTERVAL ? Long.parseLong(ParameterAccessor.getParameterValue(Filter.FLUSH_INTERVAL, String.class, "1000", this)) : 0L;
+        }
+        return flushInterval;
+    }
+
+    public SelectorPath getFlushSelectorPath() {
+        if (flushSelectorPath == null) {
+            final String flushSelector = ParameterAccessor.getParameterValue(Filter.FLUSH_SELECTOR, String.class, this);
+            if (flushSelector != null) {
+                flushSelectorPath = SelectorPathFactory.newSelectorPath(flushSelector);
+            }
+        }
+        return flushSelectorPath;
+    }
+
+    /**
+     * @return the schema validating the input, or null if the input is not validated
+     */
+    public Schema getValidationSchema() {
+        if (validationSchema == null) {
+            final String validationSchemaParam = ParameterAccessor.getParameterValue(Filter.VALIDATION_SCHEMA, String.class, this);
+            if (validationSchemaParam == null || validationSchemaParam.trim().isEmpty()) {
+                validationSchema = Optional.empty();
+            } else {
+                try {
+                    validationSchema = Optional.of(SchemaCache.getSchema(validationSchemaParam.trim().split("[\\s,]+")));
+                } catch (SAXException e) {
+                    throw new SmooksConfigException("Invalid '" + Filter.VALIDATION_SCHEMA + "' parameter value '" + validationSchemaParam + "'.", e);
+                }
+            }
+        }
+        return validationSchema.orElse(null);
+    }
+}
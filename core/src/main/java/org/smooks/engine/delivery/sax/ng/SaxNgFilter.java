@@ -47,13 +47,19 @@ import org.slf4j.LoggerFactory;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksException;
 import org.smooks.engine.delivery.AbstractFilter;
+import org.smooks.engine.delivery.DocumentBuilderPool;
 import org.smooks.engine.delivery.sax.ng.terminate.TerminateException;
+import org.smooks.io.BufferedResultWriter;
+import org.smooks.io.DOMResultWriter;
+import org.smooks.io.FlushPolicy;
 import org.smooks.io.Stream;
+import org.smooks.io.payload.ContentHandlerResult;
 import org.smooks.io.payload.FilterResult;
 import org.smooks.io.payload.FilterSource;
 import org.smooks.io.payload.JavaSource;
 import org.smooks.support.DomUtils;
-import org.smooks.support.XmlUtil;
+import org.w3c.dom.Document;
+import org.xml.sax.ContentHandler;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Result;
@@ -62,8 +68,9 @@ import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
-import java.io.StringReader;
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 
 public class SaxNgFilter extends AbstractFilter {
 
@@ -73,11 +80,32 @@ public class SaxNgFilter extends AbstractFilter {
     protected final boolean closeSource;
     protected final boolean closeResult;
     protected final SaxNgParser parser;
+    private final DocumentBuilderPool documentBuilderPool;
+    private final DocumentBuilder documentBuilder;
+    private SaxNgPushParser pushParser;
+    private Result pushResult;
+    private Writer pushWriter;
+    private boolean pushTerminated;
+    private boolean pushEnded;
 
     public SaxNgFilter(final ExecutionContext executionContext, final DocumentBuilder documentBuilder, boolean closeSource, boolean closeResult) {
+        this(executionContext, null, documentBuilder, closeSource, closeResult);
+    }
+
+    /**
+     * Constructs a filter borrowing its {@link DocumentBuilder} from the supplied pool. The builder is returned to the
+     * pool on {@link #close()}.
+     */
+    public SaxNgFilter(final ExecutionContext executionContext, final DocumentBuilderPool documentBuilderPool, boolean closeSource, boolean closeResult) {
+        this(executionContext, documentBuilderPool, documentBuilderPool.borrowDocumentBuilder(), closeSource, closeResult);
+    }
+
+    private SaxNgFilter(final ExecutionContext executionContext, final DocumentBuilderPool documentBuilderPool, final DocumentBuilder documentBuilder, boolean closeSource, boolean closeResult) {
         this.executionContext = executionContext;
         this.closeSource = closeSource;
         this.closeResult = closeResult;
+        this.documentBuilderPool = documentBuilderPool;
+        this.documentBuilder = documentBuilder;
         parser = new SaxNgParser(executionContext, documentBuilder);
     }
 
@@ -104,34 +132,201 @@ public class SaxNgFilter extends AbstractFilter {
             }
         }
 
+        Writer writer = null;
+        boolean filtered = false;
         try {
-            final Writer writer = getWriter(result, executionContext);
+            writer = getBufferedWriter(result);
             executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, writer);
             parser.parse(source, executionContext);
             
             if (result instanceof DOMResult) {
-                ((DOMResult) result).setNode(XmlUtil.parseStream(new StringReader(writer.toString())));
+                ((DOMResult) result).setNode(getDocument(writer));
             } else {
                 writer.flush();
             }
+            filtered = true;
         } catch (TerminateException e) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Terminated filtering on element '" + DomUtils.getXPath(e.getElement()) + "'.");
             }
+            if (result instanceof StreamResult) {
+                flush(writer);
+            }
+            filtered = true;
         } catch (Exception e) {
+            // best effort: hand over the output buffered before the failure, as the unbuffered writer would have
+            if (writer != null) {
+                flushFailed(result, writer);
+            }
             throw new SmooksException("Failed to filter source", e);
         } finally {
             if (closeSource) {
                 close(source);
             }
             if (closeResult) {
-                close(result);
+                if (filtered) {
+                    close(result);
+                } else {
+                    abort(result);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start filtering a document pushed with {@link #push(ByteBuffer)} instead of pulled from the execution's
+     * {@link Source}.
+     */
+    public void startPush() {
+        pushResult = FilterResult.getResult(executionContext, StreamResult.class);
+        if (pushResult == null) {
+            pushResult = FilterResult.getResult(executionContext, DOMResult.class);
+        }
+        pushWriter = getBufferedWriter(pushResult);
+        executionContext.put(Stream.STREAM_WRITER_TYPED_KEY, pushWriter);
+        pushParser = new SaxNgPushParser(executionContext, documentBuilder);
+    }
+
+    /**
+     * The handler to fire the SAX events of a pushed document at, instead of {@link #push(ByteBuffer) pushing} its
+     * bytes. See {@link #startPush()} and {@link SaxNgPushParser#getContentHandler()}.
+     *
+     * @return The content handler.
+     */
+    public ContentHandler getPushContentHandler() {
+        return pushParser.getContentHandler();
+    }
+
+    /**
+     * Filter the next bytes of a pushed document. See {@link #startPush()}.
+     *
+     * @param byteBuffer The next bytes of the document. Fully consumed on return.
+     * @throws SmooksException Failed to filter the bytes.
+     */
+    public void push(final ByteBuffer byteBuffer) throws SmooksException {
+        if (pushTerminated) {
+            byteBuffer.position(byteBuffer.limit());
+            return;
+        }
+        try {
+            pushParser.feed(byteBuffer);
+        } catch (TerminateException e) {
+            pushTerminated = true;
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Terminated filtering on element '" + DomUtils.getXPath(e.getElement()) + "'.");
+            }
+        } catch (Exception e) {
+            throw new SmooksException("Failed to filter source", e);
+        }
+    }
+
+    /**
+     * End the filtering of a pushed document. See {@link #startPush()}.
+     *
+     * @throws SmooksException Failed to filter the end of the document.
+     */
+    public void endPush() throws SmooksException {
+        boolean filtered = false;
+        try {
+            if (!pushTerminated) {
+                pushParser.endOfInput();
+            }
+            if (pushResult instanceof DOMResult) {
+                ((DOMResult) pushResult).setNode(getDocument(pushWriter));
+            } else {
+                pushWriter.flush();
+            }
+            filtered = true;
+        } catch (TerminateException e) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Terminated filtering on element '" + DomUtils.getXPath(e.getElement()) + "'.");
+            }
+            if (pushResult instanceof StreamResult) {
+                flush(pushWriter);
+            }
+            filtered = true;
+        } catch (Exception e) {
+            flushFailed(pushResult, pushWriter);
+            throw new SmooksException("Failed to filter source", e);
+        } finally {
+            pushEnded = true;
+            if (closeResult) {
+                if (filtered) {
+                    close(pushResult);
+                } else {
+                    abort(pushResult);
+                }
             }
         }
     }
 
+    /**
+     * Buffers the writer of a {@link StreamResult} so that the output is flushed according to the configured
+     * {@link FlushPolicy} rather than on every write. The output to a {@link DOMResult} goes to a
+     * {@link DOMResultWriter} building the result's DOM as the output is written.
+     */
+    protected Writer getBufferedWriter(final Result result) {
+        if (result instanceof StreamResult) {
+            final SaxNgContentDeliveryConfig deliveryConfig = (SaxNgContentDeliveryConfig) executionContext.getContentDeliveryRuntime().getContentDeliveryConfig();
+            return new BufferedResultWriter(getWriter(result, executionContext), deliveryConfig.getFlushThreshold(), deliveryConfig.getFlushInterval());
+        } else if (result instanceof DOMResult) {
+            return new BufferedResultWriter(new DOMResultWriter(documentBuilder.newDocument()), 0, 0);
+        } else {
+            return getWriter(result, executionContext);
+        }
+    }
+
+    private Document getDocument(final Writer writer) throws IOException {
+        writer.flush();
+        return ((DOMResultWriter) ((BufferedResultWriter) writer).getDelegateWriter()).getDocument();
+    }
+
+    private void flush(final Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            LOGGER.debug("Failed to flush buffered output.", e);
+        }
+    }
+
+    /**
+     * Flushes the output buffered before a failure to a {@link StreamResult}, unless it is a
+     * {@link ContentHandlerResult}: the piped document is aborted anyway.
+     */
+    private void flushFailed(final Result result, final Writer writer) {
+        if (result instanceof StreamResult && !(result instanceof ContentHandlerResult)) {
+            flush(writer);
+        }
+    }
+
+    /**
+     * Also ends a pushed document abandoned before {@link #endPush()}, e.g., because pushing failed: the output
+     * buffered so far is flushed, best effort, and the result is aborted unless close.result is off.
+     */
     @Override
     public void close() {
-        parser.close();
+        try {
+            if (pushWriter != null && !pushEnded) {
+                pushEnded = true;
+                try {
+                    flushFailed(pushResult, pushWriter);
+                } finally {
+                    if (closeResult) {
+                        abort(pushResult);
+                    }
+                }
+            }
+        } finally {
+            try {
+                if (pushParser != null) {
+                    pushParser.close();
+                }
+                parser.close();
+            } finally {
+                if (documentBuilderPool != null) {
+                    documentBuilderPool.returnDocumentBuilder(documentBuilder);
+                }
+            }
+        }
     }
 }
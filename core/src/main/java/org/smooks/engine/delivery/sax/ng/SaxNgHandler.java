@@ -44,12 +44,14 @@ package org.smooks.engine.delivery.sax.ng;
 
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.ContentDeliveryRuntime;
 import org.smooks.api.delivery.ContentHandlerBinding;
 import org.smooks.api.delivery.event.ExecutionEventListener;
 import org.smooks.api.delivery.sax.TextType;
 import org.smooks.api.lifecycle.LifecycleManager;
 import org.smooks.api.resource.config.ResourceConfig;
+import org.smooks.api.resource.config.xpath.SelectorPath;
 import org.smooks.api.resource.visitor.Visitor;
 import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
@@ -65,6 +67,7 @@ import org.smooks.engine.lifecycle.VisitCleanupPhase;
 import org.smooks.engine.lookup.LifecycleManagerLookup;
 import org.smooks.engine.memento.TextAccumulatorMemento;
 import org.smooks.engine.xml.DocType;
+import org.smooks.io.FlushPolicy;
 import org.smooks.io.Stream;
 import org.smooks.support.DomUtils;
 import org.smooks.support.XmlUtil;
@@ -82,7 +85,13 @@ import java.io.Writer;
 import java.util.List;
 
 public class SaxNgHandler extends SmooksContentHandler {
-    
+
+    /**
+     * {@link Document} to build the element nodes in, instead of creating a new one per execution. The document is
+     * emptied at the start of each execution.
+     */
+    public static final TypedKey<Document> DOCUMENT_TYPED_KEY = new TypedKey<>();
+
     private final StringBuilder cdataNodeBuilder = new StringBuilder();
     private final ExecutionContext executionContext;
     private final Writer writer;
@@ -93,6 +102,8 @@ public class SaxNgHandler extends SmooksContentHandler {
     private final boolean maintainElementStack;
     private final boolean reverseVisitOrderOnVisitAfter;
     private final boolean rewriteEntities;
+    private final FlushPolicy flushPolicy;
+    private final SelectorPath flushSelectorPath;
     private final LifecycleManager lifecycleManager;
     private final StringBuilder entityBuilder = new StringBuilder(10);
     private final DocumentBuilder documentBuilder;
@@ -123,16 +134,33 @@ public class SaxNgHandler extends SmooksContentHandler {
         maintainElementStack = deliveryConfig.isMaintainElementStack();
         globalMaxNodeDepth = deliveryConfig.getMaxNodeDepth() == 0 ? Integer.MAX_VALUE : deliveryConfig.getMaxNodeDepth();
         reverseVisitOrderOnVisitAfter = deliveryConfig.isReverseVisitOrderOnVisitAfter();
+        flushPolicy = deliveryConfig.getFlushPolicy();
+        flushSelectorPath = deliveryConfig.getFlushSelectorPath();
     }
 
     @Override
     public void close() {
     }
 
+    private void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new SmooksException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void startDocument() {
-        document = documentBuilder.newDocument();
-        document.setStrictErrorChecking(false);
+        document = executionContext.get(DOCUMENT_TYPED_KEY);
+        if (document == null) {
+            document = documentBuilder.newDocument();
+            document.setStrictErrorChecking(false);
+        } else {
+            while (document.getFirstChild() != null) {
+                document.removeChild(document.getFirstChild());
+            }
+        }
         currentNodeFragment = null;
         currentContentHandlerState = new ContentHandlerState();
     }
@@ -223,10 +251,8 @@ public class SaxNgHandler extends SmooksContentHandler {
                     }
                 }
             }
-            try {
-                writer.flush();
-            } catch (IOException e) {
-                throw new SmooksException(e.getMessage(), e);
+            if (flushPolicy == FlushPolicy.ELEMENT) {
+                flush();
             }
 
             final List<ContentHandlerBinding<? extends Visitor>> visitorBindings = currentContentHandlerState.getVisitorBindings().getAll();
@@ -238,6 +264,9 @@ public class SaxNgHandler extends SmooksContentHandler {
             }
         }
 
+        if (flushPolicy == FlushPolicy.FRAGMENT && currentNodeFragment.isMatch(flushSelectorPath, executionContext)) {
+            flush();
+        }
         executionContext.getMementoCaretaker().forget(currentNodeFragment);
         
         final ContentHandlerState previousContentHandlerState = currentContentHandlerState.getPreviousContentHandlerState();
@@ -313,6 +342,10 @@ public class SaxNgHandler extends SmooksContentHandler {
         }
     }
 
+    NodeFragment getCurrentNodeFragment() {
+        return currentNodeFragment;
+    }
+
     protected void visitAfter(final ContentHandlerBinding<AfterVisitor> afterVisitorBinding) {
         if (currentNodeFragment.isMatch(afterVisitorBinding.getResourceConfig().getSelectorPath(), executionContext)) {
             afterVisitorBinding.getContentHandler().visitAfter((Element) currentNodeFragment.unwrap(), executionContext);
@@ -54,6 +54,8 @@ import org.xml.sax.XMLReader;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
 import java.io.Closeable;
 import java.io.IOException;
 
@@ -69,7 +71,7 @@ public class SaxNgParser extends AbstractParser implements Closeable {
 
     protected void parse(Source source, ExecutionContext executionContext) throws SAXException, IOException {
         saxHandler = new SaxNgHandler(getExecutionContext(), documentBuilder);
-        ReaderPool readerPool = executionContext.getContentDeliveryRuntime().getReaderPool();
+        ReaderPool readerPool = getReaderPool(executionContext);
         
         XMLReader saxReader = null;
         try {
@@ -80,10 +82,14 @@ public class SaxNgParser extends AbstractParser implements Closeable {
 
             executionContext.put(NamespaceManager.NAMESPACE_DECLARATION_STACK_TYPED_KEY, new NamespaceDeclarationStack());
             configureReader(saxReader, saxHandler, executionContext, source);
+            final Schema validationSchema = ((SaxNgContentDeliveryConfig) executionContext.getContentDeliveryRuntime().getContentDeliveryConfig()).getValidationSchema();
+            if (validationSchema != null) {
+                saxReader.setContentHandler(newValidatorHandler(validationSchema, saxHandler));
+            }
             if (saxReader instanceof HierarchyChangeReader) {
                 ((HierarchyChangeReader) saxReader).setHierarchyChangeListener(new XMLReaderHierarchyChangeListener(executionContext));
             }
-            saxReader.parse(createInputSource(source, executionContext.getContentEncoding()));
+            saxReader.parse(createInputSource(source, executionContext.getContentEncoding(), saxReader));
         } finally {
             try {
                 if (saxReader instanceof HierarchyChangeReader) {
@@ -105,6 +111,14 @@ public class SaxNgParser extends AbstractParser implements Closeable {
         }
     }
 
+    static ValidatorHandler newValidatorHandler(final Schema validationSchema, final SaxNgHandler saxHandler) {
+        final ValidatorHandler validatorHandler = validationSchema.newValidatorHandler();
+        validatorHandler.setContentHandler(saxHandler);
+        validatorHandler.setErrorHandler(new SchemaValidationErrorHandler(saxHandler));
+
+        return validatorHandler;
+    }
+
     @Override
     public void close() {
         if (saxHandler != null) {
@@ -0,0 +1,251 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery.sax.ng;
+
+import com.fasterxml.aalto.AsyncByteBufferFeeder;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ExecutionContext;
+import org.smooks.engine.delivery.sax.ng.terminate.TerminateException;
+import org.smooks.engine.xml.NamespaceManager;
+import org.smooks.io.AsyncSAXEventBridge;
+import org.smooks.namespace.NamespaceDeclarationStack;
+import org.smooks.support.DomUtils;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.validation.Schema;
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ * Push counterpart of {@link SaxNgParser}: drives a {@link SaxNgHandler} from bytes fed to an Aalto
+ * {@link AsyncXMLStreamReader} as they arrive, instead of pulling them from a blocking stream.
+ * <p/>
+ * The document can also be pushed as SAX events, fired at the {@link #getContentHandler() content handler}, instead of
+ * bytes.
+ */
+@NotThreadSafe
+public class SaxNgPushParser implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaxNgPushParser.class);
+    private static final InputFactoryImpl ASYNC_XML_INPUT_FACTORY = new InputFactoryImpl();
+
+    private final SaxNgHandler saxHandler;
+    private final ContentHandler contentHandler;
+    private final PushedEventHandler pushedEventHandler = new PushedEventHandler();
+    private final AsyncXMLStreamReader<AsyncByteBufferFeeder> asyncXMLStreamReader;
+    private final AsyncSAXEventBridge asyncSAXEventBridge;
+    private boolean endOfDocument;
+
+    public SaxNgPushParser(final ExecutionContext executionContext, final DocumentBuilder documentBuilder) {
+        executionContext.put(NamespaceManager.NAMESPACE_DECLARATION_STACK_TYPED_KEY, new NamespaceDeclarationStack());
+        saxHandler = new SaxNgHandler(executionContext, documentBuilder);
+        asyncXMLStreamReader = ASYNC_XML_INPUT_FACTORY.createAsyncForByteBuffer();
+        final Schema validationSchema = ((SaxNgContentDeliveryConfig) executionContext.getContentDeliveryRuntime().getContentDeliveryConfig()).getValidationSchema();
+        contentHandler = validationSchema != null ? SaxNgParser.newValidatorHandler(validationSchema, saxHandler) : saxHandler;
+        asyncSAXEventBridge = new AsyncSAXEventBridge(contentHandler, saxHandler);
+    }
+
+    /**
+     * The handler to fire the SAX events of the document at, as an alternative to {@link #feed(ByteBuffer) feeding}
+     * its bytes. The handler is also a {@link org.xml.sax.ext.LexicalHandler}. The events following a termination of
+     * the filtering are ignored.
+     *
+     * @return The content handler.
+     */
+    public ContentHandler getContentHandler() {
+        return pushedEventHandler;
+    }
+
+    /**
+     * Parse the supplied bytes, firing the events they complete. The buffer is fully consumed on return and can be
+     * reused by the caller.
+     *
+     * @param byteBuffer The next bytes of the document.
+     * @throws XMLStreamException Malformed input.
+     * @throws SAXException       Content handler error.
+     */
+    public void feed(final ByteBuffer byteBuffer) throws XMLStreamException, SAXException {
+        if (endOfDocument) {
+            if (byteBuffer.hasRemaining()) {
+                throw new XMLStreamException("Input fed after the end of the document");
+            }
+            return;
+        }
+        asyncXMLStreamReader.getInputFeeder().feedInput(byteBuffer);
+        endOfDocument = asyncSAXEventBridge.dispatchEvents(asyncXMLStreamReader);
+    }
+
+    /**
+     * Signal the end of the input, firing the remaining events.
+     *
+     * @throws XMLStreamException The document is incomplete.
+     * @throws SAXException       Content handler error.
+     */
+    public void endOfInput() throws XMLStreamException, SAXException {
+        if (!endOfDocument) {
+            asyncXMLStreamReader.getInputFeeder().endOfInput();
+            endOfDocument = asyncSAXEventBridge.dispatchEvents(asyncXMLStreamReader);
+            if (!endOfDocument) {
+                throw new XMLStreamException("Unexpected end of input: the document is incomplete");
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            asyncXMLStreamReader.close();
+        } catch (XMLStreamException e) {
+            // nothing left to release...
+        } finally {
+            saxHandler.detachHandler();
+            saxHandler.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PushedEvent {
+        void fire() throws SAXException;
+    }
+
+    /**
+     * Relays pushed events to the SAX NG handler, through the validator if any, until the end of the document.
+     */
+    private final class PushedEventHandler extends DefaultHandler2 {
+
+        private void push(final PushedEvent pushedEvent) throws SAXException {
+            if (!endOfDocument) {
+                try {
+                    pushedEvent.fire();
+                } catch (TerminateException e) {
+                    endOfDocument = true;
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Terminated filtering on element '" + DomUtils.getXPath(e.getElement()) + "'.");
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void startDocument() throws SAXException {
+            push(contentHandler::startDocument);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            push(() -> {
+                endOfDocument = true;
+                contentHandler.endDocument();
+            });
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            push(() -> contentHandler.startPrefixMapping(prefix, uri));
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            push(() -> contentHandler.endPrefixMapping(prefix));
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) throws SAXException {
+            push(() -> contentHandler.startElement(uri, localName, qName, atts));
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            push(() -> contentHandler.endElement(uri, localName, qName));
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            push(() -> contentHandler.characters(ch, start, length));
+        }
+
+        @Override
+        public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+            push(() -> contentHandler.ignorableWhitespace(ch, start, length));
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            push(() -> contentHandler.processingInstruction(target, data));
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+            push(() -> saxHandler.startDTD(name, publicId, systemId));
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            push(saxHandler::endDTD);
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            push(saxHandler::startCDATA);
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            push(saxHandler::endCDATA);
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            push(() -> saxHandler.comment(ch, start, length));
+        }
+    }
+}
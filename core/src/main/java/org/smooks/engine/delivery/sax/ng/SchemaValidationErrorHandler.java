@@ -0,0 +1,91 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery.sax.ng;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.support.DomUtils;
+import org.smooks.xml.SchemaValidationException;
+import org.w3c.dom.Node;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXParseException;
+
+/**
+ * Reports the errors of a validator running inline with a {@link SaxNgHandler} as
+ * {@link SchemaValidationException}s locating the fragment being filtered.
+ */
+class SchemaValidationErrorHandler implements ErrorHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaValidationErrorHandler.class);
+
+    private final SaxNgHandler saxNgHandler;
+
+    SchemaValidationErrorHandler(final SaxNgHandler saxNgHandler) {
+        this.saxNgHandler = saxNgHandler;
+    }
+
+    @Override
+    public void warning(final SAXParseException exception) {
+        LOGGER.warn("Schema validation warning at line " + exception.getLineNumber() + ", column " + exception.getColumnNumber() + ": " + exception.getMessage());
+    }
+
+    @Override
+    public void error(final SAXParseException exception) {
+        throw new SchemaValidationException(getFragmentPath(), exception);
+    }
+
+    @Override
+    public void fatalError(final SAXParseException exception) {
+        throw new SchemaValidationException(getFragmentPath(), exception);
+    }
+
+    private String getFragmentPath() {
+        final NodeFragment currentNodeFragment = saxNgHandler.getCurrentNodeFragment();
+        if (currentNodeFragment != null && currentNodeFragment.unwrap().getNodeType() == Node.ELEMENT_NODE) {
+            return DomUtils.getXPath(currentNodeFragment.unwrap());
+        } else {
+            return null;
+        }
+    }
+}
@@ -46,11 +46,18 @@ import org.smooks.api.TypedKey;
 import org.smooks.api.delivery.fragment.Fragment;
 import org.smooks.api.memento.Memento;
 
+/**
+ * {@link Memento} accumulating the text of a {@link Fragment}.
+ * <p/>
+ * A copy of this memento shares the text accumulated so far instead of duplicating it, and restoring a copy into an
+ * empty memento adopts the copy's text, so that stashing each chunk of text (restore, accumulate, capture) costs time
+ * proportional to the chunk rather than to all the text accumulated so far.
+ */
 public class TextAccumulatorMemento implements Memento {
     private static final TypedKey<String> ANCHOR_TYPED_KEY = new TypedKey<>();
 
     protected final Fragment<?> fragment;
-    protected final StringBuilder stringBuilder = new StringBuilder();
+    protected StringBuilder stringBuilder = new StringBuilder();
     protected String anchor;
 
     public TextAccumulatorMemento(final Fragment<?> fragment) {
@@ -60,14 +67,19 @@ public class TextAccumulatorMemento implements Memento {
     @Override
     public Memento copy() {
         final TextAccumulatorMemento textAccumulatorMemento = new TextAccumulatorMemento(fragment);
-        textAccumulatorMemento.accumulateText(getText());
+        textAccumulatorMemento.stringBuilder = stringBuilder;
 
         return textAccumulatorMemento;
     }
 
     @Override
     public void restore(final Memento memento) {
-        stringBuilder.append(((TextAccumulatorMemento) memento).getText());
+        final StringBuilder restoredStringBuilder = ((TextAccumulatorMemento) memento).stringBuilder;
+        if (stringBuilder.length() == 0) {
+            stringBuilder = restoredStringBuilder;
+        } else if (restoredStringBuilder != stringBuilder) {
+            stringBuilder.append(restoredStringBuilder);
+        }
     }
 
     @Override
@@ -88,6 +100,16 @@ public class TextAccumulatorMemento implements Memento {
         return this;
     }
 
+    public TextAccumulatorMemento accumulateText(final CharSequence text) {
+        stringBuilder.append(text);
+        return this;
+    }
+
+    public TextAccumulatorMemento accumulateText(final char[] text, final int offset, final int length) {
+        stringBuilder.append(text, offset, length);
+        return this;
+    }
+
     public String getText() {
         return stringBuilder.toString();
     }
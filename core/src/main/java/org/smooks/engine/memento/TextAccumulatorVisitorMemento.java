@@ -56,7 +56,7 @@ public class TextAccumulatorVisitorMemento extends TextAccumulatorMemento {
             @Override
             public Memento copy() {
                 final TextAccumulatorVisitorMemento textAccumulatorMemento = new TextAccumulatorVisitorMemento(fragment, visitor);
-                textAccumulatorMemento.accumulateText(getText());
+                textAccumulatorMemento.stringBuilder = stringBuilder;
 
                 return textAccumulatorMemento;
             }
@@ -91,7 +91,6 @@ public final class XMLConfigDigester {
     public static final String XSD_V20 = "https://www.smooks.org/xsd/smooks-2.0.xsd";
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XMLConfigDigester.class);
-    private static final ThreadLocal<Boolean> EXTENSION_DIGEST_ON = new ThreadLocal<>();
 
     private final ResourceConfigSeq resourceConfigList;
     private final Stack<SmooksConfig> configStack = new Stack<>();
@@ -99,6 +98,7 @@ public final class XMLConfigDigester {
 
     private ClassLoader classLoader;
     private Map<String, Smooks> extendedConfigDigesters = new HashMap<>();
+    private boolean extensionConfig;
 
     /**
      * Private constructor.
@@ -109,11 +109,8 @@ public final class XMLConfigDigester {
      *  <li>From the {@link #getExtendedConfigDigester(String)} method.</li>
      * </ul>
      *
-     * The {@link #digestConfig(java.io.InputStream, String)} method is public and always calls
-     * {@link #setExtensionDigestOff()}.  The {@link #getExtendedConfigDigester(String)} method is
-     * private and always calls {@link #setExtensionDigestOn()}.  Playing with the
-     * public/private nature of these methods may effect the behavior of the {@link #EXTENSION_DIGEST_ON}
-     * ThreadLocal.
+     * The {@link #getExtendedConfigDigester(String)} method is private and always marks the digester it creates
+     * as an {@link #extensionConfig extension config} digester.
      *
      *
      * @param resourceConfigList Config list.
@@ -158,7 +155,6 @@ public final class XMLConfigDigester {
     public static ResourceConfigSeq digestConfig(InputStream stream, String baseURI, Map<String, Smooks> extendedConfigDigesters, ClassLoader classLoader) throws SAXException, IOException, URISyntaxException, SmooksConfigException {
         ResourceConfigSeq resourceConfigList = new DefaultResourceConfigSeq(baseURI);
 
-        setExtensionDigestOff();
         XMLConfigDigester digester = new XMLConfigDigester(resourceConfigList);
 
         if(classLoader != null) {
@@ -202,7 +198,6 @@ public final class XMLConfigDigester {
     public static ResourceConfigSeq digestConfig(InputStream stream, String baseURI, ClassLoader classLoader) throws SAXException, IOException, URISyntaxException, SmooksConfigException {
         ResourceConfigSeq list = new DefaultResourceConfigSeq(baseURI);
 
-        setExtensionDigestOff();
         XMLConfigDigester digester = new XMLConfigDigester(list);
 
         if(classLoader != null) {
@@ -343,7 +338,7 @@ public final class XMLConfigDigester {
     }
 
     private void assertElementPermitted(Element configElement) {
-        if(isExtensionConfig()) {
+        if(extensionConfig) {
             String elementName = DomUtils.getName(configElement);
             if(!elementName.equals("import") && !elementName.equals("resource-config")) {
                 throw new SmooksConfigException("Configuration element '" + elementName + "' not supported in an extension configuration.");
@@ -560,20 +555,18 @@ public final class XMLConfigDigester {
 
             // Construct the Smooks instance for processing this config namespace...
             smooks = new Smooks(new DefaultApplicationContextBuilder().setClassLoader(classLoader).setRegisterSystemResources(false).build());
-            setExtensionDigestOn();
             try {
                 Registry registry = smooks.getApplicationContext().getRegistry();
                 ResourceConfigSeq extConfigList = new DefaultResourceConfigSeq(baseURI);
 
                 XMLConfigDigester configDigester = new XMLConfigDigester(extConfigList);
+                configDigester.extensionConfig = true;
 
                 configDigester.extendedConfigDigesters = extendedConfigDigesters;
                 configDigester.digestConfigRecursively(new InputStreamReader(ClassUtil.getResourceAsStream(resourcePath, classLoader)), baseURI);
                 registry.registerResourceConfigSeq(extConfigList);
             } catch (Exception e) {
                 throw new SmooksConfigException("Failed to construct Smooks instance for processing extended configuration resource '" + resourcePath + "'.", e);
-            } finally {
-                setExtensionDigestOff();
             }
 
             // And add it to the Map of extension digesters...
@@ -613,18 +606,6 @@ public final class XMLConfigDigester {
         }
     }
 
-    private static boolean isExtensionConfig() {
-        return EXTENSION_DIGEST_ON.get();
-    }
-
-    private static void setExtensionDigestOn() {
-        EXTENSION_DIGEST_ON.set(true);
-    }
-
-    private static void setExtensionDigestOff() {
-        EXTENSION_DIGEST_ON.set(false);
-    }
-
     private void digestConditions(Element conditionsElement) {
         NodeList conditions = conditionsElement.getElementsByTagName("condition");
 
@@ -0,0 +1,306 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.resource.reader;
+
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import org.smooks.api.resource.reader.ResettableXMLReader;
+import org.smooks.io.AsyncSAXEventBridge;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.ext.LexicalHandler;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+
+/**
+ * SAX {@link org.xml.sax.XMLReader} driven by the <a href="https://github.com/FasterXML/aalto-xml">Aalto</a> StAX
+ * parser, as an alternative to the default Woodstox SAX driver.
+ * <p/>
+ * Select it for a Smooks instance through the {@link org.smooks.api.delivery.Filter#XML_READER} global parameter, or
+ * for a particular profile through an <code>org.xml.sax.driver</code> resource config. The events reported match
+ * those of the Woodstox driver with the features Smooks turns on: namespace declarations are reported as
+ * <code>xmlns</code> attributes (<code>namespace-prefixes</code> and <code>xmlns-uris</code> on), comments, CDATA
+ * sections and the document type declaration are reported to the {@link LexicalHandler}, and entity references are
+ * replaced (entity rewriting on output is left to the Smooks serializers). Neither DTD validation nor external entities
+ * are supported: parsing fails with a {@link SAXNotSupportedException} when an {@link EntityResolver} or a
+ * {@link DTDHandler} is set since Aalto would never call them.
+ * <p/>
+ * The reader is meant to be pooled by a {@link org.smooks.api.delivery.ReaderPool}: the StAX input factory is created
+ * once per reader and {@link #reset()} releases the handlers bound to the last execution.
+ */
+@NotThreadSafe
+public class AaltoXMLReader implements ResettableXMLReader, Locator {
+
+    private static final String FEATURE_PREFIX = "http://xml.org/sax/features/";
+    private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    private ContentHandler contentHandler;
+    private LexicalHandler lexicalHandler;
+    private DTDHandler dtdHandler;
+    private EntityResolver entityResolver;
+    private ErrorHandler errorHandler;
+    private XMLStreamReader xmlStreamReader;
+    private AsyncSAXEventBridge saxEventBridge;
+
+    public AaltoXMLReader() {
+        xmlInputFactory = new InputFactoryImpl();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    @Override
+    public boolean getFeature(final String name) throws SAXNotRecognizedException {
+        switch (name) {
+            case FEATURE_PREFIX + "namespaces":
+            case FEATURE_PREFIX + "namespace-prefixes":
+            case FEATURE_PREFIX + "xmlns-uris":
+                return true;
+            case FEATURE_PREFIX + "lexical-handler/parameter-entities":
+            case FEATURE_PREFIX + "validation":
+            case FEATURE_PREFIX + "external-general-entities":
+            case FEATURE_PREFIX + "external-parameter-entities":
+            case FEATURE_PREFIX + "string-interning":
+                return false;
+            default:
+                throw new SAXNotRecognizedException("Feature '" + name + "' not recognized by " + getClass().getName());
+        }
+    }
+
+    @Override
+    public void setFeature(final String name, final boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (getFeature(name) != value) {
+            throw new SAXNotSupportedException("Feature '" + name + "' cannot be turned " + (value ? "on" : "off") + " on " + getClass().getName());
+        }
+    }
+
+    @Override
+    public Object getProperty(final String name) throws SAXNotRecognizedException {
+        if (LEXICAL_HANDLER_PROPERTY.equals(name)) {
+            return lexicalHandler;
+        }
+        throw new SAXNotRecognizedException("Property '" + name + "' not recognized by " + getClass().getName());
+    }
+
+    @Override
+    public void setProperty(final String name, final Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (LEXICAL_HANDLER_PROPERTY.equals(name)) {
+            if (value != null && !(value instanceof LexicalHandler)) {
+                throw new SAXNotSupportedException("Property '" + name + "' must be a " + LexicalHandler.class.getName());
+            }
+            lexicalHandler = (LexicalHandler) value;
+            saxEventBridge = null;
+        } else {
+            throw new SAXNotRecognizedException("Property '" + name + "' not recognized by " + getClass().getName());
+        }
+    }
+
+    @Override
+    public void setEntityResolver(final EntityResolver entityResolver) {
+        this.entityResolver = entityResolver;
+    }
+
+    @Override
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    @Override
+    public void setDTDHandler(final DTDHandler dtdHandler) {
+        this.dtdHandler = dtdHandler;
+    }
+
+    @Override
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+
+    @Override
+    public void setContentHandler(final ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+        saxEventBridge = null;
+    }
+
+    @Override
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    @Override
+    public void setErrorHandler(final ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    @Override
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    @Override
+    public void parse(final String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    @Override
+    public void parse(final InputSource inputSource) throws IOException, SAXException {
+        if (contentHandler == null) {
+            throw new SAXException("No ContentHandler set on " + getClass().getName());
+        }
+        if (entityResolver != null) {
+            throw new SAXNotSupportedException("EntityResolver not supported by " + getClass().getName() + ": external entities are not resolved");
+        }
+        if (dtdHandler != null) {
+            throw new SAXNotSupportedException("DTDHandler not supported by " + getClass().getName() + ": notation and unparsed entity declarations are not reported");
+        }
+
+        final String systemId = inputSource.getSystemId();
+        final Reader reader = inputSource.getCharacterStream();
+        InputStream inputStream = null;
+        if (reader == null) {
+            inputStream = inputSource.getByteStream();
+            if (inputStream == null) {
+                if (systemId == null) {
+                    throw new SAXException("Invalid InputSource: neither character stream, byte stream nor system ID specified");
+                }
+                inputStream = new URL(systemId).openStream();
+            }
+        }
+
+        contentHandler.setDocumentLocator(this);
+        contentHandler.startDocument();
+        boolean endOfDocument = false;
+        try {
+            if (reader != null) {
+                xmlStreamReader = xmlInputFactory.createXMLStreamReader(systemId, reader);
+            } else if (inputSource.getEncoding() != null) {
+                xmlStreamReader = xmlInputFactory.createXMLStreamReader(inputStream, inputSource.getEncoding());
+            } else {
+                xmlStreamReader = xmlInputFactory.createXMLStreamReader(systemId, inputStream);
+            }
+            if (saxEventBridge == null) {
+                saxEventBridge = new AsyncSAXEventBridge(contentHandler, lexicalHandler);
+            }
+            endOfDocument = saxEventBridge.dispatchEvents(xmlStreamReader);
+        } catch (XMLStreamException e) {
+            final SAXParseException saxParseException = new SAXParseException(e.getMessage(), this, e);
+            if (errorHandler != null) {
+                errorHandler.fatalError(saxParseException);
+            }
+            throw saxParseException;
+        } finally {
+            try {
+                if (!endOfDocument) {
+                    contentHandler.endDocument();
+                }
+            } finally {
+                closeXMLStreamReader();
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        closeXMLStreamReader();
+        contentHandler = null;
+        lexicalHandler = null;
+        saxEventBridge = null;
+    }
+
+    private void closeXMLStreamReader() {
+        if (xmlStreamReader != null) {
+            try {
+                xmlStreamReader.close();
+            } catch (XMLStreamException e) {
+                // closing the stream reader does not close the underlying input: nothing to report
+            } finally {
+                xmlStreamReader = null;
+            }
+        }
+    }
+
+    @Override
+    public String getPublicId() {
+        final Location location = getLocation();
+        return location != null ? location.getPublicId() : null;
+    }
+
+    @Override
+    public String getSystemId() {
+        final Location location = getLocation();
+        return location != null ? location.getSystemId() : null;
+    }
+
+    @Override
+    public int getLineNumber() {
+        final Location location = getLocation();
+        return location != null ? location.getLineNumber() : -1;
+    }
+
+    @Override
+    public int getColumnNumber() {
+        final Location location = getLocation();
+        return location != null ? location.getColumnNumber() : -1;
+    }
+
+    private Location getLocation() {
+        return xmlStreamReader != null ? xmlStreamReader.getLocation() : null;
+    }
+}
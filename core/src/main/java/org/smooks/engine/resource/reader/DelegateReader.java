@@ -73,21 +73,18 @@ import org.xml.sax.SAXNotSupportedException;
 
 import jakarta.annotation.PostConstruct;
 import javax.inject.Inject;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Optional;
 
 public class DelegateReader implements SmooksXMLReader {
-    private final TypedKey<Writer> contentHandlerTypedKey = new TypedKey<>();
     private final TypedKey<ExecutionContext> executionContextTypedKey = new TypedKey<>();
     
     private ContentHandler contentHandler;
@@ -101,18 +98,8 @@ public class DelegateReader implements SmooksXMLReader {
     @Inject
     private ApplicationContext applicationContext;
     
-    private DocumentBuilder documentBuilder;
-
     @PostConstruct
     public void postConstruct() {
-        try {
-            final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            documentBuilderFactory.setFeature("http://apache.org/xml/features/dom/defer-node-expansion", false);
-            documentBuilderFactory.setFeature("http://xml.org/sax/features/validation", false);
-            documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        } catch (ParserConfigurationException e) {
-            throw new SmooksException(e);
-        }
         final String smooksResourceList = "<smooks-resource-list xmlns=\"https://www.smooks.org/xsd/smooks-2.0.xsd\">" + resourceConfig.getParameter("resourceConfigs", String.class).getValue() + "</smooks-resource-list>";
         final ResourceConfigSeq resourceConfigList;
         try {
@@ -207,33 +194,69 @@ public class DelegateReader implements SmooksXMLReader {
         return errorHandler;
     }
     
+    /**
+     * Filters the input through the nested Smooks, firing the events of its output to this reader's
+     * {@link ContentHandler}.
+     * <p/>
+     * A {@link DocumentInputSource} is filtered from its DOM. Any other input is streamed through the nested Smooks as
+     * it is parsed, and the nested output is forwarded as SAX events rather than re-parsed, so that the input is never
+     * held in memory as a whole.
+     */
     @Override
     public void parse(final InputSource inputSource) throws IOException, SAXException {
-        final Document document;
-        if (inputSource instanceof DocumentInputSource) {
-            document = ((DocumentInputSource) inputSource).getDocument();
-        } else {
-            document = documentBuilder.parse(inputSource);
-            document.setStrictErrorChecking(false);
-        }
-        
         ExecutionContext readerExecutionContext = executionContext.get(executionContextTypedKey);
         if (readerExecutionContext == null) {
             readerExecutionContext = readerSmooks.createExecutionContext();
             executionContext.put(executionContextTypedKey, readerExecutionContext);   
         }
-        
-        if (Session.isSession(document.getFirstChild())) {
-            final Session session = new Session(document.getFirstChild());
-            readerExecutionContext.put(session.getSourceKey(), session.getSourceValue(executionContext));
+
+        final Source source;
+        if (inputSource instanceof DocumentInputSource) {
+            final Document document = ((DocumentInputSource) inputSource).getDocument();
+            if (Session.isSession(document.getFirstChild())) {
+                final Session session = new Session(document.getFirstChild());
+                readerExecutionContext.put(session.getSourceKey(), session.getSourceValue(executionContext));
+            }
+            source = new DOMSource(document);
+        } else {
+            source = createStreamSource(inputSource, readerExecutionContext);
         }
         
-        if (executionContext.get(contentHandlerTypedKey) == null) {
-            executionContext.put(contentHandlerTypedKey, new SAXWriter(contentHandler));
+        // a writer per parse: a SAXWriter reports a single document
+        final SAXWriter saxWriter = new SAXWriter(contentHandler);
+        final StreamResult streamResult = new StreamResult();
+        streamResult.setWriter(saxWriter);
+        boolean filtered = false;
+        try {
+            readerSmooks.filterSource(readerExecutionContext, source, streamResult);
+            filtered = true;
+        } finally {
+            if (filtered) {
+                saxWriter.close();
+            } else {
+                // the document is incomplete: release the parser without reporting its end
+                saxWriter.abort();
+            }
         }
-        StreamResult streamResult = new StreamResult();
-        streamResult.setWriter(executionContext.get(contentHandlerTypedKey));
-        readerSmooks.filterSource(readerExecutionContext, new DOMSource(document), streamResult);
+    }
+
+    private StreamSource createStreamSource(final InputSource inputSource, final ExecutionContext readerExecutionContext) throws SAXException {
+        final StreamSource streamSource;
+        if (inputSource.getCharacterStream() != null) {
+            streamSource = new StreamSource(inputSource.getCharacterStream());
+        } else if (inputSource.getByteStream() != null) {
+            streamSource = new StreamSource(inputSource.getByteStream());
+            if (inputSource.getEncoding() != null) {
+                readerExecutionContext.setContentEncoding(inputSource.getEncoding());
+            }
+        } else if (inputSource.getSystemId() != null) {
+            streamSource = new StreamSource();
+        } else {
+            throw new SAXException("Invalid InputSource: no character stream, byte stream, or system ID");
+        }
+        streamSource.setSystemId(inputSource.getSystemId());
+
+        return streamSource;
     }
 
     @Override
@@ -0,0 +1,172 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 - 2021 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.resource.visitor.smooks;
+
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.delivery.event.ExecutionEvent;
+import org.smooks.api.delivery.event.ExecutionEventListener;
+import org.smooks.engine.delivery.event.EndFragmentEvent;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.io.ResourceWriter;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The nested Smooks runs of an async {@link NestedSmooksVisitor} not yet applied to the execution, in document order.
+ * <p/>
+ * The runs filter their copy of a visited fragment concurrently on the visitor's executor but their outputs are
+ * written, or bound, by the execution's thread only, in document order: as the runs complete, when too many runs are
+ * in flight, before the output resource of a pending run is closed, and at the end of the document element at the
+ * latest. The output resource of a run is opened when the run is submitted, i.e., for the fragment it was submitted
+ * for. A failed run fails the execution when its output is due.
+ */
+class AsyncNestedRuns implements ExecutionEventListener {
+    private final NestedSmooksVisitor nestedSmooksVisitor;
+    private final ExecutionContext executionContext;
+    private final Deque<NestedRun> nestedRuns = new ArrayDeque<>();
+    private final Runnable applyAllOnClose = this::applyAll;
+    private boolean listening;
+
+    public AsyncNestedRuns(final NestedSmooksVisitor nestedSmooksVisitor, final ExecutionContext executionContext) {
+        this.nestedSmooksVisitor = nestedSmooksVisitor;
+        this.executionContext = executionContext;
+    }
+
+    /**
+     * @param resourceWriter The output resource of the run, or null if the run's output is bound.
+     */
+    public void submit(final Document fragmentDocument, final NodeFragment visitedFragment, final ResourceWriter resourceWriter) {
+        final Writer outputWriter;
+        if (resourceWriter == null) {
+            outputWriter = null;
+        } else {
+            resourceWriter.addCloseListener(applyAllOnClose);
+            outputWriter = resourceWriter.getDelegateWriter();
+        }
+        while (nestedRuns.size() >= nestedSmooksVisitor.getAsyncMaxInFlight()) {
+            apply(nestedRuns.poll());
+        }
+        final String contentEncoding = executionContext.getContentEncoding();
+        final Future<String> output = nestedSmooksVisitor.getAsyncExecutorService().submit(() -> nestedSmooksVisitor.filterSource(fragmentDocument, contentEncoding));
+        nestedRuns.add(new NestedRun(output, visitedFragment, outputWriter));
+        if (!listening) {
+            listening = true;
+            executionContext.getContentDeliveryRuntime().addExecutionEventListener(this);
+        }
+    }
+
+    public void applyCompleted() {
+        while (!nestedRuns.isEmpty() && nestedRuns.peek().output.isDone()) {
+            apply(nestedRuns.poll());
+        }
+    }
+
+    public void applyAll() {
+        while (!nestedRuns.isEmpty()) {
+            apply(nestedRuns.poll());
+        }
+    }
+
+    /**
+     * Cancel the runs not applied yet, e.g., because the execution failed or was terminated.
+     *
+     * @return The number of runs cancelled.
+     */
+    public int cancel() {
+        final int cancelled = nestedRuns.size();
+        for (NestedRun nestedRun : nestedRuns) {
+            nestedRun.output.cancel(true);
+        }
+        nestedRuns.clear();
+        if (listening) {
+            listening = false;
+            executionContext.getContentDeliveryRuntime().removeExecutionEventListener(this);
+        }
+
+        return cancelled;
+    }
+
+    @Override
+    public void onEvent(final ExecutionEvent executionEvent) {
+        if (executionEvent instanceof EndFragmentEvent && !nestedRuns.isEmpty()) {
+            final Node node = (Node) ((EndFragmentEvent) executionEvent).getFragment().unwrap();
+            if (node.getParentNode() instanceof Document) {
+                applyAll();
+            } else {
+                applyCompleted();
+            }
+        }
+    }
+
+    private void apply(final NestedRun nestedRun) {
+        final String output;
+        try {
+            output = nestedRun.output.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting for a nested Smooks execution", e);
+        } catch (ExecutionException e) {
+            throw new SmooksException("Nested Smooks execution failed on fragment '" + nestedRun.visitedFragment + "'", e.getCause());
+        }
+        nestedSmooksVisitor.applyOutput(output, nestedRun.outputWriter, nestedRun.visitedFragment, executionContext);
+    }
+
+    private static final class NestedRun {
+        private final Future<String> output;
+        private final NodeFragment visitedFragment;
+        private final Writer outputWriter;
+
+        private NestedRun(final Future<String> output, final NodeFragment visitedFragment, final Writer outputWriter) {
+            this.output = output;
+            this.visitedFragment = visitedFragment;
+            this.outputWriter = outputWriter;
+        }
+    }
+}
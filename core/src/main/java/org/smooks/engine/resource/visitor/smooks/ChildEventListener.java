@@ -45,8 +45,6 @@ package org.smooks.engine.resource.visitor.smooks;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.delivery.fragment.Fragment;
 import org.smooks.engine.delivery.fragment.NodeFragment;
-import org.smooks.engine.memento.SimpleVisitorMemento;
-import org.smooks.engine.memento.VisitorMemento;
 import org.smooks.engine.delivery.sax.ng.CharDataFragmentEvent;
 import org.smooks.api.delivery.event.ExecutionEvent;
 import org.smooks.engine.delivery.event.FragmentEvent;
@@ -56,64 +54,123 @@ import org.smooks.engine.delivery.event.StartFragmentEvent;
 import org.w3c.dom.Node;
 
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Feeds the nested Smooks of a {@link NestedSmooksVisitor} with the children of the fragments it visits.
+ * <p/>
+ * There is one listener per visitor and execution. It is registered with the execution while at least one
+ * {@link Scope} (i.e., visited fragment) is open, and relays the child events to each open scope in opening order. An
+ * async visitor only has the children copied into its scopes: the nested Smooks filters the copy once visited.
+ */
 class ChildEventListener extends SessionAwareExecutionEventListener {
     private final NestedSmooksVisitor nestedSmooksVisitor;
-    private final NodeFragment visitedFragment;
-    private final Writer selectorWriter;
-    private int currentNodeDepth;
+    private final List<Scope> scopes = new ArrayList<>();
 
-    public ChildEventListener(final NestedSmooksVisitor nestedSmooksVisitor, final Writer selectorWriter, final NodeFragment visitedFragment, final ExecutionContext executionContext) {
+    public ChildEventListener(final NestedSmooksVisitor nestedSmooksVisitor, final ExecutionContext executionContext) {
         super(executionContext);
         this.nestedSmooksVisitor = nestedSmooksVisitor;
-        this.selectorWriter = selectorWriter;
-        this.visitedFragment = visitedFragment;
+    }
+
+    public void openScope(final NodeFragment visitedFragment, final Writer selectorWriter, final Node rootNode) {
+        scopes.add(new Scope(visitedFragment, selectorWriter, rootNode));
+        if (scopes.size() == 1) {
+            executionContext.getContentDeliveryRuntime().addExecutionEventListener(this);
+        }
+    }
+
+    public Scope getScope(final NodeFragment visitedFragment) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).visitedFragment.equals(visitedFragment)) {
+                return scopes.get(i);
+            }
+        }
+        return null;
+    }
+
+    public void closeScope(final Scope scope) {
+        if (scopes.remove(scope) && scopes.isEmpty()) {
+            executionContext.getContentDeliveryRuntime().removeExecutionEventListener(this);
+        }
     }
 
     @Override
     public void doOnEvent(final ExecutionEvent executionEvent) {
         if (executionEvent instanceof FragmentEvent) {
             final Fragment<Node> childFragment = ((FragmentEvent<Node>) executionEvent).getFragment();
-            final VisitorMemento<Node> sourceTreeMemento = new SimpleVisitorMemento<>(visitedFragment, nestedSmooksVisitor, visitedFragment.unwrap());
-            executionContext.getMementoCaretaker().restore(sourceTreeMemento);
-
-            if (executionEvent instanceof StartFragmentEvent) {
-                if (!visitedFragment.equals(childFragment)) {
-                    visitBefore(sourceTreeMemento, childFragment);
-                }
-            } else if (executionEvent instanceof CharDataFragmentEvent) {
-                visitChildText(sourceTreeMemento, childFragment);
-            } else if (executionEvent instanceof EndFragmentEvent) {
-                if (!visitedFragment.equals(childFragment)) {
-                    visitAfter(sourceTreeMemento);
+            for (int i = 0; i < scopes.size(); i++) {
+                final Scope scope = scopes.get(i);
+                if (executionEvent instanceof StartFragmentEvent) {
+                    if (!scope.visitedFragment.equals(childFragment)) {
+                        visitBefore(scope, childFragment);
+                    }
+                } else if (executionEvent instanceof CharDataFragmentEvent) {
+                    visitChildText(scope, childFragment);
+                } else if (executionEvent instanceof EndFragmentEvent) {
+                    if (!scope.visitedFragment.equals(childFragment)) {
+                        visitAfter(scope);
+                    }
                 }
             }
         }
     }
 
-    protected void visitBefore(final VisitorMemento<Node> sourceTreeMemento, final Fragment<Node> childFragment) {
-        final Node childNode = sourceTreeMemento.getState().getOwnerDocument().importNode(childFragment.unwrap(), true);
-        nestedSmooksVisitor.filterSource(visitedFragment, new NodeFragment(sourceTreeMemento.getState().appendChild(childNode)), selectorWriter, executionContext, "visitBefore");
-        currentNodeDepth++;
-        executionContext.getMementoCaretaker().capture(new SimpleVisitorMemento<>(visitedFragment, nestedSmooksVisitor, childNode));
+    protected void visitBefore(final Scope scope, final Fragment<Node> childFragment) {
+        final Node childNode = scope.currentNode.getOwnerDocument().importNode(childFragment.unwrap(), true);
+        scope.currentNode.appendChild(childNode);
+        if (!nestedSmooksVisitor.isAsync()) {
+            nestedSmooksVisitor.filterSource(scope.visitedFragment, new NodeFragment(childNode), scope.selectorWriter, executionContext, "visitBefore");
+        }
+        scope.currentNodeDepth++;
+        scope.currentNode = childNode;
     }
 
-    protected void visitChildText(final VisitorMemento<Node> sourceTreeMemento, final Fragment<Node> childFragment) {
-        final Node childNode = sourceTreeMemento.getState().getOwnerDocument().importNode(childFragment.unwrap(), true);
-        nestedSmooksVisitor.filterSource(visitedFragment, new NodeFragment(sourceTreeMemento.getState().appendChild(childNode)), selectorWriter, executionContext, "visitChildText");
-        if ((currentNodeDepth + 1) >= nestedSmooksVisitor.getMaxNodeDepth()) {
-            sourceTreeMemento.getState().removeChild(childNode);
+    protected void visitChildText(final Scope scope, final Fragment<Node> childFragment) {
+        final Node childNode = scope.currentNode.getOwnerDocument().importNode(childFragment.unwrap(), true);
+        scope.currentNode.appendChild(childNode);
+        if (nestedSmooksVisitor.isAsync()) {
+            return;
+        }
+        nestedSmooksVisitor.filterSource(scope.visitedFragment, new NodeFragment(childNode), scope.selectorWriter, executionContext, "visitChildText");
+        if ((scope.currentNodeDepth + 1) >= nestedSmooksVisitor.getMaxNodeDepth()) {
+            scope.currentNode.removeChild(childNode);
         }
     }
 
-    protected void visitAfter(final VisitorMemento<Node> sourceTreeMemento) {
-        nestedSmooksVisitor.filterSource(visitedFragment, new NodeFragment(sourceTreeMemento.getState()), selectorWriter, executionContext, "visitAfter");
-        final Node parentNode = sourceTreeMemento.getState().getParentNode();
-        if (currentNodeDepth >= nestedSmooksVisitor.getMaxNodeDepth()) {
-            parentNode.removeChild(sourceTreeMemento.getState());
+    protected void visitAfter(final Scope scope) {
+        final Node parentNode = scope.currentNode.getParentNode();
+        if (nestedSmooksVisitor.isAsync()) {
+            scope.currentNode = parentNode;
+            scope.currentNodeDepth--;
+            return;
+        }
+        nestedSmooksVisitor.filterSource(scope.visitedFragment, new NodeFragment(scope.currentNode), scope.selectorWriter, executionContext, "visitAfter");
+        if (scope.currentNodeDepth >= nestedSmooksVisitor.getMaxNodeDepth()) {
+            parentNode.removeChild(scope.currentNode);
         }
-        executionContext.getMementoCaretaker().capture(new SimpleVisitorMemento<>(visitedFragment, nestedSmooksVisitor, parentNode));
-        currentNodeDepth--;
+        scope.currentNode = parentNode;
+        scope.currentNodeDepth--;
     }
 
-}
\ No newline at end of file
+    /**
+     * A fragment visited by the {@link NestedSmooksVisitor}, together with the position in its copy handed to the
+     * nested Smooks.
+     */
+    static final class Scope {
+        private final NodeFragment visitedFragment;
+        private final Writer selectorWriter;
+        private Node currentNode;
+        private int currentNodeDepth;
+
+        private Scope(final NodeFragment visitedFragment, final Writer selectorWriter, final Node rootNode) {
+            this.visitedFragment = visitedFragment;
+            this.selectorWriter = selectorWriter;
+            this.currentNode = rootNode;
+        }
+
+        public Node getCurrentNode() {
+            return currentNode;
+        }
+    }
+}
@@ -42,17 +42,21 @@
  */
 package org.smooks.engine.resource.visitor.smooks;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.smooks.FilterSettings;
 import org.smooks.Smooks;
 import org.smooks.StreamFilterType;
 import org.smooks.api.ApplicationContext;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
 import org.smooks.api.TypedKey;
 import org.smooks.api.bean.repository.BeanId;
 import org.smooks.api.delivery.Filter;
 import org.smooks.api.delivery.fragment.Fragment;
 import org.smooks.api.delivery.ordering.Producer;
+import org.smooks.api.lifecycle.ExecutionLifecycleCleanable;
 import org.smooks.api.lifecycle.ExecutionLifecycleInitializable;
 import org.smooks.api.memento.MementoCaretaker;
 import org.smooks.api.resource.config.ResourceConfig;
@@ -99,11 +103,30 @@ import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URISyntaxException;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Filters the fragments it visits through a nested {@link Smooks} instance, applying the nested output according to
+ * the configured {@link Action}.
+ * <p/>
+ * With <code>async</code> on, supported by the {@link Action#OUTPUT_TO} and {@link Action#BIND_TO} actions only, each
+ * visited fragment is captured in full and filtered by the nested Smooks on an executor of <code>asyncThreads</code>
+ * threads while the outer execution carries on, with at most <code>asyncMaxInFlight</code> fragments in flight per
+ * execution. The nested outputs are still written, or bound, in document order by the outer execution's thread, at
+ * the latest before the end of the document element. The output resource is resolved for the visited fragment and
+ * kept open until its nested output is written, so a resource closed with each fragment effectively waits for the
+ * fragment's nested execution. The nested executions do not share the outer bean context.
+ */
+public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Producer, ExecutionLifecycleInitializable, ExecutionLifecycleCleanable {
 
-public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Producer, ExecutionLifecycleInitializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NestedSmooksVisitor.class);
+    private static final AtomicInteger ASYNC_THREAD_COUNT = new AtomicInteger();
     
     public enum Action {
         REPLACE,
@@ -118,6 +141,10 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
     protected static final TypedKey<Node> SOURCE_SESSION_TYPED_KEY = new TypedKey<>();
     protected static final TypedKey<DocumentBuilder> CACHED_DOCUMENT_BUILDER_TYPED_KEY = new TypedKey<>();
     protected static final TypedKey<ExecutionContext> NESTED_EXECUTION_CONTEXT_MEMENTO_TYPED_KEY = new TypedKey<>();
+    protected static final TypedKey<Map<String, Document>> SESSION_DOCUMENTS_TYPED_KEY = new TypedKey<>();
+
+    private final TypedKey<ChildEventListener> childEventListenerTypedKey = new TypedKey<>();
+    private final TypedKey<AsyncNestedRuns> asyncNestedRunsTypedKey = new TypedKey<>();
 
     protected BeanId bindBeanId;
 
@@ -148,9 +175,22 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
     @Named(Filter.ENTITIES_REWRITE)
     protected Boolean rewriteEntities = true;
 
+    @Inject
+    @Named("async")
+    protected Boolean async = false;
+
+    @Inject
+    @Named("asyncThreads")
+    protected Integer asyncThreads = Runtime.getRuntime().availableProcessors();
+
+    @Inject
+    @Named("asyncMaxInFlight")
+    protected Integer asyncMaxInFlight = Runtime.getRuntime().availableProcessors() * 2;
+
     protected ResourceConfigSeq resourceConfigSeq;
     protected Smooks nestedSmooks;
     protected DomSerializer domSerializer;
+    protected ExecutorService asyncExecutorService;
     
     @PostConstruct
     public void postConstruct() throws SAXException, IOException, URISyntaxException, ClassNotFoundException {
@@ -185,6 +225,20 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
         }
         
         domSerializer = new DomSerializer(false, rewriteEntities);
+
+        if (async) {
+            if (action != Action.OUTPUT_TO && action != Action.BIND_TO) {
+                throw new SmooksConfigException("Asynchronous nested Smooks execution is only supported by the " + Action.OUTPUT_TO + " and " + Action.BIND_TO + " actions");
+            }
+            if (asyncThreads < 1 || asyncMaxInFlight < 1) {
+                throw new SmooksConfigException("'asyncThreads' and 'asyncMaxInFlight' must be greater than zero");
+            }
+            asyncExecutorService = Executors.newFixedThreadPool(asyncThreads, runnable -> {
+                final Thread thread = new Thread(runnable, "smooks-nested-" + ASYNC_THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
     }
 
     protected InterceptorVisitorChainFactory createInterceptorVisitorChainFactory(final ApplicationContext applicationContext) {
@@ -213,6 +267,23 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
             throw new SmooksException(e);
         }
         executionContext.put(CACHED_DOCUMENT_BUILDER_TYPED_KEY, documentBuilder);
+        executionContext.put(SESSION_DOCUMENTS_TYPED_KEY, new HashMap<>());
+        executionContext.put(childEventListenerTypedKey, new ChildEventListener(this, executionContext));
+        if (async) {
+            executionContext.put(asyncNestedRunsTypedKey, new AsyncNestedRuns(this, executionContext));
+        }
+    }
+
+    @Override
+    public void executeExecutionLifecycleCleanup(final ExecutionContext executionContext) {
+        final AsyncNestedRuns asyncNestedRuns = executionContext.get(asyncNestedRunsTypedKey);
+        if (asyncNestedRuns != null) {
+            final int cancelled = asyncNestedRuns.cancel();
+            if (cancelled > 0) {
+                LOGGER.warn("Cancelled " + cancelled + " asynchronous nested Smooks execution(s) pending at the end of the filter execution");
+            }
+            executionContext.remove(asyncNestedRunsTypedKey);
+        }
     }
     
     protected Node deAttach(final Node node, ExecutionContext executionContext) {
@@ -228,7 +299,11 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
     public void visitBefore(final Element element, final ExecutionContext executionContext) {
         final Node rootNode = deAttach(element, executionContext);
         final NodeFragment visitedFragment = new NodeFragment(element);
-        executionContext.getMementoCaretaker().capture(new SimpleVisitorMemento<>(visitedFragment, this, rootNode));
+        if (async) {
+            // the fragment is only captured: the nested Smooks filters it in full once visited
+            executionContext.get(childEventListenerTypedKey).openScope(visitedFragment, null, rootNode);
+            return;
+        }
 
         final NodeFragment rootNodeFragment = new NodeFragment(rootNode);
         final Writer nodeWriter;
@@ -273,17 +348,28 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
             }
         }
 
-        final ChildEventListener childEventListener = new ChildEventListener(this, nodeWriter, visitedFragment, executionContext);
-        executionContext.getContentDeliveryRuntime().addExecutionEventListener(childEventListener);
-        executionContext.getMementoCaretaker().capture(new SimpleVisitorMemento<>(visitedFragment, this, childEventListener));
+        executionContext.get(childEventListenerTypedKey).openScope(visitedFragment, nodeWriter, rootNode);
     }
     
     @Override
     public void visitAfter(final Element element, final ExecutionContext executionContext) {
         final NodeFragment visitedFragment = new NodeFragment(element);
-        final VisitorMemento<Node> rootNodeMemento = new SimpleVisitorMemento<>(visitedFragment, this, element);
-        executionContext.getMementoCaretaker().restore(rootNodeMemento);
-        final NodeFragment rootNodeFragment = new NodeFragment(rootNodeMemento.getState());
+        final ChildEventListener childEventListener = executionContext.get(childEventListenerTypedKey);
+        final ChildEventListener.Scope scope = childEventListener.getScope(visitedFragment);
+        final NodeFragment rootNodeFragment = new NodeFragment(scope.getCurrentNode());
+        if (async) {
+            childEventListener.closeScope(scope);
+            final AsyncNestedRuns asyncNestedRuns = executionContext.get(asyncNestedRunsTypedKey);
+            // the output resource is resolved now, for this fragment, and kept open until the run's output is applied
+            final ResourceWriter resourceWriter = action == Action.OUTPUT_TO ? new ResourceWriter(executionContext, outputStreamResourceOptional.get()) : null;
+            asyncNestedRuns.submit(rootNodeFragment.unwrap().getOwnerDocument(), visitedFragment, resourceWriter);
+            if (element.getParentNode() instanceof Document) {
+                asyncNestedRuns.applyAll();
+            } else {
+                asyncNestedRuns.applyCompleted();
+            }
+            return;
+        }
 
         if (action == null) {
             filterSource(visitedFragment, rootNodeFragment, Stream.out(executionContext), executionContext, "visitAfter");
@@ -309,9 +395,7 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
             }
         }
 
-        final VisitorMemento<ChildEventListener> childEventListenerMemento = new SimpleVisitorMemento<>(visitedFragment, this, new ChildEventListener(this, null, null, null));
-        executionContext.getMementoCaretaker().restore(childEventListenerMemento);
-        executionContext.getContentDeliveryRuntime().removeExecutionEventListener(childEventListenerMemento.getState());
+        childEventListener.closeScope(scope);
     }
 
     protected Writer replaceBefore(final Fragment<Node> visitedNodeFragment, final Node rootNode, final ExecutionContext executionContext) {
@@ -363,7 +447,7 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
                 domSerializer.writeStartElement(rootElement, fragmentWriterMemento.getState());
             }
             if (executionContext.getContentDeliveryRuntime().getContentDeliveryConfig().isDefaultSerializationOn()) {
-                fragmentWriterMemento.getState().write(XmlUtil.serialize(rootElement.getChildNodes(), Boolean.parseBoolean(ParameterAccessor.getParameterValue(Filter.CLOSE_EMPTY_ELEMENTS, String.class, "false", executionContext.getContentDeliveryRuntime().getContentDeliveryConfig()))));
+                XmlUtil.serialize(rootElement.getChildNodes(), false, fragmentWriterMemento.getState(), Boolean.parseBoolean(ParameterAccessor.getParameterValue(Filter.CLOSE_EMPTY_ELEMENTS, String.class, "false", executionContext.getContentDeliveryRuntime().getContentDeliveryConfig())));
                 domSerializer.writeEndElement(rootElement, fragmentWriterMemento.getState());
             }
         } catch (IOException e) {
@@ -403,13 +487,7 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
             mementoCaretaker.capture(nestedExecutionContextMemento);
         }
         
-        final Document document = executionContext.get(CACHED_DOCUMENT_BUILDER_TYPED_KEY).newDocument();
-        document.setStrictErrorChecking(false);
-        final Element smooksSessionElement = document.createElementNS(Namespace.SMOOKS_URI, "session");
-        smooksSessionElement.setAttribute("visit", visit);
-        smooksSessionElement.setAttribute("source", SOURCE_SESSION_TYPED_KEY.getName());
-        document.appendChild(smooksSessionElement);
-
+        final Document document = getSessionDocument(visit, executionContext);
         nestedExecutionContextMemento.getState().put(SOURCE_SESSION_TYPED_KEY, rootNodeFragment.unwrap());
         if (writer == null) {
             nestedSmooks.filterSource(nestedExecutionContextMemento.getState(), new DOMSource(document));
@@ -418,6 +496,53 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
         }
     }
     
+    /**
+     * Filter a captured fragment in full, on an async executor thread. See {@link AsyncNestedRuns}.
+     *
+     * @return The nested output.
+     */
+    protected String filterSource(final Document fragmentDocument, final String contentEncoding) {
+        final ExecutionContext nestedExecutionContext = nestedSmooks.createExecutionContext();
+        nestedExecutionContext.setContentEncoding(contentEncoding);
+        final StringWriter writer = new StringWriter();
+        nestedSmooks.filterSource(nestedExecutionContext, new DOMSource(fragmentDocument), new StreamResult(writer));
+
+        return writer.toString();
+    }
+
+    /**
+     * Apply the output of an async nested execution, on the outer execution's thread.
+     */
+    protected void applyOutput(final String output, final Writer outputWriter, final NodeFragment visitedFragment, final ExecutionContext executionContext) {
+        if (action == Action.OUTPUT_TO) {
+            try {
+                outputWriter.write(output);
+            } catch (IOException e) {
+                throw new SmooksException(e);
+            }
+        } else {
+            executionContext.getBeanContext().addBean(bindBeanId, output, visitedFragment);
+        }
+    }
+
+    /**
+     * The session documents only tell the nested Smooks which visit to replay on the node under
+     * {@link #SOURCE_SESSION_TYPED_KEY}, and are never modified, so one document per visit is built per execution
+     * rather than one per nested filter run.
+     */
+    protected Document getSessionDocument(final String visit, final ExecutionContext executionContext) {
+        return executionContext.get(SESSION_DOCUMENTS_TYPED_KEY).computeIfAbsent(visit, sessionVisit -> {
+            final Document document = executionContext.get(CACHED_DOCUMENT_BUILDER_TYPED_KEY).newDocument();
+            document.setStrictErrorChecking(false);
+            final Element smooksSessionElement = document.createElementNS(Namespace.SMOOKS_URI, "session");
+            smooksSessionElement.setAttribute("visit", sessionVisit);
+            smooksSessionElement.setAttribute("source", SOURCE_SESSION_TYPED_KEY.getName());
+            document.appendChild(smooksSessionElement);
+
+            return document;
+        });
+    }
+
     public int getMaxNodeDepth() {
         if (action != null && (action.equals(Action.PREPEND_BEFORE) || action.equals(Action.PREPEND_AFTER))) {
             return Integer.MAX_VALUE;
@@ -431,6 +556,30 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
         return outputStreamResourceOptional.map(CollectionsUtil::toSet).orElseGet(CollectionsUtil::toSet);
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(Boolean async) {
+        this.async = async;
+    }
+
+    public void setAsyncThreads(Integer asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+
+    public int getAsyncMaxInFlight() {
+        return asyncMaxInFlight;
+    }
+
+    public void setAsyncMaxInFlight(Integer asyncMaxInFlight) {
+        this.asyncMaxInFlight = asyncMaxInFlight;
+    }
+
+    public ExecutorService getAsyncExecutorService() {
+        return asyncExecutorService;
+    }
+
     public void setMaxNodeDepth(Integer maxNodeDepth) {
         this.maxNodeDepth = maxNodeDepth;
     }
@@ -473,6 +622,9 @@ public class NestedSmooksVisitor implements BeforeVisitor, AfterVisitor, Produce
     
     @PreDestroy
     public void preDestroy() {
+        if (asyncExecutorService != null) {
+            asyncExecutorService.shutdownNow();
+        }
         if (nestedSmooks != null) {
             nestedSmooks.close();
         }
@@ -82,7 +82,13 @@ import java.nio.charset.StandardCharsets;
  * <li><code>resource</code>: should be a concreate implementation of this class</li>
  * <li><code>resourceName</code>: the name of this resouce. Will be used to identify this resource</li>
  * <li><code>writerEncoding</code>: (Optional) the encoding to be used by any writers opened on this resource (Default is "UTF-8")</li>
+ * <li><code>async</code>: (Optional) write to the resource on a dedicated I/O thread through an {@link AsyncOutputStream} (Default is "false")</li>
+ * <li><code>asyncBufferSize</code>: (Optional) the size of each buffer queued for the I/O thread (Default is "65536")</li>
+ * <li><code>asyncBufferCount</code>: (Optional) the number of buffers queued for the I/O thread (Default is "4")</li>
+ * <li><code>asyncBackpressure</code>: (Optional) "BLOCK" to wait for the I/O thread when every buffer is queued, or "FAIL" to fail the write (Default is "BLOCK")</li>
  * </ul>
+ * An I/O error raised on the dedicated thread is reported as the termination error of the {@link ExecutionContext}
+ * once the resource is closed.
  *
  * @author <a href="mailto:daniel.bevenius@gmail.com">Daniel Bevenius</a>
  *
@@ -98,7 +104,19 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
 
     @Inject
     private Charset writerEncoding = StandardCharsets.UTF_8;
-    
+
+    @Inject
+    private Boolean async = false;
+
+    @Inject
+    private Integer asyncBufferSize = AsyncOutputStream.DEFAULT_BUFFER_SIZE;
+
+    @Inject
+    private Integer asyncBufferCount = AsyncOutputStream.DEFAULT_BUFFER_COUNT;
+
+    @Inject
+    private AsyncOutputStream.Backpressure asyncBackpressure = AsyncOutputStream.Backpressure.BLOCK;
+
     /**
      * Retrieve/create an output stream that is appropriate for the concreate implementation
      *
@@ -107,6 +125,21 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
      */
     public abstract OutputStream getOutputStream(final ExecutionContext executionContext) throws IOException;
 
+    /**
+     * Open the output stream of this resource, wrapped in an {@link AsyncOutputStream} when async mode is enabled.
+     *
+     * @param executionContext Execution Context.
+     * @return OutputStream to write the resource to, or null if {@link #getOutputStream(ExecutionContext)} returns null
+     */
+    public OutputStream openOutputStream(final ExecutionContext executionContext) throws IOException {
+        final OutputStream outputStream = getOutputStream(executionContext);
+        if (outputStream != null && async) {
+            return new AsyncOutputStream(outputStream, asyncBufferSize, asyncBufferCount, asyncBackpressure);
+        } else {
+            return outputStream;
+        }
+    }
+
     /**
      * Get the name of this resource
      *
@@ -142,6 +175,31 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
         return writerEncoding;
     }
 
+    public AbstractOutputStreamResource setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public AbstractOutputStreamResource setAsyncBufferSize(int asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+        return this;
+    }
+
+    public AbstractOutputStreamResource setAsyncBufferCount(int asyncBufferCount) {
+        this.asyncBufferCount = asyncBufferCount;
+        return this;
+    }
+
+    public AbstractOutputStreamResource setAsyncBackpressure(AsyncOutputStream.Backpressure asyncBackpressure) {
+        AssertArgument.isNotNull(asyncBackpressure, "asyncBackpressure");
+        this.asyncBackpressure = asyncBackpressure;
+        return this;
+    }
+
     @Override
     public void visitBefore(final Element element, final ExecutionContext executionContext) throws SmooksException {
         bind(executionContext);
@@ -174,7 +232,7 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
     protected void closeResource(final ExecutionContext executionContext) {
         try {
             Closeable output = executionContext.get(new TypedKey<>(OUTPUTSTREAM_CONTEXT_KEY_PREFIX + getResourceName()));
-            close(output);
+            close(output, executionContext);
         } finally {
             executionContext.remove(new TypedKey<>(OUTPUTSTREAM_CONTEXT_KEY_PREFIX + getResourceName()));
             executionContext.remove(new TypedKey<>(RESOURCE_CONTEXT_KEY_PREFIX + getResourceName()));
@@ -185,7 +243,7 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
         executionContext.put(new TypedKey<>(RESOURCE_CONTEXT_KEY_PREFIX + getResourceName()), this);
     }
 
-    private void close(final Closeable closeable) {
+    private void close(final Closeable closeable, final ExecutionContext executionContext) {
         if (closeable == null) {
             return;
         }
@@ -202,6 +260,9 @@ public abstract class AbstractOutputStreamResource implements DOMVisitBefore, Co
             closeable.close();
         } catch (IOException e) {
             LOGGER.warn("IOException while trying to close output resource '" + resourceName + "': ", e);
+            if (async && executionContext.getTerminationError() == null) {
+                executionContext.setTerminationError(new SmooksException("Failed to write output resource '" + resourceName + "'", e));
+            }
         }
     }
 }
@@ -0,0 +1,283 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link OutputStream} writing to another stream on a dedicated thread.
+ * <p/>
+ * Bytes written to this stream are copied into a bounded ring of reusable buffers which a consumer thread drains into
+ * the underlying stream, so that slow output I/O (e.g., a file on a busy disk or a socket) overlaps with the work done
+ * by the writer (e.g., parsing). When every buffer is waiting to be drained, the writer either blocks or fails fast,
+ * depending on the {@link Backpressure} policy.
+ * <p/>
+ * The thread is started on the first buffer handed off. An exception thrown by the underlying stream is rethrown, as
+ * an {@link IOException}, to the writer on its next write, flush or {@link #close() close}. Closing the stream waits for the buffers
+ * already handed off to be drained before closing the underlying stream.
+ */
+@NotThreadSafe
+public class AsyncOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncOutputStream.class);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Buffer END_OF_STREAM = new Buffer(0);
+
+    /**
+     * What a writer does when every buffer is waiting to be drained.
+     */
+    public enum Backpressure {
+        /**
+         * Wait for the consumer thread to drain a buffer.
+         */
+        BLOCK,
+        /**
+         * Throw an {@link IOException}.
+         */
+        FAIL
+    }
+
+    private final OutputStream outputStream;
+    private final Backpressure backpressure;
+    private final BlockingQueue<Buffer> freeBuffers;
+    private final BlockingQueue<Buffer> filledBuffers;
+    private volatile IOException consumerException;
+    private boolean closed;
+    private Thread consumer;
+    private Buffer buffer;
+
+    public AsyncOutputStream(final OutputStream outputStream) {
+        this(outputStream, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT, Backpressure.BLOCK);
+    }
+
+    public AsyncOutputStream(final OutputStream outputStream, final int bufferSize, final int bufferCount, final Backpressure backpressure) {
+        AssertArgument.isNotNull(outputStream, "outputStream");
+        AssertArgument.isNotNull(backpressure, "backpressure");
+        if (bufferSize < 1 || bufferCount < 1) {
+            throw new IllegalArgumentException("bufferSize and bufferCount must be greater than 0");
+        }
+        this.outputStream = outputStream;
+        this.backpressure = backpressure;
+        freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        // one more slot than buffers for the end-of-stream marker
+        filledBuffers = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(new Buffer(bufferSize));
+        }
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        nextBuffer().bytes[buffer.length++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            final Buffer nextBuffer = nextBuffer();
+            final int count = Math.min(length, nextBuffer.bytes.length - nextBuffer.length);
+            System.arraycopy(bytes, offset, nextBuffer.bytes, nextBuffer.length, count);
+            nextBuffer.length += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Hands off the bytes written so far to the consumer thread. Does not wait for them to be written to the
+     * underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        assertOpen();
+        if (buffer != null && buffer.length > 0) {
+            handOff();
+        }
+    }
+
+    /**
+     * Waits for the bytes written so far to be drained and closes the underlying stream.
+     *
+     * @throws IOException if the underlying stream failed at any point
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (consumerException == null && buffer != null && buffer.length > 0) {
+                handOff();
+            }
+        } finally {
+            closed = true;
+            if (consumer == null) {
+                outputStream.close();
+            } else {
+                try {
+                    filledBuffers.put(END_OF_STREAM);
+                    consumer.join();
+                } catch (InterruptedException e) {
+                    consumer.interrupt();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for output to be written");
+                }
+            }
+        }
+        assertNoConsumerException();
+    }
+
+    /**
+     * Gets the buffer to write to, handing off the current buffer once it is full.
+     */
+    private Buffer nextBuffer() throws IOException {
+        assertOpen();
+        if (buffer != null && buffer.length < buffer.bytes.length) {
+            return buffer;
+        }
+        if (buffer != null) {
+            handOff();
+        }
+        if (backpressure == Backpressure.FAIL) {
+            buffer = freeBuffers.poll();
+            if (buffer == null) {
+                throw new IOException("Output queue is full: " + filledBuffers.size() + " buffers are waiting to be written");
+            }
+        } else {
+            try {
+                buffer = freeBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a free output buffer");
+            }
+        }
+        buffer.length = 0;
+
+        return buffer;
+    }
+
+    private void handOff() throws IOException {
+        if (consumer == null) {
+            consumer = new Thread(new Consumer(), "smooks-async-output-" + THREAD_COUNT.incrementAndGet());
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+        // never blocks: there are fewer buffers than slots in the queue
+        filledBuffers.add(buffer);
+        buffer = null;
+    }
+
+    private void assertOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        assertNoConsumerException();
+    }
+
+    private void assertNoConsumerException() throws IOException {
+        if (consumerException != null) {
+            throw consumerException;
+        }
+    }
+
+    private static class Buffer {
+        private final byte[] bytes;
+        private int length;
+
+        private Buffer(final int size) {
+            bytes = new byte[size];
+        }
+    }
+
+    private class Consumer implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Buffer filledBuffer;
+                while ((filledBuffer = filledBuffers.take()) != END_OF_STREAM) {
+                    if (consumerException == null) {
+                        try {
+                            outputStream.write(filledBuffer.bytes, 0, filledBuffer.length);
+                            if (filledBuffers.isEmpty()) {
+                                outputStream.flush();
+                            }
+                        } catch (Throwable t) {
+                            consumerException = toIOException(t);
+                        }
+                    }
+                    // keep recycling after a failure so that a blocked writer wakes up and sees the exception
+                    freeBuffers.add(filledBuffer);
+                }
+            } catch (InterruptedException e) {
+                // abandoned by the writer
+            } finally {
+                try {
+                    outputStream.close();
+                } catch (Throwable t) {
+                    if (consumerException == null) {
+                        consumerException = toIOException(t);
+                    } else {
+                        LOGGER.debug("Failed to close output stream", t);
+                    }
+                }
+            }
+        }
+
+        private IOException toIOException(final Throwable throwable) {
+            return throwable instanceof IOException ? (IOException) throwable : new IOException("Failed to write output", throwable);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import org.codehaus.stax2.DTDInfo;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Translates the events of an Aalto stream reader into SAX events. The reader is either an {@link AsyncXMLStreamReader}
+ * fed by the caller or a blocking {@link XMLStreamReader}.
+ * <p/>
+ * Attributes are reported with the namespace declarations included as <code>xmlns</code> attributes, as expected
+ * by Smooks content handlers (i.e., <code>namespace-prefixes</code> feature on).
+ */
+public class AsyncSAXEventBridge {
+
+    private final ContentHandler contentHandler;
+    private final LexicalHandler lexicalHandler;
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    public AsyncSAXEventBridge(final ContentHandler contentHandler) {
+        this(contentHandler, contentHandler instanceof LexicalHandler ? (LexicalHandler) contentHandler : null);
+    }
+
+    public AsyncSAXEventBridge(final ContentHandler contentHandler, final LexicalHandler lexicalHandler) {
+        this.contentHandler = contentHandler;
+        this.lexicalHandler = lexicalHandler;
+    }
+
+    /**
+     * Dispatch the events available from the reader until it needs more input.
+     * <p/>
+     * A blocking reader is positioned on the {@link XMLStreamConstants#START_DOCUMENT} event from the outset, which
+     * means that the caller is responsible for reporting the start of the document in that case.
+     *
+     * @param xmlStreamReader The async reader, fed by the caller, or a blocking reader.
+     * @return True if the end of the document was reached, otherwise false.
+     * @throws XMLStreamException Malformed input.
+     * @throws SAXException       Content handler error.
+     */
+    public boolean dispatchEvents(final XMLStreamReader xmlStreamReader) throws XMLStreamException, SAXException {
+        while (xmlStreamReader.hasNext()) {
+            final int event = xmlStreamReader.next();
+            switch (event) {
+                case AsyncXMLStreamReader.EVENT_INCOMPLETE:
+                    return false;
+                case XMLStreamConstants.START_DOCUMENT:
+                    contentHandler.startDocument();
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    startElement(xmlStreamReader);
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                    contentHandler.characters(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.startCDATA();
+                    }
+                    contentHandler.characters(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                    if (lexicalHandler != null) {
+                        lexicalHandler.endCDATA();
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (lexicalHandler != null) {
+                        lexicalHandler.comment(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    contentHandler.processingInstruction(xmlStreamReader.getPITarget(), xmlStreamReader.getPIData());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    contentHandler.endElement(xmlStreamReader.getName().getNamespaceURI(), xmlStreamReader.getName().getLocalPart(), toQName(xmlStreamReader.getName()));
+                    // Aalto reports the declarations of an end element in reverse order
+                    for (int i = xmlStreamReader.getNamespaceCount() - 1; i >= 0; i--) {
+                        contentHandler.endPrefixMapping(nullToEmpty(xmlStreamReader.getNamespacePrefix(i)));
+                    }
+                    break;
+                case XMLStreamConstants.DTD:
+                    if (lexicalHandler != null && xmlStreamReader instanceof DTDInfo) {
+                        final DTDInfo dtdInfo = (DTDInfo) xmlStreamReader;
+                        lexicalHandler.startDTD(dtdInfo.getDTDRootName(), dtdInfo.getDTDPublicId(), dtdInfo.getDTDSystemId());
+                        lexicalHandler.endDTD();
+                    }
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    contentHandler.endDocument();
+                    return true;
+                default:
+                    // whitespace outside the document element is not reported
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private void startElement(final XMLStreamReader xmlStreamReader) throws SAXException {
+        final int namespaceCount = xmlStreamReader.getNamespaceCount();
+        for (int i = 0; i < namespaceCount; i++) {
+            contentHandler.startPrefixMapping(nullToEmpty(xmlStreamReader.getNamespacePrefix(i)), xmlStreamReader.getNamespaceURI(i));
+        }
+        attributes.clear();
+        for (int i = 0, n = xmlStreamReader.getAttributeCount(); i < n; ++i) {
+            final QName attributeName = xmlStreamReader.getAttributeName(i);
+            attributes.addAttribute(attributeName.getNamespaceURI(), attributeName.getLocalPart(), toQName(attributeName), xmlStreamReader.getAttributeType(i), xmlStreamReader.getAttributeValue(i));
+        }
+        for (int i = 0; i < namespaceCount; ++i) {
+            final String prefix = nullToEmpty(xmlStreamReader.getNamespacePrefix(i));
+            if (prefix.isEmpty()) {
+                attributes.addAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, XMLConstants.XMLNS_ATTRIBUTE, XMLConstants.XMLNS_ATTRIBUTE, "CDATA", xmlStreamReader.getNamespaceURI(i));
+            } else {
+                attributes.addAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix, XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix, "CDATA", xmlStreamReader.getNamespaceURI(i));
+            }
+        }
+        final QName name = xmlStreamReader.getName();
+        contentHandler.startElement(name.getNamespaceURI(), name.getLocalPart(), toQName(name), attributes);
+    }
+
+    private static String toQName(final QName name) {
+        if (name.getPrefix() == null || name.getPrefix().isEmpty()) {
+            return name.getLocalPart();
+        } else {
+            return name.getPrefix() + ":" + name.getLocalPart();
+        }
+    }
+
+    private static String nullToEmpty(final String string) {
+        return string == null ? "" : string;
+    }
+}
@@ -0,0 +1,209 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.smooks.assertion.AssertArgument;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Element;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link Writer} buffering the output of a filter execution ahead of the result's writer.
+ * <p/>
+ * The buffer is written out to the result's writer when full, without flushing the result's writer. The result's
+ * writer is flushed on {@link #flush()} and, depending on the {@link FlushPolicy}, once a number of characters were
+ * written or once an interval elapsed since the last flush. Every writer of the execution (e.g.,
+ * {@link FragmentWriter}s) ends up writing to the same buffer, so buffering keeps the output in the order it was
+ * written. Node events are passed on to the result's writer once the buffered text is written out.
+ */
+@NotThreadSafe
+public class BufferedResultWriter extends Writer implements NodeEventWriter {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Writer delegateWriter;
+    private final char[] buffer;
+    private final long flushThreshold;
+    private final long flushIntervalNanos;
+    private int count;
+    private long unflushedCount;
+    private long lastFlushTime;
+
+    /**
+     * @param delegateWriter     the result's writer
+     * @param flushThreshold     number of characters written after which the result's writer is flushed, 0 for none
+     * @param flushIntervalMillis time after which a write flushes the result's writer, 0 for none
+     */
+    public BufferedResultWriter(final Writer delegateWriter, final long flushThreshold, final long flushIntervalMillis) {
+        AssertArgument.isNotNull(delegateWriter, "delegateWriter");
+        this.delegateWriter = delegateWriter;
+        this.flushThreshold = flushThreshold;
+        flushIntervalNanos = flushIntervalMillis * 1_000_000L;
+        buffer = new char[DEFAULT_BUFFER_SIZE];
+        lastFlushTime = flushIntervalNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (char) c;
+        written(1);
+    }
+
+    @Override
+    public void write(final char[] chars, final int offset, final int length) throws IOException {
+        if (length >= buffer.length) {
+            // no point copying through the buffer
+            drain();
+            delegateWriter.write(chars, offset, length);
+        } else {
+            if (length > buffer.length - count) {
+                drain();
+            }
+            System.arraycopy(chars, offset, buffer, count, length);
+            count += length;
+        }
+        written(length);
+    }
+
+    @Override
+    public void write(final String string, final int offset, final int length) throws IOException {
+        if (length >= buffer.length) {
+            drain();
+            delegateWriter.write(string, offset, length);
+        } else {
+            if (length > buffer.length - count) {
+                drain();
+            }
+            string.getChars(offset, offset + length, buffer, count);
+            count += length;
+        }
+        written(length);
+    }
+
+    @Override
+    public Writer append(final CharSequence charSequence) throws IOException {
+        final CharSequence chars = charSequence == null ? "null" : charSequence;
+        return append(chars, 0, chars.length());
+    }
+
+    @Override
+    public Writer append(final CharSequence charSequence, final int start, final int end) throws IOException {
+        if (charSequence == null) {
+            return append("null", start, end);
+        } else if (charSequence instanceof String) {
+            write((String) charSequence, start, end - start);
+        } else {
+            for (int i = start; i < end; i++) {
+                if (count == buffer.length) {
+                    drain();
+                }
+                buffer[count++] = charSequence.charAt(i);
+            }
+            written(end - start);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean acceptsNodeEvents() {
+        return delegateWriter instanceof NodeEventWriter && ((NodeEventWriter) delegateWriter).acceptsNodeEvents();
+    }
+
+    @Override
+    public void writeStartElement(final Element element) throws IOException {
+        drain();
+        ((NodeEventWriter) delegateWriter).writeStartElement(element);
+    }
+
+    @Override
+    public void writeEndElement(final Element element) throws IOException {
+        drain();
+        ((NodeEventWriter) delegateWriter).writeEndElement(element);
+    }
+
+    @Override
+    public void writeCharacterData(final CharacterData characterData) throws IOException {
+        drain();
+        ((NodeEventWriter) delegateWriter).writeCharacterData(characterData);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        delegateWriter.flush();
+        unflushedCount = 0;
+        if (flushIntervalNanos > 0) {
+            lastFlushTime = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        delegateWriter.close();
+    }
+
+    public Writer getDelegateWriter() {
+        return delegateWriter;
+    }
+
+    private void written(final int length) throws IOException {
+        unflushedCount += length;
+        if ((flushThreshold > 0 && unflushedCount >= flushThreshold) || (flushIntervalNanos > 0 && System.nanoTime() - lastFlushTime >= flushIntervalNanos)) {
+            flush();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            delegateWriter.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
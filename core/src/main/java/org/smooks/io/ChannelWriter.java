@@ -0,0 +1,267 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link Writer} encoding characters straight into direct {@link ByteBuffer}s written to a
+ * {@link WritableByteChannel}.
+ * <p/>
+ * Unlike an {@link java.io.OutputStreamWriter}, the writer doesn't lock on every write and encodes through a single
+ * {@link CharsetEncoder} for its lifetime. Output goes to <code>bufferCount</code> buffers which, once all filled (or
+ * on {@link #flush()}), are written to the channel with a single gathering write when the channel is a
+ * {@link GatheringByteChannel} (e.g., file and socket channels). Buffers of the default size are pooled across
+ * writers and returned to the pool on {@link #close()}. The pool is bounded: buffers returned to a full pool are left
+ * to the GC, which frees their off-heap memory.
+ * <p/>
+ * The channel is expected to be in blocking mode.
+ */
+@NotThreadSafe
+public class ChannelWriter extends Writer {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BUFFER_COUNT = 1;
+
+    private static final int MAX_POOLED_BUFFER_COUNT = Runtime.getRuntime().availableProcessors() * 2;
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_BUFFER_COUNT = new AtomicInteger();
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer charBuffer;
+    private final ByteBuffer[] byteBuffers;
+    private int currentByteBuffer;
+    private boolean closed;
+
+    public ChannelWriter(final WritableByteChannel channel, final Charset charset) {
+        this(channel, charset, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    public ChannelWriter(final WritableByteChannel channel, final Charset charset, final int bufferSize, final int bufferCount) {
+        AssertArgument.isNotNull(channel, "channel");
+        AssertArgument.isNotNull(charset, "charset");
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+        }
+        if (bufferCount < 1) {
+            throw new IllegalArgumentException("Buffer count must be at least 1");
+        }
+        this.channel = channel;
+        encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        charBuffer = CharBuffer.allocate(Math.max(16, bufferSize / 4));
+        byteBuffers = new ByteBuffer[bufferCount];
+        for (int i = 0; i < bufferCount; i++) {
+            byteBuffers[i] = borrowBuffer(bufferSize);
+        }
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+        ensureOpen();
+        if (!charBuffer.hasRemaining()) {
+            encode(false);
+        }
+        charBuffer.put((char) c);
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        ensureOpen();
+        int written = 0;
+        while (written < len) {
+            if (!charBuffer.hasRemaining()) {
+                encode(false);
+            }
+            final int length = Math.min(charBuffer.remaining(), len - written);
+            charBuffer.put(cbuf, off + written, length);
+            written += length;
+        }
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        ensureOpen();
+        int written = 0;
+        while (written < len) {
+            if (!charBuffer.hasRemaining()) {
+                encode(false);
+            }
+            final int length = Math.min(charBuffer.remaining(), len - written);
+            charBuffer.put(str, off + written, off + written + length);
+            written += length;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        encode(false);
+        writeByteBuffers();
+    }
+
+    /**
+     * Writes out the buffered output, returns the buffers to the pool and closes the channel.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            encode(true);
+            while (encoder.flush(byteBuffers[currentByteBuffer]).isOverflow()) {
+                nextByteBuffer();
+            }
+            writeByteBuffers();
+        } finally {
+            closed = true;
+            for (ByteBuffer byteBuffer : byteBuffers) {
+                returnBuffer(byteBuffer);
+            }
+            channel.close();
+        }
+    }
+
+    public WritableByteChannel getChannel() {
+        return channel;
+    }
+
+    static int getPooledBufferCount() {
+        return POOLED_BUFFER_COUNT.get();
+    }
+
+    static int getMaxPooledBufferCount() {
+        return MAX_POOLED_BUFFER_COUNT;
+    }
+
+    private void encode(final boolean endOfInput) throws IOException {
+        charBuffer.flip();
+        while (true) {
+            final CoderResult coderResult = encoder.encode(charBuffer, byteBuffers[currentByteBuffer], endOfInput);
+            if (coderResult.isOverflow()) {
+                nextByteBuffer();
+            } else {
+                break;
+            }
+        }
+        // keeps a trailing high surrogate for the next write
+        charBuffer.compact();
+    }
+
+    private void nextByteBuffer() throws IOException {
+        if (currentByteBuffer == byteBuffers.length - 1) {
+            writeByteBuffers();
+        } else {
+            currentByteBuffer++;
+        }
+    }
+
+    private void writeByteBuffers() throws IOException {
+        final int filledCount = currentByteBuffer + 1;
+        long remaining = 0;
+        for (int i = 0; i < filledCount; i++) {
+            byteBuffers[i].flip();
+            remaining += byteBuffers[i].remaining();
+        }
+        if (filledCount > 1 && channel instanceof GatheringByteChannel) {
+            final GatheringByteChannel gatheringByteChannel = (GatheringByteChannel) channel;
+            while (remaining > 0) {
+                remaining -= gatheringByteChannel.write(byteBuffers, 0, filledCount);
+            }
+        } else {
+            for (int i = 0; i < filledCount; i++) {
+                while (byteBuffers[i].hasRemaining()) {
+                    channel.write(byteBuffers[i]);
+                }
+            }
+        }
+        for (int i = 0; i < filledCount; i++) {
+            byteBuffers[i].clear();
+        }
+        currentByteBuffer = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer closed");
+        }
+    }
+
+    private static ByteBuffer borrowBuffer(final int bufferSize) {
+        if (bufferSize == DEFAULT_BUFFER_SIZE) {
+            final ByteBuffer byteBuffer = BUFFER_POOL.poll();
+            if (byteBuffer != null) {
+                POOLED_BUFFER_COUNT.decrementAndGet();
+                return byteBuffer;
+            }
+        }
+        return ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    private static void returnBuffer(final ByteBuffer byteBuffer) {
+        if (byteBuffer.capacity() == DEFAULT_BUFFER_SIZE) {
+            if (POOLED_BUFFER_COUNT.incrementAndGet() <= MAX_POOLED_BUFFER_COUNT) {
+                byteBuffer.clear();
+                BUFFER_POOL.offer(byteBuffer);
+            } else {
+                POOLED_BUFFER_COUNT.decrementAndGet();
+            }
+        }
+    }
+}
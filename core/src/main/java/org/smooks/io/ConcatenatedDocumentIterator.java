@@ -0,0 +1,268 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.smooks.api.SmooksException;
+import org.smooks.io.payload.StringSource;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.transform.Source;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterator} splitting a character stream of concatenated XML documents into one {@link Source} per document.
+ * <p/>
+ * A document ends when its root element is closed. Any prolog (XML declaration, processing instructions, comments
+ * and document type declaration) is kept with the document following it. Whitespace in between documents is
+ * skipped. The split is lexical only: a malformed document is handed out as is and left to the parser to reject.
+ */
+@NotThreadSafe
+public class ConcatenatedDocumentIterator implements Iterator<Source> {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder document = new StringBuilder();
+    private int position;
+    private int limit;
+    private String nextDocument;
+    private boolean endOfInput;
+
+    public ConcatenatedDocumentIterator(final Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextDocument == null && !endOfInput) {
+            try {
+                nextDocument = readDocument();
+            } catch (IOException e) {
+                throw new SmooksException("Failed to read next document", e);
+            }
+        }
+        return nextDocument != null;
+    }
+
+    @Override
+    public Source next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Source source = new StringSource(nextDocument);
+        nextDocument = null;
+
+        return source;
+    }
+
+    private String readDocument() throws IOException {
+        document.setLength(0);
+        int depth = 0;
+        int c;
+        while ((c = read()) != EOF) {
+            if (document.length() == 0 && Character.isWhitespace(c)) {
+                continue;
+            }
+            document.append((char) c);
+            if (c == '<') {
+                c = read();
+                if (c == EOF) {
+                    break;
+                }
+                document.append((char) c);
+                if (c == '?') {
+                    readUntil("?>");
+                } else if (c == '!') {
+                    readMarkupDeclaration();
+                } else if (c == '/') {
+                    readTag();
+                    depth--;
+                    if (depth <= 0) {
+                        return document.toString();
+                    }
+                } else if (readTag()) {
+                    if (depth == 0) {
+                        return document.toString();
+                    }
+                } else {
+                    depth++;
+                }
+            }
+        }
+        endOfInput = true;
+
+        return document.length() > 0 ? document.toString() : null;
+    }
+
+    private void readMarkupDeclaration() throws IOException {
+        if (consume("--", "[CDATA[")) {
+            if (document.charAt(document.length() - 1) == '-') {
+                readUntil("-->");
+            } else {
+                readUntil("]]>");
+            }
+        } else {
+            // DOCTYPE, possibly with an internal subset...
+            int subsetDepth = 0;
+            int quote = 0;
+            int c;
+            while ((c = read()) != EOF) {
+                document.append((char) c);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '[') {
+                    subsetDepth++;
+                } else if (c == ']') {
+                    subsetDepth--;
+                } else if (c == '>' && subsetDepth <= 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the remainder of a start or end tag.
+     *
+     * @return True if the tag is an empty element tag, otherwise false.
+     */
+    private boolean readTag() throws IOException {
+        int quote = 0;
+        int previous = 0;
+        int c;
+        while ((c = read()) != EOF) {
+            document.append((char) c);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return previous == '/';
+            }
+            previous = c;
+        }
+        return false;
+    }
+
+    /**
+     * Peek at the next characters for one of the supplied prefixes, consuming them only if one matches.
+     */
+    private boolean consume(final String... prefixes) throws IOException {
+        for (String prefix : prefixes) {
+            if (fill(prefix.length()) && startsWith(prefix)) {
+                document.append(buffer, position, prefix.length());
+                position += prefix.length();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readUntil(final String terminator) throws IOException {
+        final int terminatorLength = terminator.length();
+        int c;
+        while ((c = read()) != EOF) {
+            document.append((char) c);
+            if (c == terminator.charAt(terminatorLength - 1) && endsWith(terminator)) {
+                return;
+            }
+        }
+    }
+
+    private boolean endsWith(final String terminator) {
+        // the terminator cannot overlap with the 2 characters opening the markup (e.g., "<?>")
+        final int offset = document.length() - terminator.length();
+        if (offset < 2) {
+            return false;
+        }
+        for (int i = 0; i < terminator.length(); i++) {
+            if (document.charAt(offset + i) != terminator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(final String prefix) {
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[position + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill(final int length) throws IOException {
+        if (limit - position >= length) {
+            return true;
+        }
+        System.arraycopy(buffer, position, buffer, 0, limit - position);
+        limit -= position;
+        position = 0;
+        while (limit < length) {
+            final int count = reader.read(buffer, limit, buffer.length - limit);
+            if (count == EOF) {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill(1)) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+}
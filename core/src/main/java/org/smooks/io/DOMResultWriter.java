@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+import org.xml.sax.Attributes;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.xml.XMLConstants;
+
+/**
+ * {@link SAXWriter} building a DOM out of what is written to it, for filtering to a
+ * {@link javax.xml.transform.dom.DOMResult} without serializing the output to text and parsing it back.
+ * <p/>
+ * Nodes are copied to the DOM as they are written while text is parsed once. The DOM is the one a namespace-aware,
+ * non-coalescing {@link javax.xml.parsers.DocumentBuilder} would build from the serialized output.
+ */
+public class DOMResultWriter extends SAXWriter {
+
+    public DOMResultWriter(final Document document) {
+        super(new DOMBuilder(document));
+    }
+
+    public Document getDocument() {
+        return ((DOMBuilder) contentHandler).document;
+    }
+
+    private static final class DOMBuilder extends DefaultHandler2 {
+        private final Document document;
+        private final StringBuilder cdata = new StringBuilder();
+        private Node currentNode;
+        private boolean inCDATA;
+
+        private DOMBuilder(final Document document) {
+            this.document = document;
+            currentNode = document;
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes attributes) {
+            final Element element = document.createElementNS(uri.isEmpty() ? null : uri, qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                final String attributeQName = attributes.getQName(i);
+                if (attributeQName.equals(XMLConstants.XMLNS_ATTRIBUTE) || attributeQName.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                    element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attributeQName, attributes.getValue(i));
+                } else {
+                    final String attributeUri = attributes.getURI(i);
+                    element.setAttributeNS(attributeUri.isEmpty() ? null : attributeUri, attributeQName, attributes.getValue(i));
+                }
+            }
+            currentNode.appendChild(element);
+            currentNode = element;
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) {
+            currentNode = currentNode.getParentNode();
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) {
+            if (inCDATA) {
+                cdata.append(ch, start, length);
+            } else if (currentNode != document) {
+                final Node lastChild = currentNode.getLastChild();
+                if (lastChild != null && lastChild.getNodeType() == Node.TEXT_NODE) {
+                    ((Text) lastChild).appendData(new String(ch, start, length));
+                } else {
+                    currentNode.appendChild(document.createTextNode(new String(ch, start, length)));
+                }
+            }
+        }
+
+        @Override
+        public void startCDATA() {
+            inCDATA = true;
+        }
+
+        @Override
+        public void endCDATA() {
+            inCDATA = false;
+            currentNode.appendChild(document.createCDATASection(cdata.toString()));
+            cdata.setLength(0);
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) {
+            currentNode.appendChild(document.createComment(new String(ch, start, length)));
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) {
+            currentNode.appendChild(document.createProcessingInstruction(target, data));
+        }
+    }
+}
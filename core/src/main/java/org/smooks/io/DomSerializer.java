@@ -56,8 +56,8 @@ import java.io.Writer;
  */
 public class DomSerializer {
 
-	private final Boolean closeEmptyElements;
-	private final Boolean rewriteEntities;
+	private final boolean closeEmptyElements;
+	private final boolean rewriteEntities;
 
 	public DomSerializer(Boolean closeEmptyElements, Boolean rewriteEntities) {
 		this.closeEmptyElements = closeEmptyElements;
@@ -72,9 +72,13 @@ public class DomSerializer {
 	 * @see org.smooks.serialize.SerializationUnit#writeElementStart(org.w3c.dom.Element, java.io.Writer)
 	 */
 	public void writeStartElement(Element element, Writer writer) throws IOException {
+		if (acceptsNodeEvents(writer)) {
+			((NodeEventWriter) writer).writeStartElement(element);
+			return;
+		}
 		writer.write('<');
 		writer.write(element.getTagName());
-		writeAttributes(element.getAttributes(), writer);
+		writeAttributes(element, writer);
 		if (closeEmptyElements && !element.hasChildNodes()) {
 			// Do nothing.  We'll close it "short-hand" in writeElementEnd below...
 		} else {
@@ -82,6 +86,20 @@ public class DomSerializer {
 		}
 	}
 
+	/**
+	 * Write the element attributes.
+	 * <p/>
+	 * Hands {@link #writeAttributes(NamedNodeMap, Writer)} a shared empty map when the element has no attributes
+	 * rather than having the DOM create an attribute map for the element.
+	 *
+	 * @param element The element.
+	 * @param writer  The writer to be written to.
+	 * @throws IOException Exception writing output.
+	 */
+	public void writeAttributes(Element element, Writer writer) throws IOException {
+		writeAttributes(element.hasAttributes() ? element.getAttributes() : EmptyNamedNodeMap.INSTANCE, writer);
+	}
+
 	/**
 	 * Write the element attributes.
 	 *
@@ -103,7 +121,7 @@ public class DomSerializer {
 
 			if (rewriteEntities) {
 				writer.write('\"');
-				XmlUtil.encodeAttributeValue(attribValue.toCharArray(), 0, attribValue.length(), writer);
+				XmlUtil.encodeAttributeValue(attribValue, writer);
 				writer.write('\"');
 			} else {
 				if (attribValue.indexOf('"') != -1) {
@@ -119,7 +137,9 @@ public class DomSerializer {
 	 * @see org.smooks.serialize.SerializationUnit#writeElementEnd(org.w3c.dom.Element, java.io.Writer)
 	 */
 	public void writeEndElement(Element element, Writer writer) throws IOException {
-		if (closeEmptyElements && !element.hasChildNodes()) {
+		if (acceptsNodeEvents(writer)) {
+			((NodeEventWriter) writer).writeEndElement(element);
+		} else if (closeEmptyElements && !element.hasChildNodes()) {
 			writer.write("/>");
 		} else {
 			writer.write("</");
@@ -128,6 +148,26 @@ public class DomSerializer {
 		}
 	}
 	
+	/**
+	 * Write an element having no content as an empty-element tag, whatever the <code>closeEmptyElements</code>
+	 * setting.
+	 *
+	 * @param element The element.
+	 * @param writer  The writer to be written to.
+	 * @throws IOException Exception writing output.
+	 */
+	public void writeEmptyElement(Element element, Writer writer) throws IOException {
+		if (acceptsNodeEvents(writer)) {
+			((NodeEventWriter) writer).writeStartElement(element);
+			((NodeEventWriter) writer).writeEndElement(element);
+		} else {
+			writer.write('<');
+			writer.write(element.getTagName());
+			writeAttributes(element, writer);
+			writer.write("/>");
+		}
+	}
+
 	public void writeCharacterData(final Node node, final Writer writer) throws IOException {
 		switch (node.getNodeType()) {
 			case Node.CDATA_SECTION_NODE: {
@@ -143,9 +183,11 @@ public class DomSerializer {
 				break;
 			}
 			case Node.TEXT_NODE: {
-				if (rewriteEntities) {
+				if (acceptsNodeEvents(writer)) {
+					((NodeEventWriter) writer).writeCharacterData((Text) node);
+				} else if (rewriteEntities) {
 					String textString = ((Text) node).getData();
-					XmlUtil.encodeTextValue(textString.toCharArray(), 0, textString.length(), writer);
+					XmlUtil.encodeTextValue(textString, writer);
 				} else {
 					writer.write(((Text) node).getData());
 				}
@@ -161,6 +203,10 @@ public class DomSerializer {
 	 * @see org.smooks.serialize.SerializationUnit#writeElementComment(org.w3c.dom.Comment, java.io.Writer)
 	 */
 	public void writeElementComment(Comment comment, Writer writer) throws IOException {
+		if (acceptsNodeEvents(writer)) {
+			((NodeEventWriter) writer).writeCharacterData(comment);
+			return;
+		}
 		writer.write("<!--");
 		writer.write(comment.getData());
 		writer.write("-->");
@@ -179,6 +225,10 @@ public class DomSerializer {
 	 * @see org.smooks.serialize.SerializationUnit#writeElementCDATA(org.w3c.dom.CDATASection, java.io.Writer)
 	 */
 	public void writeElementCDATA(CDATASection cdata, Writer writer) throws IOException {
+		if (acceptsNodeEvents(writer)) {
+			((NodeEventWriter) writer).writeCharacterData(cdata);
+			return;
+		}
 		writer.write("<![CDATA[");
 		writer.write(cdata.getData());
 		writer.write("]]>");
@@ -191,4 +241,53 @@ public class DomSerializer {
 	public Boolean getRewriteEntities() {
 		return rewriteEntities;
 	}
+
+	private static boolean acceptsNodeEvents(Writer writer) {
+		return writer instanceof NodeEventWriter && ((NodeEventWriter) writer).acceptsNodeEvents();
+	}
+
+	private static final class EmptyNamedNodeMap implements NamedNodeMap {
+
+		private static final NamedNodeMap INSTANCE = new EmptyNamedNodeMap();
+
+		@Override
+		public Node getNamedItem(String name) {
+			return null;
+		}
+
+		@Override
+		public Node setNamedItem(Node arg) throws DOMException {
+			throw new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, "Read-only attributes");
+		}
+
+		@Override
+		public Node removeNamedItem(String name) throws DOMException {
+			throw new DOMException(DOMException.NOT_FOUND_ERR, name);
+		}
+
+		@Override
+		public Node item(int index) {
+			return null;
+		}
+
+		@Override
+		public int getLength() {
+			return 0;
+		}
+
+		@Override
+		public Node getNamedItemNS(String namespaceURI, String localName) {
+			return null;
+		}
+
+		@Override
+		public Node setNamedItemNS(Node arg) throws DOMException {
+			throw new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR, "Read-only attributes");
+		}
+
+		@Override
+		public Node removeNamedItemNS(String namespaceURI, String localName) throws DOMException {
+			throw new DOMException(DOMException.NOT_FOUND_ERR, localName);
+		}
+	}
 }
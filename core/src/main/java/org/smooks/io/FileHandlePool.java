@@ -0,0 +1,306 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pool of open file handles, bounded to a maximum number of open files.
+ * <p/>
+ * {@link #open(Path) Opening} a file already open in the pool reuses its handle, so that output split into many
+ * fragments targeting the same file does not reopen the file for each fragment. Once the pool is full, opening another
+ * file closes the least recently opened one. A file closed this way is reopened in append mode should it be opened
+ * again, whereas a file opened for the first time is truncated.
+ * <p/>
+ * Each handle buffers writes in a buffer allocated with a fixed size when the file is opened. The buffer is written to
+ * the file when it is full or when the handle is closed, that is, when the handle is evicted from the pool or when the
+ * {@link #close() pool is closed}.
+ * <p/>
+ * Optionally, a file can be rolled once it reaches a maximum size: the next time the file is opened, output goes to a
+ * new file named after the original file with an index appended to its base name (e.g., <code>orders-1.xml</code>,
+ * <code>orders-2.xml</code>). A file is only rolled when it is opened, so the content written between two openings is
+ * never split across files.
+ */
+@NotThreadSafe
+public class FileHandlePool implements Closeable {
+
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileHandlePool.class);
+
+    private final int maxOpenFiles;
+    private final int bufferSize;
+    private final long maxFileSize;
+    // iterates from the least recently opened handle
+    private final LinkedHashMap<Path, FileHandle> fileHandles = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Path> closedFiles = new HashSet<>();
+    private final Map<Path, Integer> rollIndexes = new HashMap<>();
+    private Path lastDirectory;
+
+    public FileHandlePool() {
+        this(DEFAULT_MAX_OPEN_FILES, DEFAULT_BUFFER_SIZE, 0);
+    }
+
+    /**
+     * @param maxOpenFiles the maximum number of files kept open
+     * @param bufferSize   the size of the buffer of each handle
+     * @param maxFileSize  the size from which a file is rolled, or 0 to never roll files
+     */
+    public FileHandlePool(final int maxOpenFiles, final int bufferSize, final long maxFileSize) {
+        if (maxOpenFiles < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("maxOpenFiles and bufferSize must be greater than 0");
+        }
+        if (maxFileSize < 0) {
+            throw new IllegalArgumentException("maxFileSize must not be negative");
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        this.bufferSize = bufferSize;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Opens a stream to a file, creating the file and its parent directories if needed.
+     * <p/>
+     * Closing the returned stream leaves the file open in the pool. Flushing the stream is a no-op: bytes are written
+     * to the file as described in the {@link FileHandlePool class documentation}.
+     *
+     * @param path the file to open
+     * @return a stream appending to the file, or to the file it rolled to
+     * @throws IOException if the file cannot be opened, or if a file evicted to make room for it cannot be closed
+     */
+    public OutputStream open(final Path path) throws IOException {
+        AssertArgument.isNotNull(path, "path");
+        final Integer rollIndex = rollIndexes.get(path);
+        Path file = rollIndex == null ? path : getRolledPath(path, rollIndex);
+        FileHandle fileHandle = acquire(file);
+        if (maxFileSize > 0 && fileHandle.size >= maxFileSize) {
+            release(file);
+            final int nextRollIndex = rollIndex == null ? 1 : rollIndex + 1;
+            rollIndexes.put(path, nextRollIndex);
+            file = getRolledPath(path, nextRollIndex);
+            fileHandle = acquire(file);
+        }
+
+        return new FileHandleOutputStream(file, fileHandle);
+    }
+
+    /**
+     * Gets the number of files currently open.
+     *
+     * @return the number of open files
+     */
+    public int getOpenFileCount() {
+        return fileHandles.size();
+    }
+
+    /**
+     * Closes every open file.
+     *
+     * @throws IOException the first failure to write or close a file. The other files are closed regardless.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException closeException = null;
+        for (FileHandle fileHandle : fileHandles.values()) {
+            try {
+                fileHandle.close();
+            } catch (IOException e) {
+                if (closeException == null) {
+                    closeException = e;
+                } else {
+                    LOGGER.debug("Failed to close file", e);
+                }
+            }
+        }
+        fileHandles.clear();
+        closedFiles.clear();
+        rollIndexes.clear();
+        if (closeException != null) {
+            throw closeException;
+        }
+    }
+
+    private FileHandle acquire(final Path file) throws IOException {
+        FileHandle fileHandle = fileHandles.get(file);
+        if (fileHandle == null) {
+            final Path directory = file.toAbsolutePath().getParent();
+            if (directory != null && !directory.equals(lastDirectory)) {
+                Files.createDirectories(directory);
+                lastDirectory = directory;
+            }
+            final boolean append = closedFiles.remove(file);
+            final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+            fileHandle = new FileHandle(fileChannel, append ? fileChannel.size() : 0);
+            fileHandles.put(file, fileHandle);
+            if (fileHandles.size() > maxOpenFiles) {
+                final Iterator<Map.Entry<Path, FileHandle>> iterator = fileHandles.entrySet().iterator();
+                final Map.Entry<Path, FileHandle> eldest = iterator.next();
+                iterator.remove();
+                closedFiles.add(eldest.getKey());
+                eldest.getValue().close();
+            }
+        }
+
+        return fileHandle;
+    }
+
+    private void release(final Path file) throws IOException {
+        final FileHandle fileHandle = fileHandles.remove(file);
+        closedFiles.add(file);
+        fileHandle.close();
+    }
+
+    private static Path getRolledPath(final Path path, final int rollIndex) {
+        final String fileName = path.getFileName().toString();
+        final int extensionIndex = fileName.lastIndexOf('.');
+        final String rolledFileName;
+        if (extensionIndex > 0) {
+            rolledFileName = fileName.substring(0, extensionIndex) + "-" + rollIndex + fileName.substring(extensionIndex);
+        } else {
+            rolledFileName = fileName + "-" + rollIndex;
+        }
+
+        return path.resolveSibling(rolledFileName);
+    }
+
+    private class FileHandle {
+        private final FileChannel fileChannel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        private long size;
+
+        private FileHandle(final FileChannel fileChannel, final long size) {
+            this.fileChannel = fileChannel;
+            this.size = size;
+        }
+
+        private void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length > buffer.remaining()) {
+                drain();
+                if (length > buffer.capacity()) {
+                    final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
+                    while (byteBuffer.hasRemaining()) {
+                        fileChannel.write(byteBuffer);
+                    }
+                    size += length;
+                    return;
+                }
+            }
+            buffer.put(bytes, offset, length);
+            size += length;
+        }
+
+        private boolean isOpen() {
+            return fileChannel.isOpen();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                fileChannel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                fileChannel.close();
+            }
+        }
+    }
+
+    private class FileHandleOutputStream extends OutputStream {
+        private final Path file;
+        private final byte[] singleByte = new byte[1];
+        private FileHandle fileHandle;
+        private boolean closed;
+
+        private FileHandleOutputStream(final Path file, final FileHandle fileHandle) {
+            this.file = file;
+            this.fileHandle = fileHandle;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            singleByte[0] = (byte) b;
+            write(singleByte, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (!fileHandle.isOpen()) {
+                // evicted while this stream was in use
+                fileHandle = acquire(file);
+            }
+            fileHandle.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.api.SmooksException;
+import org.smooks.api.TypedKey;
+import org.smooks.assertion.AssertArgument;
+import org.smooks.support.FreeMarkerTemplate;
+import org.smooks.support.FreeMarkerUtils;
+
+import jakarta.annotation.PostConstruct;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+/**
+ * File output resource, writing each fragment to a file named from the bean context.
+ * <p/>
+ * The file name and destination directory are FreeMarker templates applied to the beans of the
+ * {@link ExecutionContext} (merged with the DOM model, see {@link FreeMarkerUtils#getMergedModel(ExecutionContext)}).
+ * Files are opened through a {@link FileHandlePool} per execution, which keeps a bounded number of files open and
+ * buffers writes to each of them: fragments targeting a file already open are appended to it without reopening the
+ * file, and every file is closed once the execution ends.
+ * <p/>
+ * Example configuration:
+ * <pre>
+ * &lt;resource-config selector="order"&gt;
+ *    &lt;resource&gt;org.smooks.io.FileOutputStreamResource&lt;/resource&gt;
+ *    &lt;param name="resourceName"&gt;orderSplitStream&lt;/param&gt;
+ *    &lt;param name="fileNamePattern"&gt;order-${order.id}.xml&lt;/param&gt;
+ *    &lt;param name="destinationDirectoryPattern"&gt;target/orders/${order.customer}&lt;/param&gt; &lt;!-- Optional --&gt;
+ *    &lt;param name="maxOpenFiles"&gt;256&lt;/param&gt; &lt;!-- Optional --&gt;
+ *    &lt;param name="bufferSize"&gt;16384&lt;/param&gt; &lt;!-- Optional --&gt;
+ *    &lt;param name="maxFileSize"&gt;104857600&lt;/param&gt; &lt;!-- Optional --&gt;
+ * &lt;/resource-config&gt;
+ * </pre>
+ *
+ * Description of configuration properties:
+ * <ul>
+ * <li><code>fileNamePattern</code>: FreeMarker template of the name of the file to write to</li>
+ * <li><code>destinationDirectoryPattern</code>: (Optional) FreeMarker template of the directory to write to (Default is the working directory)</li>
+ * <li><code>maxOpenFiles</code>: (Optional) the maximum number of files kept open at once (Default is "64")</li>
+ * <li><code>bufferSize</code>: (Optional) the size of the write buffer of each open file (Default is "8192")</li>
+ * <li><code>maxFileSize</code>: (Optional) the size in bytes from which a file is rolled over to a new file, or "0" to never roll files (Default is "0")</li>
+ * </ul>
+ * The properties of {@link AbstractOutputStreamResource} also apply, except <code>async</code>: the open files are
+ * shared by the fragments of an execution and must be written by the filtering thread.
+ */
+public class FileOutputStreamResource extends AbstractOutputStreamResource {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileOutputStreamResource.class);
+
+    private final TypedKey<FileHandlePool> fileHandlePoolTypedKey = new TypedKey<>();
+
+    @Inject
+    private String fileNamePattern;
+
+    @Inject
+    private String destinationDirectoryPattern = ".";
+
+    @Inject
+    private Integer maxOpenFiles = FileHandlePool.DEFAULT_MAX_OPEN_FILES;
+
+    @Inject
+    private Integer bufferSize = FileHandlePool.DEFAULT_BUFFER_SIZE;
+
+    @Inject
+    private Long maxFileSize = 0L;
+
+    private volatile FreeMarkerTemplate fileNameTemplate;
+    private volatile FreeMarkerTemplate destinationDirectoryTemplate = new FreeMarkerTemplate(destinationDirectoryPattern);
+
+    @PostConstruct
+    public void postConstruct() {
+        if (isAsync()) {
+            throw new SmooksConfigException("Output resource '" + getResourceName() + "' does not support 'async'");
+        }
+        fileNameTemplate = new FreeMarkerTemplate(fileNamePattern);
+        destinationDirectoryTemplate = new FreeMarkerTemplate(destinationDirectoryPattern);
+    }
+
+    @Override
+    public OutputStream getOutputStream(final ExecutionContext executionContext) throws IOException {
+        final Map<String, Object> model = FreeMarkerUtils.getMergedModel(executionContext);
+        final Path file = Paths.get(destinationDirectoryTemplate.apply(model), fileNameTemplate.apply(model));
+
+        return getFileHandlePool(executionContext).open(file);
+    }
+
+    @Override
+    public void executeExecutionLifecycleCleanup(final ExecutionContext executionContext) {
+        super.executeExecutionLifecycleCleanup(executionContext);
+        final FileHandlePool fileHandlePool = executionContext.get(fileHandlePoolTypedKey);
+        if (fileHandlePool != null) {
+            executionContext.remove(fileHandlePoolTypedKey);
+            try {
+                fileHandlePool.close();
+            } catch (IOException e) {
+                LOGGER.warn("IOException while trying to close files of output resource '" + getResourceName() + "': ", e);
+                if (executionContext.getTerminationError() == null) {
+                    executionContext.setTerminationError(new SmooksException("Failed to write output resource '" + getResourceName() + "'", e));
+                }
+            }
+        }
+    }
+
+    public String getFileNamePattern() {
+        return fileNamePattern;
+    }
+
+    public FileOutputStreamResource setFileNamePattern(final String fileNamePattern) {
+        AssertArgument.isNotNullAndNotEmpty(fileNamePattern, "fileNamePattern");
+        this.fileNamePattern = fileNamePattern;
+        fileNameTemplate = new FreeMarkerTemplate(fileNamePattern);
+        return this;
+    }
+
+    public String getDestinationDirectoryPattern() {
+        return destinationDirectoryPattern;
+    }
+
+    public FileOutputStreamResource setDestinationDirectoryPattern(final String destinationDirectoryPattern) {
+        AssertArgument.isNotNullAndNotEmpty(destinationDirectoryPattern, "destinationDirectoryPattern");
+        this.destinationDirectoryPattern = destinationDirectoryPattern;
+        destinationDirectoryTemplate = new FreeMarkerTemplate(destinationDirectoryPattern);
+        return this;
+    }
+
+    /**
+     * Not supported: the {@link FileHandlePool} of an execution is not thread-safe.
+     *
+     * @throws SmooksConfigException <code>async</code> is true.
+     */
+    @Override
+    public AbstractOutputStreamResource setAsync(final boolean async) {
+        if (async) {
+            throw new SmooksConfigException("Output resource '" + getResourceName() + "' does not support 'async'");
+        }
+        return super.setAsync(false);
+    }
+
+    public FileOutputStreamResource setMaxOpenFiles(final int maxOpenFiles) {
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    public FileOutputStreamResource setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public FileOutputStreamResource setMaxFileSize(final long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    private FileHandlePool getFileHandlePool(final ExecutionContext executionContext) {
+        FileHandlePool fileHandlePool = executionContext.get(fileHandlePoolTypedKey);
+        if (fileHandlePool == null) {
+            fileHandlePool = new FileHandlePool(maxOpenFiles, bufferSize, maxFileSize);
+            executionContext.put(fileHandlePoolTypedKey, fileHandlePool);
+        }
+
+        return fileHandlePool;
+    }
+}
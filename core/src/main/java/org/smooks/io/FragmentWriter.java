@@ -44,11 +44,13 @@ package org.smooks.io;
 
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.delivery.fragment.Fragment;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Element;
 
 import java.io.IOException;
 import java.io.Writer;
 
-public class FragmentWriter extends Writer {
+public class FragmentWriter extends Writer implements NodeEventWriter {
 
     public static final long RESERVED_WRITE_FRAGMENT_ID = 0L;
     
@@ -75,6 +77,62 @@ public class FragmentWriter extends Writer {
         }
     }
 
+    @Override
+    public void write(int c) throws IOException {
+        if (park()) {
+            delegateWriter.write(c);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (park()) {
+            delegateWriter.write(str, off, len);
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        if (park()) {
+            delegateWriter.append(csq, start, end);
+        }
+        return this;
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        if (park()) {
+            delegateWriter.append(csq);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean acceptsNodeEvents() {
+        return delegateWriter instanceof NodeEventWriter && ((NodeEventWriter) delegateWriter).acceptsNodeEvents();
+    }
+
+    @Override
+    public void writeStartElement(Element element) throws IOException {
+        if (park()) {
+            ((NodeEventWriter) delegateWriter).writeStartElement(element);
+        }
+    }
+
+    @Override
+    public void writeEndElement(Element element) throws IOException {
+        if (park()) {
+            ((NodeEventWriter) delegateWriter).writeEndElement(element);
+        }
+    }
+
+    @Override
+    public void writeCharacterData(CharacterData characterData) throws IOException {
+        if (park()) {
+            ((NodeEventWriter) delegateWriter).writeCharacterData(characterData);
+        }
+    }
+
     @Override
     public void flush() throws IOException {
         delegateWriter.flush();
@@ -0,0 +1,256 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link InputStream} reading a file through memory mappings of consecutive windows of the file.
+ * <p/>
+ * Reads copy straight from the mapped pages into the caller's buffer, sparing the intermediate copy and the
+ * <code>read</code> system calls of a {@link java.io.FileInputStream}. Only one window is mapped at a time: moving on
+ * to the next window, and {@link #close() closing} the stream, unmaps the current one without waiting for the GC
+ * (when the JVM allows it). The file is opened on the first read.
+ */
+@NotThreadSafe
+public class MappedFileInputStream extends InputStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileInputStream.class);
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final File file;
+    private final long windowSize;
+    private FileChannel fileChannel;
+    private long fileSize;
+    private MappedByteBuffer window;
+    private long windowPosition;
+    private long markPosition;
+    private boolean closed;
+
+    public MappedFileInputStream(final File file, final long windowSize) {
+        AssertArgument.isNotNull(file, "file");
+        if (windowSize < 1 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.file = file;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextWindow() ? window.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextWindow()) {
+            return -1;
+        }
+        final int count = Math.min(length, window.remaining());
+        window.get(bytes, offset, count);
+
+        return count;
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+        if (count <= 0 || !nextWindow()) {
+            return 0;
+        }
+        final long position = getPosition();
+        final long skipped = Math.min(count, fileSize - position);
+        seek(position + skipped);
+
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (!nextWindow()) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, fileSize - getPosition());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(final int readLimit) {
+        markPosition = getPosition();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        assertOpen();
+        seek(markPosition);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            unmapWindow();
+            if (fileChannel != null) {
+                fileChannel.close();
+            }
+        }
+    }
+
+    private long getPosition() {
+        return window != null ? windowPosition + window.position() : windowPosition;
+    }
+
+    private void seek(final long position) throws IOException {
+        if (window != null && position >= windowPosition && position <= windowPosition + window.limit()) {
+            window.position((int) (position - windowPosition));
+        } else {
+            unmapWindow();
+            windowPosition = position;
+        }
+    }
+
+    /**
+     * Maps the window holding the current position, unless the current window still has bytes left.
+     *
+     * @return false if the end of the file was reached
+     */
+    private boolean nextWindow() throws IOException {
+        assertOpen();
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (fileChannel == null) {
+            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            fileSize = fileChannel.size();
+        }
+
+        final long position = getPosition();
+        unmapWindow();
+        windowPosition = position;
+        if (position >= fileSize) {
+            return false;
+        }
+        window = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, fileSize - position));
+
+        return true;
+    }
+
+    private void unmapWindow() {
+        if (window != null) {
+            windowPosition += window.position();
+            final MappedByteBuffer unmappedWindow = window;
+            window = null;
+            UNMAPPER.unmap(unmappedWindow);
+        }
+    }
+
+    private void assertOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed: " + file);
+        }
+    }
+
+    /**
+     * Releases a mapping ahead of the GC through the JVM internals available: <code>Unsafe.invokeCleaner</code> from
+     * Java 9 onwards, or the buffer's cleaner in Java 8. Falls back to leaving the mapping to the GC.
+     */
+    private static class Unmapper {
+
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Unmapper(final Object unsafe, final Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        private static Unmapper create() {
+            try {
+                final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Unmapper(theUnsafe.get(null), invokeCleaner);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Java 8: the cleaner is looked up on the buffer itself
+                return new Unmapper(null, null);
+            }
+        }
+
+        private void unmap(final MappedByteBuffer mappedByteBuffer) {
+            try {
+                if (invokeCleaner != null) {
+                    invokeCleaner.invoke(unsafe, mappedByteBuffer);
+                } else {
+                    final Method cleaner = mappedByteBuffer.getClass().getMethod("cleaner");
+                    cleaner.setAccessible(true);
+                    final Object cleanerInstance = cleaner.invoke(mappedByteBuffer);
+                    if (cleanerInstance != null) {
+                        cleanerInstance.getClass().getMethod("clean").invoke(cleanerInstance);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.debug("Unable to unmap buffer. Leaving it to the GC.", e);
+            }
+        }
+    }
+}
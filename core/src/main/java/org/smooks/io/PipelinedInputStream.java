@@ -0,0 +1,241 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.smooks.assertion.AssertArgument;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link InputStream} reading ahead from another stream on a dedicated thread.
+ * <p/>
+ * The producer thread fills a bounded ring of reusable buffers while the consumer reads from the buffers already
+ * filled, so that expensive work done by the underlying stream (e.g., decompression) overlaps with the work done by
+ * the consumer (e.g., parsing). The producer blocks once every buffer is filled, which bounds memory use.
+ * <p/>
+ * The thread is started on the first read. An exception thrown by the underlying stream is rethrown to the consumer
+ * once the data read before it is consumed, so that a failed stream is never mistaken for a complete one.
+ * {@link #close() Closing} the stream closes the underlying stream, which unblocks a producer waiting on it, and stops
+ * the producer.
+ */
+@NotThreadSafe
+public class PipelinedInputStream extends InputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedInputStream.class);
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final Buffer END_OF_STREAM = new Buffer(0);
+
+    private final InputStream inputStream;
+    private final BlockingQueue<Buffer> freeBuffers;
+    private final BlockingQueue<Buffer> filledBuffers;
+    private volatile Throwable producerException;
+    private volatile boolean closed;
+    private Thread producer;
+    private Buffer buffer;
+
+    public PipelinedInputStream(final InputStream inputStream) {
+        this(inputStream, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    public PipelinedInputStream(final InputStream inputStream, final int bufferSize, final int bufferCount) {
+        AssertArgument.isNotNull(inputStream, "inputStream");
+        if (bufferSize < 1 || bufferCount < 1) {
+            throw new IllegalArgumentException("bufferSize and bufferCount must be greater than 0");
+        }
+        this.inputStream = inputStream;
+        freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        // one more slot than buffers for the end-of-stream marker
+        filledBuffers = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(new Buffer(bufferSize));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return nextBuffer() ? buffer.bytes[buffer.position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!nextBuffer()) {
+            return -1;
+        }
+        final int count = Math.min(length, buffer.length - buffer.position);
+        System.arraycopy(buffer.bytes, buffer.position, bytes, offset, count);
+        buffer.position += count;
+
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        assertOpen();
+        return buffer != null && buffer != END_OF_STREAM ? buffer.length - buffer.position : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (producer != null) {
+                producer.interrupt();
+            }
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Moves on to the next filled buffer once the current one is consumed.
+     *
+     * @return false on end of stream
+     */
+    private boolean nextBuffer() throws IOException {
+        assertOpen();
+        if (buffer != null && buffer.position < buffer.length) {
+            return true;
+        }
+        if (buffer == END_OF_STREAM) {
+            return endOfStream();
+        }
+        if (producer == null) {
+            producer = new Thread(new Producer(), "smooks-pipelined-input-" + THREAD_COUNT.incrementAndGet());
+            producer.setDaemon(true);
+            producer.start();
+        }
+        if (buffer != null) {
+            freeBuffers.add(buffer);
+        }
+        try {
+            buffer = filledBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            buffer = null;
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+        if (buffer == END_OF_STREAM) {
+            return endOfStream();
+        }
+
+        return true;
+    }
+
+    private boolean endOfStream() throws IOException {
+        final Throwable throwable = producerException;
+        if (throwable == null) {
+            return false;
+        } else if (throwable instanceof IOException) {
+            throw (IOException) throwable;
+        } else if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        } else {
+            throw new IOException(throwable);
+        }
+    }
+
+    private void assertOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static class Buffer {
+        private final byte[] bytes;
+        private int length;
+        private int position;
+
+        private Buffer(final int size) {
+            bytes = new byte[size];
+        }
+    }
+
+    private class Producer implements Runnable {
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    final Buffer freeBuffer = freeBuffers.take();
+                    freeBuffer.position = 0;
+                    freeBuffer.length = 0;
+                    int count = 0;
+                    while (freeBuffer.length < freeBuffer.bytes.length && (count = inputStream.read(freeBuffer.bytes, freeBuffer.length, freeBuffer.bytes.length - freeBuffer.length)) != -1) {
+                        freeBuffer.length += count;
+                    }
+                    if (freeBuffer.length > 0) {
+                        filledBuffers.put(freeBuffer);
+                    }
+                    if (count == -1) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed by the consumer
+            } catch (Throwable t) {
+                producerException = t;
+            } finally {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to close input stream", e);
+                }
+                filledBuffers.offer(END_OF_STREAM);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.smooks.api.SmooksException;
+import org.smooks.assertion.AssertArgument;
+import org.smooks.io.payload.StringSource;
+import org.smooks.support.XmlUtil;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterator} cutting an XML document made of repeating records into one standalone {@link Source} per record.
+ * <p/>
+ * A record is an element matching one of the record selectors. A selector is an element name (e.g.,
+ * <code>article</code>) or a path of element names (e.g., <code>dblp/article</code>) matched against the trailing
+ * part of the element's path. Names are local names: prefixes are ignored. Records nested within a record are part of
+ * the enclosing record.
+ * <p/>
+ * The namespaces in scope at the record are declared on the record element so that the fragment stands on its own.
+ * With ancestor context on, the record is also wrapped in the start and end tags of its ancestors, attributes
+ * included. Entities are resolved by the {@link XMLStreamReader}, which must be configured to replace entity
+ * references (see {@link javax.xml.stream.XMLInputFactory#IS_REPLACING_ENTITY_REFERENCES}), and the text is
+ * re-escaped in the fragment.
+ * <p/>
+ * The {@link XMLStreamReader}, and the input it reads from if supplied, are closed at the end of the document, when
+ * reading a record fails, and on {@link #close()}, e.g., when the caller stops iterating early.
+ */
+@NotThreadSafe
+public class RecordFragmentIterator implements Iterator<Source>, AutoCloseable {
+
+    private final XMLStreamReader xmlStreamReader;
+    private final Closeable input;
+    private final boolean ancestorContext;
+    private final String[][] recordSelectors;
+    private final Deque<Ancestor> ancestors = new ArrayDeque<>();
+    private String nextRecord;
+    private boolean endOfDocument;
+    private boolean closed;
+
+    public RecordFragmentIterator(final XMLStreamReader xmlStreamReader, final boolean ancestorContext, final String... recordSelectors) {
+        this(xmlStreamReader, null, ancestorContext, recordSelectors);
+    }
+
+    /**
+     * @param input The input read by the {@link XMLStreamReader}, closed along with it. May be <code>null</code>.
+     */
+    public RecordFragmentIterator(final XMLStreamReader xmlStreamReader, final Closeable input, final boolean ancestorContext, final String... recordSelectors) {
+        AssertArgument.isNotNull(xmlStreamReader, "xmlStreamReader");
+        AssertArgument.isNotNullAndNotEmpty(recordSelectors, "recordSelectors");
+        this.xmlStreamReader = xmlStreamReader;
+        this.input = input;
+        this.ancestorContext = ancestorContext;
+        this.recordSelectors = new String[recordSelectors.length][];
+        for (int i = 0; i < recordSelectors.length; i++) {
+            this.recordSelectors[i] = recordSelectors[i].trim().split("/");
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRecord == null && !endOfDocument) {
+            try {
+                nextRecord = readRecord();
+            } catch (XMLStreamException | IOException e) {
+                final SmooksException smooksException = new SmooksException("Failed to read next record", e);
+                try {
+                    close();
+                } catch (SmooksException closeException) {
+                    smooksException.addSuppressed(closeException);
+                }
+                throw smooksException;
+            }
+        }
+        return nextRecord != null;
+    }
+
+    @Override
+    public Source next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Source source = new StringSource(nextRecord);
+        nextRecord = null;
+
+        return source;
+    }
+
+    /**
+     * Close the {@link XMLStreamReader} and the input, if supplied. Further calls to {@link #hasNext()} return false.
+     *
+     * @throws SmooksException Failed to close the reader or the input.
+     */
+    @Override
+    public void close() throws SmooksException {
+        endOfDocument = true;
+        nextRecord = null;
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            xmlStreamReader.close();
+        } catch (XMLStreamException e) {
+            throw new SmooksException("Failed to close document", e);
+        } finally {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    throw new SmooksException("Failed to close document input", e);
+                }
+            }
+        }
+    }
+
+    private String readRecord() throws XMLStreamException, IOException {
+        while (xmlStreamReader.hasNext()) {
+            final int event = xmlStreamReader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isRecord()) {
+                    return writeRecord();
+                } else {
+                    ancestors.push(new Ancestor(xmlStreamReader, ancestorContext));
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                ancestors.pop();
+            }
+        }
+        close();
+
+        return null;
+    }
+
+    private boolean isRecord() {
+        final String localName = xmlStreamReader.getLocalName();
+        for (String[] recordSelector : recordSelectors) {
+            if (recordSelector[recordSelector.length - 1].equals(localName) && recordSelector.length - 1 <= ancestors.size()) {
+                final Iterator<Ancestor> ancestorIterator = ancestors.iterator();
+                boolean matches = true;
+                for (int i = recordSelector.length - 2; i >= 0 && matches; i--) {
+                    matches = recordSelector[i].equals(ancestorIterator.next().localName);
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String writeRecord() throws XMLStreamException, IOException {
+        final StringWriter fragmentWriter = new StringWriter();
+        final Iterator<Ancestor> outermostFirst = ancestors.descendingIterator();
+        if (ancestorContext) {
+            while (outermostFirst.hasNext()) {
+                fragmentWriter.write(outermostFirst.next().startTag);
+            }
+            writeStartTag(fragmentWriter, null);
+        } else {
+            final Map<String, String> namespaces = new LinkedHashMap<>();
+            while (outermostFirst.hasNext()) {
+                final List<String[]> namespaceDeclarations = outermostFirst.next().namespaceDeclarations;
+                for (String[] namespaceDeclaration : namespaceDeclarations) {
+                    namespaces.put(namespaceDeclaration[0], namespaceDeclaration[1]);
+                }
+            }
+            writeStartTag(fragmentWriter, namespaces);
+        }
+
+        int depth = 1;
+        while (depth > 0) {
+            switch (xmlStreamReader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    writeStartTag(fragmentWriter, null);
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writeEndTag(fragmentWriter, xmlStreamReader.getPrefix(), xmlStreamReader.getLocalName());
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    XmlUtil.encodeTextValue(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength(), fragmentWriter);
+                    break;
+                case XMLStreamConstants.CDATA:
+                    fragmentWriter.write("<![CDATA[");
+                    fragmentWriter.write(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                    fragmentWriter.write("]]>");
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    fragmentWriter.write("<!--");
+                    fragmentWriter.write(xmlStreamReader.getText());
+                    fragmentWriter.write("-->");
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    fragmentWriter.write("<?");
+                    fragmentWriter.write(xmlStreamReader.getPITarget());
+                    if (xmlStreamReader.getPIData() != null && !xmlStreamReader.getPIData().isEmpty()) {
+                        fragmentWriter.write(' ');
+                        fragmentWriter.write(xmlStreamReader.getPIData());
+                    }
+                    fragmentWriter.write("?>");
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    // the entity would be undeclared in the standalone fragment
+                    throw new XMLStreamException("Unresolved entity reference '&" + xmlStreamReader.getLocalName() + ";' inside record: entity references must be replaced by the XMLStreamReader", xmlStreamReader.getLocation());
+                case XMLStreamConstants.END_DOCUMENT:
+                    throw new XMLStreamException("Unexpected end of document inside record");
+                default:
+                    break;
+            }
+        }
+
+        if (ancestorContext) {
+            for (Ancestor ancestor : ancestors) {
+                writeEndTag(fragmentWriter, ancestor.prefix, ancestor.localName);
+            }
+        }
+
+        return fragmentWriter.toString();
+    }
+
+    /**
+     * Write the start tag of the current element, declaring the supplied in-scope namespaces unless the element
+     * re-declares them.
+     */
+    private void writeStartTag(final StringWriter writer, final Map<String, String> inScopeNamespaces) throws IOException {
+        writer.write('<');
+        writeQName(writer, xmlStreamReader.getPrefix(), xmlStreamReader.getLocalName());
+        if (inScopeNamespaces != null) {
+            for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+                inScopeNamespaces.remove(nullToEmpty(xmlStreamReader.getNamespacePrefix(i)));
+            }
+            for (Map.Entry<String, String> namespace : inScopeNamespaces.entrySet()) {
+                writeNamespaceDeclaration(writer, namespace.getKey(), namespace.getValue());
+            }
+        }
+        for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+            writeNamespaceDeclaration(writer, nullToEmpty(xmlStreamReader.getNamespacePrefix(i)), nullToEmpty(xmlStreamReader.getNamespaceURI(i)));
+        }
+        for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            writer.write(' ');
+            writeQName(writer, xmlStreamReader.getAttributePrefix(i), xmlStreamReader.getAttributeLocalName(i));
+            writer.write("=\"");
+            final String value = xmlStreamReader.getAttributeValue(i);
+            XmlUtil.encodeAttributeValue(value, writer);
+            writer.write('"');
+        }
+        writer.write('>');
+    }
+
+    private static void writeNamespaceDeclaration(final StringWriter writer, final String prefix, final String namespaceURI) throws IOException {
+        writer.write(prefix.isEmpty() ? " xmlns=\"" : " xmlns:" + prefix + "=\"");
+        XmlUtil.encodeAttributeValue(namespaceURI, writer);
+        writer.write('"');
+    }
+
+    private static void writeEndTag(final StringWriter writer, final String prefix, final String localName) {
+        writer.write("</");
+        writeQName(writer, prefix, localName);
+        writer.write('>');
+    }
+
+    private static void writeQName(final StringWriter writer, final String prefix, final String localName) {
+        if (prefix != null && !prefix.isEmpty()) {
+            writer.write(prefix);
+            writer.write(':');
+        }
+        writer.write(localName);
+    }
+
+    private static String nullToEmpty(final String string) {
+        return string == null ? "" : string;
+    }
+
+    private class Ancestor {
+        private final String prefix;
+        private final String localName;
+        private final List<String[]> namespaceDeclarations = new ArrayList<>();
+        private final String startTag;
+
+        private Ancestor(final XMLStreamReader xmlStreamReader, final boolean captureStartTag) throws IOException {
+            prefix = xmlStreamReader.getPrefix();
+            localName = xmlStreamReader.getLocalName();
+            for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+                namespaceDeclarations.add(new String[]{nullToEmpty(xmlStreamReader.getNamespacePrefix(i)), nullToEmpty(xmlStreamReader.getNamespaceURI(i))});
+            }
+            if (captureStartTag) {
+                final StringWriter startTagWriter = new StringWriter();
+                writeStartTag(startTagWriter, null);
+                startTag = startTagWriter.toString();
+            } else {
+                startTag = null;
+            }
+        }
+    }
+}
@@ -101,7 +101,7 @@ public class ResourceOutputStream extends OutputStream {
         }
 
         try {
-            return resource.getOutputStream(executionContext);
+            return resource.openOutputStream(executionContext);
         } catch (IOException e) {
             throw new SmooksException("Unable to set outputstream for '" + resource.getResourceName() + "'.", e);
         }
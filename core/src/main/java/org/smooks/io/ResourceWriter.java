@@ -46,9 +46,12 @@ import org.smooks.api.SmooksException;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.TypedKey;
 
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.smooks.io.AbstractOutputStreamResource.OUTPUTSTREAM_CONTEXT_KEY_PREFIX;
 import static org.smooks.io.AbstractOutputStreamResource.RESOURCE_CONTEXT_KEY_PREFIX;
@@ -56,12 +59,35 @@ import static org.smooks.io.AbstractOutputStreamResource.RESOURCE_CONTEXT_KEY_PR
 public class ResourceWriter extends Writer {
     
     private final String resourceName;
+    private final ExecutionContext executionContext;
     private Writer delegateWriter;
     
     public ResourceWriter(final ExecutionContext executionContext, final String resourceName) {
         this.resourceName = resourceName;
+        this.executionContext = executionContext;
         this.delegateWriter = getOutputWriter(resourceName, executionContext);
     }
+
+    /**
+     * Register a listener to be run just before the resource is closed, e.g., to write output still pending for it.
+     * A listener registered more than once on the same resource is run once.
+     *
+     * @param closeListener The listener.
+     * @throws SmooksException The resource is not bound to the context.
+     */
+    public void addCloseListener(final Runnable closeListener) throws SmooksException {
+        if (delegateWriter == null) {
+            throw new SmooksException("OutputResource '" + resourceName + "' not bound to context.  Configure an '" + AbstractOutputStreamResource.class.getName() + "' implementation, or change resource ordering.");
+        }
+        if (!(delegateWriter instanceof CloseListeningWriter)) {
+            delegateWriter = new CloseListeningWriter(delegateWriter);
+            executionContext.put(new TypedKey<>(OUTPUTSTREAM_CONTEXT_KEY_PREFIX + resourceName), delegateWriter);
+        }
+        final List<Runnable> closeListeners = ((CloseListeningWriter) delegateWriter).closeListeners;
+        if (!closeListeners.contains(closeListener)) {
+            closeListeners.add(closeListener);
+        }
+    }
     
     @Override
     public void write(char[] cbuf, int off, int len) throws IOException {
@@ -124,7 +150,7 @@ public class ResourceWriter extends Writer {
     protected OutputStream openOutputStream(AbstractOutputStreamResource resource, ExecutionContext executionContext) {
         if (resource != null) {
             try {
-                return resource.getOutputStream(executionContext);
+                return resource.openOutputStream(executionContext);
             } catch (IOException e) {
                 throw new SmooksException("Unable to set outputstream for '" + resource.getResourceName() + "'.", e);
             }
@@ -136,4 +162,24 @@ public class ResourceWriter extends Writer {
     public Writer getDelegateWriter() {
         return delegateWriter;
     }
+
+    private static final class CloseListeningWriter extends FilterWriter {
+        private final List<Runnable> closeListeners = new ArrayList<>();
+
+        private CloseListeningWriter(final Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                for (Runnable closeListener : new ArrayList<>(closeListeners)) {
+                    closeListener.run();
+                }
+            } finally {
+                closeListeners.clear();
+                super.close();
+            }
+        }
+    }
 }
@@ -46,23 +46,56 @@ import com.fasterxml.aalto.AsyncByteArrayFeeder;
 import com.fasterxml.aalto.AsyncXMLStreamReader;
 import com.fasterxml.aalto.stax.InputFactoryImpl;
 import org.smooks.api.SmooksException;
+import org.smooks.support.XmlUtil;
+import org.w3c.dom.Attr;
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Comment;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
 import org.xml.sax.ext.LexicalHandler;
 import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.XMLConstants;
-import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 
-public class SAXWriter extends Writer {
+/**
+ * {@link Writer} turning what is written to it into SAX events for a {@link ContentHandler}.
+ * <p/>
+ * Nodes written through the {@link NodeEventWriter} methods are reported to the content handler as they are. Text is
+ * parsed with an Aalto async parser. Both can be interleaved: the parser is told about the elements opened from nodes
+ * before it parses text nested in them, without the content handler being notified twice.
+ * <p/>
+ * A writer reports a single document: {@link #close()} ends it and releases the parser, so a new writer is needed for
+ * the next document.
+ */
+public class SAXWriter extends Writer implements NodeEventWriter {
     protected static final InputFactoryImpl ASYNC_XML_INPUT_FACTORY;
 
     protected final ContentHandler contentHandler;
     protected final AsyncXMLStreamReader<AsyncByteArrayFeeder> asyncXMLStreamReader;
     protected final LexicalHandler lexicalHandler;
+    protected final AsyncSAXEventBridge asyncSAXEventBridge;
+
+    private final AttributesImpl attributes = new AttributesImpl();
+    private final Deque<OpenElement> openElements = new ArrayDeque<>();
+    private char[] characters = new char[256];
+    private byte[] bytes = new byte[1024];
+    private char highSurrogate;
+    private boolean documentStarted;
+    private boolean documentEnded;
+    private boolean parserFed;
+    private boolean priming;
 
     static {
         ASYNC_XML_INPUT_FACTORY = new InputFactoryImpl();
@@ -73,65 +106,70 @@ public class SAXWriter extends Writer {
         this.contentHandler = contentHandler;
         lexicalHandler = contentHandler instanceof LexicalHandler ? (LexicalHandler) contentHandler : null;
         asyncXMLStreamReader = ASYNC_XML_INPUT_FACTORY.createAsyncForByteArray();
+        asyncSAXEventBridge = new AsyncSAXEventBridge(new ParserEventHandler());
     }
     
     @Override
     public void write(final char[] cbuf, final int off, final int len) throws IOException {
         try {
-            asyncXMLStreamReader.getInputFeeder().feedInput(new String(cbuf).getBytes(), off, len);
-            while (true) {
-                int event = asyncXMLStreamReader.next();
-                if (AsyncXMLStreamReader.EVENT_INCOMPLETE == event) {
-                    break;
+            primeParser();
+            parse(cbuf, off, len);
+        } catch (SAXException | XMLStreamException e) {
+            throw new SmooksException(e);
+        }
+    }
+
+    @Override
+    public boolean acceptsNodeEvents() {
+        return true;
+    }
+
+    @Override
+    public void writeStartElement(final Element element) throws IOException {
+        try {
+            startDocument();
+            final NamedNodeMap elementAttributes = element.getAttributes();
+            final int attributeCount = elementAttributes.getLength();
+            attributes.clear();
+            for (int i = 0; i < attributeCount; i++) {
+                final Attr attr = (Attr) elementAttributes.item(i);
+                if (!isNamespaceDeclaration(attr)) {
+                    attributes.addAttribute(nullToEmpty(attr.getNamespaceURI()), attr.getLocalName() == null ? attr.getName() : attr.getLocalName(), attr.getName(), "CDATA", attr.getValue());
+                }
+            }
+            // namespace declarations are reported after the attributes like AsyncSAXEventBridge does
+            for (int i = 0; i < attributeCount; i++) {
+                final Attr attr = (Attr) elementAttributes.item(i);
+                if (isNamespaceDeclaration(attr)) {
+                    final String prefix = getDeclaredPrefix(attr);
+                    contentHandler.startPrefixMapping(prefix, attr.getValue());
+                    attributes.addAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : prefix, attr.getName(), "CDATA", attr.getValue());
+                }
+            }
+            contentHandler.startElement(nullToEmpty(element.getNamespaceURI()), getLocalName(element), element.getTagName(), attributes);
+            openElements.push(new OpenElement(element));
+        } catch (SAXException e) {
+            throw new SmooksException(e);
+        }
+    }
+
+    @Override
+    public void writeEndElement(final Element element) throws IOException {
+        try {
+            final OpenElement openElement = openElements.peek();
+            if (openElement != null && openElement.element == element) {
+                openElements.pop();
+                if (openElement.primed) {
+                    prime("</" + element.getTagName() + ">");
                 }
-                switch (event) {
-                    case XMLStreamConstants.START_DOCUMENT:
-                        contentHandler.startDocument();
-                        break;
-                    case XMLStreamConstants.START_ELEMENT:
-                        for (int i = 0; i < asyncXMLStreamReader.getNamespaceCount(); i++) {
-                            contentHandler.startPrefixMapping(asyncXMLStreamReader.getNamespacePrefix(i), asyncXMLStreamReader.getNamespaceURI(i));
-                        }
-                        final AttributesImpl saxAttributes = new AttributesImpl();
-                        for (int i = 0, n = asyncXMLStreamReader.getAttributeCount(); i < n; ++i) {
-                            saxAttributes.addAttribute(asyncXMLStreamReader.getAttributeName(i).getNamespaceURI(), asyncXMLStreamReader.getAttributeName(i).getLocalPart(), asyncXMLStreamReader.getAttributeName(i).getPrefix() + ":" + asyncXMLStreamReader.getAttributeName(i).getLocalPart(), asyncXMLStreamReader.getAttributeType(i), asyncXMLStreamReader.getAttributeValue(i));
-                        }
-                        for (int i = 0, n = asyncXMLStreamReader.getNamespaceCount(); i < n; ++i) {
-                            saxAttributes.addAttribute(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, asyncXMLStreamReader.getNamespacePrefix(i), XMLConstants.XMLNS_ATTRIBUTE + ":" + asyncXMLStreamReader.getNamespacePrefix(i), "CDATA", asyncXMLStreamReader.getNamespaceURI(i));
-                        }
-                        if (asyncXMLStreamReader.getName().getNamespaceURI().equals(XMLConstants.NULL_NS_URI)) {
-                            contentHandler.startElement(asyncXMLStreamReader.getName().getNamespaceURI(), asyncXMLStreamReader.getName().getLocalPart(), asyncXMLStreamReader.getName().getLocalPart(), saxAttributes);
-                        } else {
-                            contentHandler.startElement(asyncXMLStreamReader.getName().getNamespaceURI(), asyncXMLStreamReader.getName().getLocalPart(), asyncXMLStreamReader.getName().getPrefix() + ":" + asyncXMLStreamReader.getName().getLocalPart(), saxAttributes);
-                        }
-                        break;
-                    case XMLStreamConstants.CHARACTERS:
-                        contentHandler.characters(asyncXMLStreamReader.getText().toCharArray(), asyncXMLStreamReader.getTextStart(), asyncXMLStreamReader.getTextLength());
-                        break;
-                    case XMLStreamConstants.CDATA:
-                        if (lexicalHandler != null) {
-                            lexicalHandler.startCDATA();
-                        }
-                        contentHandler.characters(asyncXMLStreamReader.getText().toCharArray(), asyncXMLStreamReader.getTextStart(), asyncXMLStreamReader.getTextLength());
-                        if (lexicalHandler != null) {
-                            lexicalHandler.endCDATA();
-                        }
-                        break;
-                    case XMLStreamConstants.END_ELEMENT:
-                        if (asyncXMLStreamReader.getName().getNamespaceURI().equals(XMLConstants.NULL_NS_URI)) {
-                            contentHandler.endElement(asyncXMLStreamReader.getName().getNamespaceURI(), asyncXMLStreamReader.getName().getLocalPart(), asyncXMLStreamReader.getName().getLocalPart());
-                        } else {
-                            contentHandler.endElement(asyncXMLStreamReader.getName().getNamespaceURI(), asyncXMLStreamReader.getName().getLocalPart(), asyncXMLStreamReader.getName().getPrefix() + ":" + asyncXMLStreamReader.getName().getLocalPart());
-                        }
-                        for (int i = 0; i < asyncXMLStreamReader.getNamespaceCount(); i++) {
-                            contentHandler.endPrefixMapping(asyncXMLStreamReader.getNamespacePrefix(i));
-                        }
-                        break;
-                    case XMLStreamConstants.END_DOCUMENT:
-                        contentHandler.endDocument();
-                        break;
-                    default:
-                        throw new UnsupportedOperationException();
+            }
+            contentHandler.endElement(nullToEmpty(element.getNamespaceURI()), getLocalName(element), element.getTagName());
+            final NamedNodeMap elementAttributes = element.getAttributes();
+            // in declaration order like AsyncSAXEventBridge does
+            for (int i = 0; i < elementAttributes.getLength(); i++) {
+                final Attr attr = (Attr) elementAttributes.item(i);
+                if (isNamespaceDeclaration(attr)) {
+                    contentHandler.endPrefixMapping(getDeclaredPrefix(attr));
                 }
             }
         } catch (SAXException | XMLStreamException e) {
@@ -139,17 +177,309 @@ public class SAXWriter extends Writer {
         }
     }
 
+    @Override
+    public void writeCharacterData(final CharacterData characterData) throws IOException {
+        try {
+            startDocument();
+            final String data = characterData.getData();
+            final int length = data.length();
+            if (characters.length < length) {
+                characters = new char[Math.max(length, characters.length * 2)];
+            }
+            data.getChars(0, length, characters, 0);
+            if (characterData instanceof Comment) {
+                if (lexicalHandler != null) {
+                    lexicalHandler.comment(characters, 0, length);
+                }
+            } else if (characterData instanceof CDATASection) {
+                if (lexicalHandler != null) {
+                    lexicalHandler.startCDATA();
+                }
+                contentHandler.characters(characters, 0, length);
+                if (lexicalHandler != null) {
+                    lexicalHandler.endCDATA();
+                }
+            } else {
+                contentHandler.characters(characters, 0, length);
+            }
+        } catch (SAXException e) {
+            throw new SmooksException(e);
+        }
+    }
+
     @Override
     public void flush() throws IOException {
 
     }
 
+    /**
+     * Reports the end of the document to the content handler, if the document was started and the end was not
+     * reported yet, and releases the parser.
+     */
     @Override
     public void close() throws IOException {
         try {
+            if (documentStarted && !documentEnded) {
+                if (parserFed) {
+                    asyncXMLStreamReader.getInputFeeder().endOfInput();
+                    asyncSAXEventBridge.dispatchEvents(asyncXMLStreamReader);
+                }
+                if (!documentEnded) {
+                    documentEnded = true;
+                    contentHandler.endDocument();
+                }
+            }
             asyncXMLStreamReader.close();
-        } catch (XMLStreamException e) {
+        } catch (XMLStreamException | SAXException e) {
             throw new IOException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Releases the parser without reporting the end of the document to the content handler, e.g., because writing the
+     * document failed. A later {@link #close()} does not report it either.
+     */
+    public void abort() {
+        documentEnded = true;
+        try {
+            asyncXMLStreamReader.close();
+        } catch (XMLStreamException e) {
+            // the document is abandoned anyway
+        }
+    }
+
+    private void startDocument() throws SAXException {
+        if (!documentStarted) {
+            documentStarted = true;
+            contentHandler.startDocument();
+        }
+    }
+
+    /**
+     * Feeds the parser the start tags of the elements opened from nodes since the parser last saw text so that the
+     * text about to be parsed is nested in them. The resulting events were already reported and so are dropped.
+     */
+    private void primeParser() throws XMLStreamException, SAXException, IOException {
+        OpenElement firstUnprimed = null;
+        for (final OpenElement openElement : openElements) {
+            if (openElement.primed) {
+                break;
+            }
+            firstUnprimed = openElement;
+        }
+        if (firstUnprimed != null) {
+            final StringWriter startTags = new StringWriter();
+            for (final Iterator<OpenElement> iterator = openElements.descendingIterator(); iterator.hasNext(); ) {
+                final OpenElement openElement = iterator.next();
+                if (!openElement.primed) {
+                    writeStartTag(openElement.element, startTags);
+                    openElement.primed = true;
+                }
+            }
+            prime(startTags.toString());
+        }
+    }
+
+    private void prime(final String markup) throws XMLStreamException, SAXException {
+        priming = true;
+        try {
+            parse(markup.toCharArray(), 0, markup.length());
+        } finally {
+            priming = false;
+        }
+    }
+
+    private void writeStartTag(final Element element, final Writer writer) throws IOException {
+        writer.write('<');
+        writer.write(element.getTagName());
+        final NamedNodeMap elementAttributes = element.getAttributes();
+        boolean prefixDeclared = element.getNamespaceURI() == null;
+        final String prefix = element.getPrefix() == null ? "" : element.getPrefix();
+        for (int i = 0; i < elementAttributes.getLength(); i++) {
+            final Attr attr = (Attr) elementAttributes.item(i);
+            if (isNamespaceDeclaration(attr)) {
+                prefixDeclared |= getDeclaredPrefix(attr).equals(prefix);
+                writeNamespaceDeclaration(attr.getName(), attr.getValue(), writer);
+            }
+        }
+        if (!prefixDeclared) {
+            writeNamespaceDeclaration(prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix, element.getNamespaceURI(), writer);
+        }
+        writer.write('>');
+    }
+
+    private void writeNamespaceDeclaration(final String name, final String value, final Writer writer) throws IOException {
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+        XmlUtil.encodeAttributeValue(value, writer);
+        writer.write('"');
+    }
+
+    /**
+     * Encodes the characters to UTF-8, the parser's default encoding, and dispatches the events they complete.
+     */
+    private void parse(final char[] cbuf, final int off, final int len) throws XMLStreamException, SAXException {
+        if (bytes.length < (len + 1) * 3) {
+            bytes = new byte[(len + 1) * 3];
+        }
+        int byteCount = 0;
+        for (int i = off; i < off + len; i++) {
+            final char c = cbuf[i];
+            if (highSurrogate != 0) {
+                final int codePoint = Character.isLowSurrogate(c) ? Character.toCodePoint(highSurrogate, c) : '?';
+                highSurrogate = 0;
+                if (codePoint == '?') {
+                    bytes[byteCount++] = '?';
+                } else {
+                    bytes[byteCount++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[byteCount++] = (byte) (0x80 | (codePoint & 0x3F));
+                    continue;
+                }
+            }
+            if (c < 0x80) {
+                bytes[byteCount++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[byteCount++] = (byte) (0xC0 | (c >> 6));
+                bytes[byteCount++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                // completed by the next char, possibly in the next write
+                highSurrogate = c;
+            } else {
+                bytes[byteCount++] = (byte) (0xE0 | (c >> 12));
+                bytes[byteCount++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[byteCount++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (byteCount > 0) {
+            parserFed = true;
+            asyncXMLStreamReader.getInputFeeder().feedInput(bytes, 0, byteCount);
+            asyncSAXEventBridge.dispatchEvents(asyncXMLStreamReader);
+        }
+    }
+
+    private static boolean isNamespaceDeclaration(final Attr attr) {
+        final String name = attr.getName();
+        return name.startsWith(XMLConstants.XMLNS_ATTRIBUTE) && (name.length() == XMLConstants.XMLNS_ATTRIBUTE.length() || name.charAt(XMLConstants.XMLNS_ATTRIBUTE.length()) == ':');
+    }
+
+    private static String getDeclaredPrefix(final Attr attr) {
+        final String name = attr.getName();
+        return name.length() == XMLConstants.XMLNS_ATTRIBUTE.length() ? "" : name.substring(XMLConstants.XMLNS_ATTRIBUTE.length() + 1);
+    }
+
+    private static String getLocalName(final Element element) {
+        return element.getLocalName() == null ? element.getTagName() : element.getLocalName();
+    }
+
+    private static String nullToEmpty(final String string) {
+        return string == null ? "" : string;
+    }
+
+    private static final class OpenElement {
+        private final Element element;
+        private boolean primed;
+
+        private OpenElement(final Element element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * Relays the parser's events to the content handler, except for those reported from nodes already.
+     */
+    private final class ParserEventHandler extends DefaultHandler2 {
+
+        @Override
+        public void startDocument() throws SAXException {
+            SAXWriter.this.startDocument();
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            if (!priming) {
+                documentEnded = true;
+                contentHandler.endDocument();
+            }
+        }
+
+        @Override
+        public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+            if (!priming) {
+                contentHandler.startPrefixMapping(prefix, uri);
+            }
+        }
+
+        @Override
+        public void endPrefixMapping(final String prefix) throws SAXException {
+            if (!priming) {
+                contentHandler.endPrefixMapping(prefix);
+            }
+        }
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName, final Attributes atts) throws SAXException {
+            if (!priming) {
+                contentHandler.startElement(uri, localName, qName, atts);
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (!priming) {
+                contentHandler.endElement(uri, localName, qName);
+            }
+        }
+
+        @Override
+        public void characters(final char[] ch, final int start, final int length) throws SAXException {
+            if (!priming) {
+                contentHandler.characters(ch, start, length);
+            }
+        }
+
+        @Override
+        public void processingInstruction(final String target, final String data) throws SAXException {
+            if (!priming) {
+                contentHandler.processingInstruction(target, data);
+            }
+        }
+
+        @Override
+        public void startDTD(final String name, final String publicId, final String systemId) throws SAXException {
+            if (!priming && lexicalHandler != null) {
+                lexicalHandler.startDTD(name, publicId, systemId);
+            }
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            if (!priming && lexicalHandler != null) {
+                lexicalHandler.endDTD();
+            }
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            if (!priming && lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            if (!priming && lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        }
+
+        @Override
+        public void comment(final char[] ch, final int start, final int length) throws SAXException {
+            if (!priming && lexicalHandler != null) {
+                lexicalHandler.comment(ch, start, length);
+            }
+        }
+    }
+}
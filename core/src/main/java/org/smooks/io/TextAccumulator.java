@@ -0,0 +1,220 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Accumulates text in memory up to a threshold, and in a temporary file beyond it.
+ * <p/>
+ * Meant for {@link org.smooks.api.resource.visitor.sax.ng.TextChunkVisitor}s needing the whole text of an element
+ * which may be too large to hold in memory: append each chunk as it is visited and {@link #getReader() read} the
+ * text back once the element ends. Appending is linear in the length of the text. {@link #close() Closing} the
+ * accumulator deletes the temporary file.
+ */
+@NotThreadSafe
+public class TextAccumulator implements Appendable, Closeable {
+
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TextAccumulator.class);
+
+    private final int memoryThreshold;
+    private final StringBuilder stringBuilder = new StringBuilder();
+    private Path spillFile;
+    private Writer spillWriter;
+    private long length;
+
+    public TextAccumulator() {
+        this(DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * @param memoryThreshold the number of characters held in memory before the text is spilled to a temporary file
+     */
+    public TextAccumulator(final int memoryThreshold) {
+        if (memoryThreshold < 0) {
+            throw new IllegalArgumentException("memoryThreshold must not be negative");
+        }
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public TextAccumulator append(final CharSequence text) throws IOException {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public TextAccumulator append(final CharSequence text, final int start, final int end) throws IOException {
+        if (spillWriter == null && stringBuilder.length() + (end - start) > memoryThreshold) {
+            spill();
+        }
+        if (spillWriter == null) {
+            stringBuilder.append(text, start, end);
+        } else {
+            spillWriter.append(text, start, end);
+        }
+        length += end - start;
+
+        return this;
+    }
+
+    public TextAccumulator append(final char[] text, final int offset, final int count) throws IOException {
+        if (spillWriter == null && stringBuilder.length() + count > memoryThreshold) {
+            spill();
+        }
+        if (spillWriter == null) {
+            stringBuilder.append(text, offset, count);
+        } else {
+            spillWriter.write(text, offset, count);
+        }
+        length += count;
+
+        return this;
+    }
+
+    @Override
+    public TextAccumulator append(final char c) throws IOException {
+        return append(String.valueOf(c));
+    }
+
+    /**
+     * Gets the number of characters accumulated.
+     *
+     * @return the length of the text
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Gets whether the text has been spilled to a temporary file.
+     *
+     * @return true if the text is held in a temporary file
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Opens a reader over the text accumulated so far.
+     *
+     * @return a reader of the text, to be closed by the caller
+     * @throws IOException if the temporary file cannot be read
+     */
+    public Reader getReader() throws IOException {
+        if (spillWriter == null) {
+            return new StringReader(stringBuilder.toString());
+        } else {
+            spillWriter.flush();
+            return Files.newBufferedReader(spillFile, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Gets the whole text, reading it back from the temporary file if it was spilled.
+     *
+     * @return the text accumulated so far
+     * @throws UncheckedIOException if the temporary file cannot be read
+     */
+    @Override
+    public String toString() {
+        if (spillWriter == null) {
+            return stringBuilder.toString();
+        }
+        final StringBuilder text = new StringBuilder((int) Math.min(length, Integer.MAX_VALUE - 8));
+        final char[] buffer = new char[8192];
+        try (Reader reader = getReader()) {
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, count);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Discards the text, deleting the temporary file if any.
+     */
+    @Override
+    public void close() throws IOException {
+        stringBuilder.setLength(0);
+        length = 0;
+        if (spillWriter != null) {
+            try {
+                spillWriter.close();
+            } finally {
+                spillWriter = null;
+                try {
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to delete temporary file '" + spillFile + "'", e);
+                }
+                spillFile = null;
+            }
+        }
+    }
+
+    private void spill() throws IOException {
+        spillFile = Files.createTempFile("smooks-text-", ".tmp");
+        spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+        spillWriter.append(stringBuilder);
+        stringBuilder.setLength(0);
+        stringBuilder.trimToSize();
+    }
+}
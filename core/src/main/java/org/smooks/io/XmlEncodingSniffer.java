@@ -0,0 +1,145 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.smooks.assertion.AssertArgument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Detects the encoding an XML document declares for itself, either through a byte order mark or through the
+ * <code>encoding</code> pseudo-attribute of its XML declaration.
+ * <p/>
+ * Only the head of the stream is inspected: the stream is marked before, and reset after, reading it. The detection
+ * is meant for deciding whether an externally configured encoding applies to a document. Decoding the document is
+ * left to the XML parser.
+ */
+public final class XmlEncodingSniffer {
+
+    /**
+     * Maximum number of bytes inspected for the XML declaration.
+     */
+    public static final int SNIFF_LIMIT = 1024;
+
+    private static final Pattern ENCODING_PSEUDO_ATTRIBUTE = Pattern.compile("encoding\\s*=\\s*([\"'])([A-Za-z][A-Za-z0-9._\\-]*)\\1");
+
+    private XmlEncodingSniffer() {
+
+    }
+
+    /**
+     * Gets the encoding declared by the XML document at the head of the stream.
+     *
+     * @param inputStream stream supporting {@link InputStream#mark(int)}, positioned at the start of the document
+     * @return the declared encoding, or <code>null</code> if the document has neither a byte order mark nor an
+     * encoding declaration
+     * @throws IOException if reading the stream fails
+     */
+    public static String sniff(InputStream inputStream) throws IOException {
+        AssertArgument.isNotNull(inputStream, "inputStream");
+        if (!inputStream.markSupported()) {
+            throw new IllegalArgumentException("InputStream must support mark/reset");
+        }
+
+        byte[] head = new byte[SNIFF_LIMIT];
+        int length = 0;
+        inputStream.mark(SNIFF_LIMIT);
+        try {
+            int count;
+            while (length < head.length && (count = inputStream.read(head, length, head.length - length)) != -1) {
+                length += count;
+            }
+        } finally {
+            inputStream.reset();
+        }
+
+        return sniff(head, length);
+    }
+
+    static String sniff(byte[] head, int length) {
+        if (length >= 4) {
+            int b0 = head[0] & 0xFF, b1 = head[1] & 0xFF, b2 = head[2] & 0xFF, b3 = head[3] & 0xFF;
+            if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+                return "UTF-32BE";
+            } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+                return "UTF-32LE";
+            } else if (b0 == 0x00 && b1 == 0x3C && b2 == 0x00 && b3 == 0x3F) {
+                return "UTF-16BE";
+            } else if (b0 == 0x3C && b1 == 0x00 && b2 == 0x3F && b3 == 0x00) {
+                return "UTF-16LE";
+            }
+        }
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            return "UTF-8";
+        }
+        if (length >= 2) {
+            int b0 = head[0] & 0xFF, b1 = head[1] & 0xFF;
+            if (b0 == 0xFE && b1 == 0xFF) {
+                return "UTF-16BE";
+            } else if (b0 == 0xFF && b1 == 0xFE) {
+                return "UTF-16LE";
+            }
+        }
+
+        return sniffDeclaredEncoding(head, length);
+    }
+
+    private static String sniffDeclaredEncoding(byte[] head, int length) {
+        if (length < 5 || head[0] != '<' || head[1] != '?' || head[2] != 'x' || head[3] != 'm' || head[4] != 'l') {
+            return null;
+        }
+
+        // The declaration is ASCII in all ASCII-compatible encodings...
+        int end = 5;
+        while (end < length - 1 && !(head[end] == '?' && head[end + 1] == '>')) {
+            end++;
+        }
+        Matcher matcher = ENCODING_PSEUDO_ATTRIBUTE.matcher(new String(head, 0, end, StandardCharsets.ISO_8859_1));
+
+        return matcher.find() ? matcher.group(2) : null;
+    }
+}
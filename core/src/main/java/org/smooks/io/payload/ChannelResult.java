@@ -0,0 +1,134 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.smooks.io.ChannelWriter;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link StreamResult} writing to a {@link WritableByteChannel} (e.g., a file or socket channel) through a
+ * {@link ChannelWriter} rather than an {@link OutputStream}.
+ * <p/>
+ * The output is encoded with the execution's content encoding. The channel is closed at the end of the filter
+ * execution unless {@link org.smooks.api.delivery.Filter#CLOSE_RESULT} is off, in which case the caller must
+ * {@link #close()} the result.
+ */
+public class ChannelResult extends StreamResult implements Closeable {
+
+    private final WritableByteChannel channel;
+    private final int bufferSize;
+    private final int bufferCount;
+
+    public ChannelResult(final WritableByteChannel channel) {
+        this(channel, ChannelWriter.DEFAULT_BUFFER_SIZE, ChannelWriter.DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * @param channel     the channel written to
+     * @param bufferSize  the size of the direct buffers holding the encoded output
+     * @param bufferCount the number of buffers filled before writing them to the channel in one gathering write
+     */
+    public ChannelResult(final WritableByteChannel channel, final int bufferSize, final int bufferCount) {
+        this.channel = channel;
+        this.bufferSize = bufferSize;
+        this.bufferCount = bufferCount;
+    }
+
+    /**
+     * Writes to the file at the supplied path, creating the file or truncating it.
+     */
+    public ChannelResult(final Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+        setSystemId(path.toUri().toString());
+    }
+
+    public WritableByteChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Get the writer to the channel, creating it on first call.
+     *
+     * @param charset the output encoding, ignored once the writer is created
+     * @return the writer
+     */
+    public Writer getWriter(final Charset charset) {
+        if (getWriter() == null) {
+            super.setWriter(new ChannelWriter(channel, charset, bufferSize, bufferCount));
+        }
+        return getWriter();
+    }
+
+    /**
+     * Close the writer, writing out the buffered output and returning its buffers to the pool, or the channel if no
+     * output was written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (getWriter() != null) {
+            getWriter().close();
+        } else {
+            channel.close();
+        }
+    }
+
+    @Override
+    public final void setOutputStream(final OutputStream outputStream) {
+        throw new UnsupportedOperationException("Cannot set the OutputStream for this Result type.");
+    }
+
+    @Override
+    public final void setWriter(final Writer writer) {
+        throw new UnsupportedOperationException("Cannot set the Writer for this Result type.");
+    }
+}
@@ -0,0 +1,144 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.smooks.api.SmooksException;
+import org.smooks.assertion.AssertArgument;
+import org.smooks.io.PipelinedInputStream;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * {@link StreamSource} decompressing its input on a dedicated thread, overlapping decompression with parsing.
+ * <p/>
+ * The decompressed bytes are handed over to the parser through a {@link PipelinedInputStream}. Out of the box,
+ * gzip ({@link #GZIP}) and zlib deflate ({@link #DEFLATE}) are supported. Other formats plug in through a
+ * {@link Codec}. The decoding stream is created on the producer thread, on the first read, so that reading a
+ * compressed header does not block the caller.
+ */
+public class CompressedSource extends StreamSource {
+
+    public static final Codec GZIP = inputStream -> new GZIPInputStream(inputStream, PipelinedInputStream.DEFAULT_BUFFER_SIZE);
+    public static final Codec DEFLATE = inputStream -> new InflaterInputStream(inputStream);
+
+    public CompressedSource(final InputStream compressedInputStream, final Codec codec) {
+        this(compressedInputStream, codec, PipelinedInputStream.DEFAULT_BUFFER_SIZE, PipelinedInputStream.DEFAULT_BUFFER_COUNT);
+    }
+
+    /**
+     * @param compressedInputStream the compressed input
+     * @param codec                 the decompression codec
+     * @param bufferSize            size of each buffer exchanged between the decompressing thread and the parser
+     * @param bufferCount           number of buffers the decompressing thread can fill ahead of the parser
+     */
+    public CompressedSource(final InputStream compressedInputStream, final Codec codec, final int bufferSize, final int bufferCount) {
+        super(new PipelinedInputStream(new DecodingInputStream(compressedInputStream, codec), bufferSize, bufferCount));
+        AssertArgument.isNotNull(codec, "codec");
+    }
+
+    public static CompressedSource gzip(final InputStream compressedInputStream) {
+        return new CompressedSource(compressedInputStream, GZIP);
+    }
+
+    public static CompressedSource deflate(final InputStream compressedInputStream) {
+        return new CompressedSource(compressedInputStream, DEFLATE);
+    }
+
+    /**
+     * Decompression format.
+     */
+    @FunctionalInterface
+    public interface Codec {
+
+        /**
+         * Wraps the compressed input with a stream decompressing it.
+         *
+         * @param compressedInputStream the compressed input
+         * @return the decompressed input
+         * @throws IOException if the compressed input cannot be decoded (e.g., bad header)
+         */
+        InputStream decode(InputStream compressedInputStream) throws IOException;
+    }
+
+    /**
+     * Defers the creation of the decoding stream to the first read.
+     */
+    private static class DecodingInputStream extends FilterInputStream {
+
+        private final Codec codec;
+        private boolean decoding;
+
+        private DecodingInputStream(final InputStream compressedInputStream, final Codec codec) {
+            super(compressedInputStream);
+            AssertArgument.isNotNull(compressedInputStream, "compressedInputStream");
+            this.codec = codec;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return decoder().read();
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            return decoder().read(bytes, offset, length);
+        }
+
+        private InputStream decoder() throws IOException {
+            if (!decoding) {
+                final InputStream decodingInputStream = codec.decode(in);
+                if (decodingInputStream == null) {
+                    throw new SmooksException("Codec " + codec + " returned no decoding stream");
+                }
+                in = decodingInputStream;
+                decoding = true;
+            }
+            return in;
+        }
+    }
+}
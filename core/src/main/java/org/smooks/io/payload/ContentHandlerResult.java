@@ -0,0 +1,101 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.smooks.io.SAXWriter;
+import org.xml.sax.ContentHandler;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * {@link StreamResult} reporting the filter output as SAX events to a {@link ContentHandler} (e.g., the
+ * {@link org.smooks.SmooksPushSession#getContentHandler() handler} of a downstream Smooks instance) through a
+ * {@link SAXWriter}.
+ * <p/>
+ * Nodes serialized as node events reach the handler as they are, with their namespace declarations, instead of being
+ * encoded to text and parsed again. The end of the document is reported when the result is {@link #close() closed},
+ * which the filter does at the end of the execution unless {@link org.smooks.api.delivery.Filter#CLOSE_RESULT} is off.
+ * A filter failing to write the document {@link #abort() aborts} the result instead.
+ */
+public class ContentHandlerResult extends StreamResult {
+
+    private final ContentHandler contentHandler;
+
+    public ContentHandlerResult(final ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+        super.setWriter(new SAXWriter(contentHandler));
+    }
+
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    /**
+     * Report the end of the document to the content handler if not reported already.
+     *
+     * @throws IOException Failed to end the document.
+     */
+    public void close() throws IOException {
+        getWriter().close();
+    }
+
+    /**
+     * Abandon the document without reporting its end to the content handler. See {@link SAXWriter#abort()}.
+     */
+    public void abort() {
+        ((SAXWriter) getWriter()).abort();
+    }
+
+    @Override
+    public final void setOutputStream(final OutputStream outputStream) {
+        throw new UnsupportedOperationException("Cannot set the OutputStream for this Result type.");
+    }
+
+    @Override
+    public final void setWriter(final Writer writer) {
+        throw new UnsupportedOperationException("Cannot set the Writer for this Result type.");
+    }
+}
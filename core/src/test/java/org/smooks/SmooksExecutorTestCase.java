@@ -0,0 +1,132 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SmooksExecutorTestCase {
+
+    @Test
+    public void testExecuteGivenOrdered() {
+        Smooks smooks = new Smooks();
+        AtomicInteger supplied = new AtomicInteger();
+        List<SmooksExecutor.Completion> completions = new ArrayList<>();
+
+        SmooksExecutor.Metrics metrics = new SmooksExecutor(smooks, 4).setOrdered(true).execute(() -> {
+            int i = supplied.getAndIncrement();
+            if (i == 100) {
+                return null;
+            } else if (i == 50) {
+                return new StringSource("<a>");
+            } else {
+                return new StringSource("<a>" + i + "</a>");
+            }
+        }, source -> new StringResult(), completions::add);
+
+        assertEquals(100, metrics.getSubmittedCount());
+        assertEquals(99, metrics.getFilteredCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(100, completions.size());
+        for (int i = 0; i < completions.size(); i++) {
+            SmooksExecutor.Completion completion = completions.get(i);
+            assertEquals(i, completion.getIndex());
+            if (i == 50) {
+                assertFalse(completion.isSuccessful());
+            } else {
+                assertNull(completion.getFailure());
+                assertEquals("<a>" + i + "</a>", ((StringResult) completion.getResult()).getResult());
+            }
+        }
+    }
+
+    @Test
+    public void testExecuteGivenMaxInFlight() {
+        Smooks smooks = new Smooks();
+        AtomicInteger supplied = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        new SmooksExecutor(smooks, 2).setMaxInFlight(3).execute(() -> {
+            maxInFlight.accumulateAndGet(supplied.get() - completed.get(), Math::max);
+            return supplied.getAndIncrement() < 50 ? new StringSource("<a/>") : null;
+        }, source -> null, completion -> completed.incrementAndGet());
+
+        assertEquals(50, completed.get());
+        assertTrue(maxInFlight.get() <= 3);
+    }
+
+    @Test
+    public void testExecuteGivenOrderedAndErrorFromResultFactory() {
+        Smooks smooks = new Smooks();
+        AtomicInteger supplied = new AtomicInteger();
+        List<SmooksExecutor.Completion> completions = new ArrayList<>();
+        Error error = new Error("Boom");
+
+        SmooksExecutor.Metrics metrics = new SmooksExecutor(smooks, 2).setOrdered(true).setMaxInFlight(2).execute(() -> {
+            int i = supplied.getAndIncrement();
+            return i < 20 ? new StringSource("<a>" + i + "</a>") : null;
+        }, source -> {
+            if (((StringSource) source).getSource().equals("<a>10</a>")) {
+                throw error;
+            }
+            return new StringResult();
+        }, completions::add);
+
+        assertEquals(20, completions.size());
+        assertEquals(19, metrics.getFilteredCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertSame(error, completions.get(10).getFailure().getCause());
+    }
+}
@@ -0,0 +1,149 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.engine.delivery.sax.ng.terminate.TerminateVisitor;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SmooksPipeTestCase {
+
+    @Test
+    public void testFilterSource() {
+        Smooks upstream = new Smooks();
+        Smooks downstream = new Smooks();
+        List<String> elements = new ArrayList<>();
+        downstream.addVisitor((AfterVisitor) (element, executionContext) -> elements.add(element.getNamespaceURI() + "|" + element.getTagName()), "b");
+        StringResult result = new StringResult();
+
+        upstream.pipeTo(downstream).filterSource(new StringSource("<a x=\"1\" xmlns=\"urn:a\" xmlns:p=\"urn:p\"><p:b p:y=\"2\">café</p:b><!--c--><b><![CDATA[<d>]]></b></a>"), result);
+
+        assertEquals(2, elements.size());
+        assertEquals("urn:p|p:b", elements.get(0));
+        assertEquals("urn:a|b", elements.get(1));
+        assertEquals("<a x=\"1\" xmlns=\"urn:a\" xmlns:p=\"urn:p\"><p:b p:y=\"2\">café</p:b><!--c--><b><![CDATA[<d>]]></b></a>", result.getResult());
+    }
+
+    @Test
+    public void testFilterSourceGivenThreeStages() {
+        Smooks first = new Smooks();
+        Smooks second = new Smooks();
+        Smooks third = new Smooks();
+        List<String> elements = new ArrayList<>();
+        second.addVisitor((AfterVisitor) (element, executionContext) -> elements.add("second:" + element.getTagName()), "b");
+        third.addVisitor((AfterVisitor) (element, executionContext) -> elements.add("third:" + element.getTagName()), "b");
+        StringResult result = new StringResult();
+
+        first.pipeTo(second).pipeTo(third).filterSource(new StringSource("<a><b>1</b><b>2</b></a>"), result);
+
+        assertEquals("[second:b, third:b, second:b, third:b]", elements.toString());
+        assertEquals("<a><b>1</b><b>2</b></a>", result.getResult());
+    }
+
+    @Test
+    public void testFilterSourceGivenDownstreamTermination() {
+        Smooks upstream = new Smooks();
+        Smooks downstream = new Smooks();
+        downstream.addVisitor(new TerminateVisitor(), "b");
+        List<String> elements = new ArrayList<>();
+        downstream.addVisitor((AfterVisitor) (element, executionContext) -> elements.add(element.getTagName()), "c");
+        StringResult result = new StringResult();
+
+        upstream.pipeTo(downstream).filterSource(new StringSource("<a><b/><c/></a>"), result);
+
+        assertEquals(0, elements.size());
+    }
+
+    @Test
+    public void testFilterSourceGivenDownstreamError() {
+        Smooks upstream = new Smooks();
+        Smooks downstream = new Smooks();
+        downstream.addVisitor((AfterVisitor) (element, executionContext) -> {
+            throw new IllegalStateException("boom");
+        }, "b");
+
+        assertThrows(SmooksException.class, () -> upstream.pipeTo(downstream).filterSource(new StringSource("<a><b/></a>"), new StringResult()));
+    }
+
+    @Test
+    public void testFilterSourceGivenUpstreamError() {
+        Smooks upstream = new Smooks();
+        Smooks downstream = new Smooks();
+        upstream.addVisitor((AfterVisitor) (element, executionContext) -> {
+            throw new IllegalStateException("boom");
+        }, "c");
+        List<String> elements = new ArrayList<>();
+        downstream.addVisitor((AfterVisitor) (element, executionContext) -> elements.add(element.getTagName()), "*");
+        CloseRecordingWriter writer = new CloseRecordingWriter();
+
+        assertThrows(SmooksException.class, () -> upstream.pipeTo(downstream).filterSource(new StringSource("<a><b>1</b><c/></a>"), new StreamResult(writer)));
+
+        // the output piped before the failure is handed over but the piped document is not ended
+        assertEquals("[b]", elements.toString());
+        assertEquals("<a><b>1</b>", writer.toString());
+        assertTrue(writer.closed);
+    }
+
+    static class CloseRecordingWriter extends StringWriter {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
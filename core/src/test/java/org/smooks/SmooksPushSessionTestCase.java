@@ -0,0 +1,168 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.engine.delivery.AbstractFilter;
+import org.smooks.io.payload.FilterSource;
+import org.smooks.io.payload.StringResult;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SmooksPushSessionTestCase {
+
+    @Test
+    public void testFeed() {
+        Smooks smooks = new Smooks();
+        List<String> elements = new ArrayList<>();
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> elements.add(element.getTagName()), "b");
+        StringResult result = new StringResult();
+        byte[] document = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><a x=\"1\"><b>café</b><!-- c --><b><![CDATA[<d>]]></b></a>".getBytes(StandardCharsets.UTF_8);
+
+        try (SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), result)) {
+            ByteBuffer byteBuffer = ByteBuffer.allocate(1);
+            for (byte b : document) {
+                byteBuffer.clear();
+                byteBuffer.put(b).flip();
+                pushSession.feed(byteBuffer);
+            }
+            pushSession.endOfInput();
+        }
+
+        assertEquals(2, elements.size());
+        assertEquals("<a x=\"1\"><b>café</b><!-- c --><b><![CDATA[<d>]]></b></a>", result.getResult());
+    }
+
+    @Test
+    public void testFeedBindsFilterAndClassLoaderToThread() {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader classLoader = new ClassLoader(contextClassLoader) {
+        };
+        Smooks smooks = new Smooks(new DefaultApplicationContextBuilder().setClassLoader(classLoader).build());
+        List<Object> bindings = new ArrayList<>();
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> {
+            bindings.add(Thread.currentThread().getContextClassLoader());
+            bindings.add(AbstractFilter.getFilter());
+            bindings.add(AbstractFilter.getFilter(executionContext));
+            bindings.add(FilterSource.getSource(executionContext));
+        }, "b");
+
+        try (SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), new StringResult())) {
+            assertSame(contextClassLoader, Thread.currentThread().getContextClassLoader());
+            pushSession.feed(ByteBuffer.wrap("<a><b/>".getBytes(StandardCharsets.UTF_8)));
+            assertSame(contextClassLoader, Thread.currentThread().getContextClassLoader());
+            assertThrows(IllegalStateException.class, AbstractFilter::getFilter);
+            pushSession.feed(ByteBuffer.wrap("</a>".getBytes(StandardCharsets.UTF_8)));
+            pushSession.endOfInput();
+        }
+
+        assertEquals(4, bindings.size());
+        assertSame(classLoader, bindings.get(0));
+        assertSame(bindings.get(2), bindings.get(1));
+        assertTrue(bindings.get(3) instanceof StreamSource);
+        assertSame(contextClassLoader, Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    public void testFeedGivenMalformedChunk() {
+        Smooks smooks = new Smooks();
+        CloseRecordingWriter writer = new CloseRecordingWriter();
+        SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), new StreamResult(writer));
+        pushSession.feed(ByteBuffer.wrap("<a><b>x</b>".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(SmooksException.class, () -> pushSession.feed(ByteBuffer.wrap("<<".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("<a><b>x</b>", writer.toString());
+        assertTrue(writer.closed);
+    }
+
+    @Test
+    public void testCloseBeforeEndOfInput() {
+        Smooks smooks = new Smooks();
+        CloseRecordingWriter writer = new CloseRecordingWriter();
+        try (SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), new StreamResult(writer))) {
+            pushSession.feed(ByteBuffer.wrap("<a><b>x</b>".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        assertEquals("<a><b>x</b>", writer.toString());
+        assertTrue(writer.closed);
+    }
+
+    @Test
+    public void testEndOfInputGivenIncompleteDocument() {
+        Smooks smooks = new Smooks();
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        SmooksPushSession pushSession = smooks.openPushSession(executionContext, new StringResult());
+        pushSession.feed(ByteBuffer.wrap("<a><b>".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(SmooksException.class, pushSession::endOfInput);
+        assertNotNull(executionContext.getTerminationError());
+    }
+
+    static class CloseRecordingWriter extends StringWriter {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
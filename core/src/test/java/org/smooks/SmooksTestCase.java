@@ -46,12 +46,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.SmooksException;
+import org.smooks.api.delivery.Filter;
 import org.smooks.api.resource.visitor.dom.DOMVisitAfter;
 import org.smooks.api.resource.visitor.dom.DOMVisitBefore;
 import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
+import org.smooks.api.resource.config.ResourceConfig;
 import org.smooks.engine.DefaultApplicationContextBuilder;
+import org.smooks.engine.bean.context.preinstalled.Time;
+import org.smooks.engine.bean.context.preinstalled.UniqueID;
+import org.smooks.engine.delivery.AbstractFilter;
+import org.smooks.engine.delivery.sax.ng.SaxNgFilter;
 import org.smooks.engine.profile.DefaultProfileSet;
+import org.smooks.engine.resource.config.DefaultResourceConfig;
 import org.smooks.io.payload.StringResult;
 import org.smooks.io.payload.StringSource;
 import org.smooks.resource.URIResourceLocator;
@@ -59,12 +66,23 @@ import org.smooks.support.SmooksUtil;
 import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  *
@@ -128,6 +146,161 @@ public class SmooksTestCase {
     }
 
 
+	@Test
+    public void test_filterSource_GivenPreinstalledBeansOff() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setPreinstalledBeans(false));
+        TestPreinstalledBeansVisitor visitor = new TestPreinstalledBeansVisitor();
+        smooks.addVisitor(visitor, "a");
+
+        smooks.filterSource(new StringSource("<a/>"));
+
+        assertNull(visitor.time);
+        assertNull(visitor.uniqueID);
+    }
+
+	@Test
+    public void test_filterSource_GivenFilterSettingsAndProgrammaticVisitor() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings());
+        TestPreinstalledBeansVisitor visitor = new TestPreinstalledBeansVisitor();
+        smooks.addVisitor(visitor, "a");
+
+        smooks.filterSource(new StringSource("<a/>"));
+
+        assertTrue(visitor.time instanceof Time);
+        assertTrue(visitor.uniqueID instanceof UniqueID);
+    }
+
+	@Test
+    public void test_filterSource_BindsFilterToExecutionContext() {
+        Smooks smooks = new Smooks();
+        List<Filter> filters = new ArrayList<>();
+        smooks.addVisitor((BeforeVisitor) (element, executionContext) -> filters.add(AbstractFilter.getFilter(executionContext)), "a");
+        ExecutionContext executionContext = smooks.createExecutionContext();
+
+        smooks.filterSource(executionContext, new StringSource("<a/>"));
+
+        assertEquals(1, filters.size());
+        assertTrue(filters.get(0) instanceof SaxNgFilter);
+        assertNull(executionContext.get(AbstractFilter.FILTER_TYPED_KEY));
+    }
+
+    @Test
+    public void test_filterSource_BindsFilterToThread() {
+        Smooks smooks = new Smooks();
+        List<Filter> filters = new ArrayList<>();
+        smooks.addVisitor((BeforeVisitor) (element, executionContext) -> {
+            filters.add(AbstractFilter.getFilter());
+            filters.add(AbstractFilter.getFilter(executionContext));
+        }, "a");
+
+        smooks.filterSource(new StringSource("<a/>"));
+
+        assertEquals(2, filters.size());
+        assertSame(filters.get(1), filters.get(0));
+        assertThrows(IllegalStateException.class, AbstractFilter::getFilter);
+    }
+
+    @Test
+    public void test_filterSource_GivenByteStreamDeclaringEncoding() {
+        Smooks smooks = new Smooks();
+        StringResult result = new StringResult();
+
+        smooks.filterSource(new StreamSource(new ByteArrayInputStream("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>caf\u00e9</a>".getBytes(StandardCharsets.ISO_8859_1))), result);
+
+        assertTrue(result.getResult().contains("<a>caf\u00e9</a>"), result.getResult());
+    }
+
+    @Test
+    public void test_filterSource_GivenByteStreamNotDeclaringEncoding() {
+        Smooks smooks = new Smooks();
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        executionContext.setContentEncoding("ISO-8859-1");
+        StringResult result = new StringResult();
+
+        smooks.filterSource(executionContext, new StreamSource(new ByteArrayInputStream("<a>caf\u00e9</a>".getBytes(StandardCharsets.ISO_8859_1))), result);
+
+        assertTrue(result.getResult().contains("<a>caf\u00e9</a>"), result.getResult());
+    }
+
+    @Test
+    public void test_filterSource_GivenForcedContentEncoding() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(new FilterSettings(StreamFilterType.SAX_NG).setForceContentEncoding(true));
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        executionContext.setContentEncoding("ISO-8859-1");
+        StringResult result = new StringResult();
+
+        smooks.filterSource(executionContext, new StreamSource(new ByteArrayInputStream("<?xml version=\"1.0\" encoding=\"UTF-8\"?><a>caf\u00e9</a>".getBytes(StandardCharsets.ISO_8859_1))), result);
+
+        assertTrue(result.getResult().contains("<a>caf\u00e9</a>"), result.getResult());
+    }
+
+	@Test
+    public void test_filterBatch() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setReaderPoolSize(1));
+        TestSAXVisitorBefore visitor = new TestSAXVisitorBefore();
+        smooks.addVisitor(visitor, "b");
+        List<StringResult> results = new ArrayList<>();
+
+        FilterBatchReport filterBatchReport = smooks.filterBatch(Arrays.asList(new StringSource("<a><b/></a>"), new StringSource("<a><b/>"), new StringSource("<a><b>x</b></a>")).iterator(), source -> {
+            StringResult stringResult = new StringResult();
+            results.add(stringResult);
+            return stringResult;
+        });
+
+        assertEquals(2, filterBatchReport.getFilteredCount());
+        assertEquals(1, filterBatchReport.getFailures().size());
+        assertEquals(1, filterBatchReport.getFailures().get(0).getIndex());
+        assertEquals(3, visitor.callCount);
+        assertEquals("<a><b/></a>", results.get(0).getResult());
+        assertEquals("<a><b>x</b></a>", results.get(2).getResult());
+    }
+
+	@Test
+    public void test_filterBatch_GivenRuntimeExceptionFromResultFactory() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setReaderPoolSize(1));
+        IllegalStateException resultFactoryException = new IllegalStateException("No result");
+        List<StringResult> results = new ArrayList<>();
+
+        FilterBatchReport filterBatchReport = smooks.filterBatch(Arrays.asList(new StringSource("<a>1</a>"), new StringSource("<a>2</a>"), new StringSource("<a>3</a>")).iterator(), source -> {
+            if (results.size() == 1) {
+                results.add(null);
+                throw resultFactoryException;
+            }
+            StringResult stringResult = new StringResult();
+            results.add(stringResult);
+            return stringResult;
+        });
+
+        assertEquals(2, filterBatchReport.getFilteredCount());
+        assertEquals(1, filterBatchReport.getFailures().size());
+        assertEquals(1, filterBatchReport.getFailures().get(0).getIndex());
+        assertSame(resultFactoryException, filterBatchReport.getFailures().get(0).getCause().getCause());
+        assertEquals("<a>3</a>", results.get(2).getResult());
+    }
+
+	@Test
+    public void test_filterBatch_GivenConcatenatedDocuments() {
+        Smooks smooks = new Smooks();
+        List<StringResult> results = new ArrayList<>();
+
+        FilterBatchReport filterBatchReport = smooks.filterBatch(new StringReader("<?xml version=\"1.0\"?><a>1</a>\n<a>2</a><!-- 3 --><a/>"), source -> {
+            StringResult stringResult = new StringResult();
+            results.add(stringResult);
+            return stringResult;
+        });
+
+        assertTrue(filterBatchReport.isSuccessful());
+        assertEquals(3, filterBatchReport.getFilteredCount());
+        assertEquals("<a>1</a>", results.get(0).getResult());
+        assertEquals("<a>2</a>", results.get(1).getResult());
+        assertEquals("<a/>", results.get(2).getResult());
+    }
+
 	@Test
     public void test_setResourceLocator() throws IOException, SAXException {
         Smooks smooks = new Smooks("classpath:/org/smooks/test_setClassLoader_01.xml");
@@ -156,6 +329,17 @@ public class SmooksTestCase {
         }
     }
 
+    private static class TestPreinstalledBeansVisitor implements BeforeVisitor {
+        private Object time;
+        private Object uniqueID;
+
+        @Override
+        public void visitBefore(Element element, ExecutionContext executionContext) throws SmooksException {
+            time = executionContext.getBeanContext().getBean(Time.BEAN_ID);
+            uniqueID = executionContext.getBeanContext().getBean(UniqueID.BEAN_ID);
+        }
+    }
+
     private static class TestSAXVisitorBefore implements BeforeVisitor {
         private int callCount;
 
@@ -0,0 +1,172 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.engine.resource.reader.AaltoXMLReader;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedReaderPoolTestCase {
+
+    @Test
+    public void testBorrowXMLReader() {
+        StripedReaderPool readerPool = new StripedReaderPool(4);
+        assertNull(readerPool.borrowXMLReader());
+
+        XMLReader xmlReader = new AaltoXMLReader();
+        readerPool.returnXMLReader(xmlReader);
+        assertEquals(1, readerPool.getMetrics().getIdleCount());
+        assertSame(xmlReader, readerPool.borrowXMLReader());
+
+        StripedReaderPool.Metrics metrics = readerPool.getMetrics();
+        assertEquals(1, metrics.getHitCount());
+        assertEquals(1, metrics.getMissCount());
+        assertEquals(1, metrics.getCreatedCount());
+        assertEquals(0, metrics.getIdleCount());
+        assertEquals(1, metrics.getBorrowedCount());
+    }
+
+    @Test
+    public void testReturnXMLReaderGivenFullPool() {
+        StripedReaderPool readerPool = new StripedReaderPool(1, 1, 0, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 3; i++) {
+            assertNull(readerPool.borrowXMLReader());
+        }
+        for (int i = 0; i < 3; i++) {
+            readerPool.returnXMLReader(new AaltoXMLReader());
+        }
+
+        StripedReaderPool.Metrics metrics = readerPool.getMetrics();
+        assertEquals(2, metrics.getIdleCount());
+        assertEquals(1, metrics.getDiscardedCount());
+        assertEquals(0, metrics.getBorrowedCount());
+        assertTrue(readerPool.borrowXMLReader() != null);
+        assertTrue(readerPool.borrowXMLReader() != null);
+        assertNull(readerPool.borrowXMLReader());
+    }
+
+    @Test
+    public void testReturnXMLReaderResetsReader() {
+        StripedReaderPool readerPool = new StripedReaderPool(1);
+        AaltoXMLReader xmlReader = new AaltoXMLReader();
+        xmlReader.setContentHandler(new DefaultHandler());
+
+        readerPool.borrowXMLReader();
+        readerPool.returnXMLReader(xmlReader);
+
+        assertNull(xmlReader.getContentHandler());
+    }
+
+    @Test
+    public void testBorrowXMLReaderGivenBorrowTimeout() throws Exception {
+        StripedReaderPool readerPool = new StripedReaderPool(1, 0, 10, TimeUnit.SECONDS);
+        assertNull(readerPool.borrowXMLReader());
+
+        XMLReader xmlReader = new AaltoXMLReader();
+        CompletableFuture<XMLReader> borrowedXmlReader = CompletableFuture.supplyAsync(readerPool::borrowXMLReader);
+        Thread.sleep(100);
+        assertFalse(borrowedXmlReader.isDone());
+
+        readerPool.returnXMLReader(xmlReader);
+        assertSame(xmlReader, borrowedXmlReader.get(10, TimeUnit.SECONDS));
+        assertEquals(1, readerPool.getMetrics().getHitCount());
+        assertTrue(readerPool.getMetrics().getMeanBorrowTime(TimeUnit.MILLISECONDS) > 0);
+    }
+
+    @Test
+    public void testBorrowXMLReaderGivenExpiredBorrowTimeout() {
+        StripedReaderPool readerPool = new StripedReaderPool(1, 0, 50, TimeUnit.MILLISECONDS);
+        assertNull(readerPool.borrowXMLReader());
+
+        long startTime = System.nanoTime();
+        assertNull(readerPool.borrowXMLReader());
+        assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(2, readerPool.getMetrics().getMissCount());
+    }
+
+    @Test
+    public void testBorrowXMLReaderGivenConcurrentThreads() throws Exception {
+        final int threadCount = 8;
+        final int iterations = 1000;
+        StripedReaderPool readerPool = new StripedReaderPool(4, 0, 10, TimeUnit.SECONDS);
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < iterations; j++) {
+                        XMLReader xmlReader = readerPool.borrowXMLReader();
+                        readerPool.returnXMLReader(xmlReader != null ? xmlReader : new AaltoXMLReader());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdown();
+        }
+
+        StripedReaderPool.Metrics metrics = readerPool.getMetrics();
+        assertEquals(threadCount * iterations, metrics.getHitCount() + metrics.getMissCount());
+        assertTrue(metrics.getCreatedCount() <= 4, "created " + metrics.getCreatedCount());
+        assertEquals(0, metrics.getDiscardedCount());
+        assertEquals(metrics.getCreatedCount(), metrics.getIdleCount());
+        assertEquals(0, metrics.getBorrowedCount());
+    }
+}
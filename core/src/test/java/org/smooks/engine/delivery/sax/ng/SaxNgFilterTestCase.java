@@ -47,6 +47,8 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.smooks.Smooks;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
 import org.smooks.engine.report.FlatReportGenerator;
 import org.smooks.support.StreamUtils;
 import org.xml.sax.SAXException;
@@ -121,6 +123,18 @@ public class SaxNgFilterTestCase {
         assertEquals(StreamUtils.trimLines(new StringReader(input)).toString(), StreamUtils.trimLines(new StringReader(writer.toString())).toString());
     }
 
+	@Test
+    public void test_stream_writer_GivenVisitorException() {
+        Smooks smooks = new Smooks();
+        smooks.addVisitor((BeforeVisitor) (element, executionContext) -> {
+            throw new SmooksException("Failed to visit " + element.getLocalName());
+        }, "c");
+        StringWriter writer = new StringWriter();
+
+        assertThrows(SmooksException.class, () -> smooks.filterSource(new StreamSource(new StringReader("<a><b>x</b><c/></a>")), new StreamResult(writer)));
+        assertTrue(writer.toString().startsWith("<a><b>x</b>"), writer.toString());
+    }
+
 	@Test
     public void test_selection() throws IOException, SAXException {
         Smooks smooks = new Smooks(getClass().getResourceAsStream("smooks-config-02.xml"));
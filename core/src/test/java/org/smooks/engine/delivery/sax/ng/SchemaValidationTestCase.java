@@ -0,0 +1,116 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery.sax.ng;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.SmooksPushSession;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+import org.smooks.xml.SchemaValidationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SchemaValidationTestCase {
+
+    private static final String SCHEMA = "/org/smooks/engine/delivery/sax/ng/order.xsd";
+
+    @Test
+    public void testFilterSourceGivenValidInput() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setValidationSchema(SCHEMA));
+        List<String> items = new ArrayList<>();
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> items.add(element.getAttribute("quantity")), "item");
+        String input = "<o:order id=\"1\" xmlns:o=\"urn:order\"><!-- items --><o:item quantity=\"2\">apple</o:item><o:item quantity=\"3\"><![CDATA[<pear>]]></o:item></o:order>";
+        StringResult result = new StringResult();
+
+        smooks.filterSource(new StringSource(input), result);
+
+        assertEquals(input, result.getResult());
+        assertEquals(2, items.size());
+    }
+
+    @Test
+    public void testFilterSourceGivenInvalidInput() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setValidationSchema(SCHEMA));
+
+        SmooksException smooksException = assertThrows(SmooksException.class, () -> smooks.filterSource(new StringSource("<order xmlns=\"urn:order\" id=\"1\">\n<item quantity=\"2\">apple</item>\n<item quantity=\"-1\">pear</item>\n</order>"), new StringResult()));
+        SchemaValidationException schemaValidationException = getSchemaValidationException(smooksException);
+        assertEquals(3, schemaValidationException.getLineNumber());
+        assertEquals("/order", schemaValidationException.getFragmentPath());
+        assertTrue(schemaValidationException.getMessage().contains("-1"));
+    }
+
+    @Test
+    public void testFeedGivenInvalidInput() {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setValidationSchema(SCHEMA));
+
+        try (SmooksPushSession pushSession = smooks.openPushSession(smooks.createExecutionContext(), new StringResult())) {
+            SmooksException smooksException = assertThrows(SmooksException.class, () -> {
+                pushSession.feed(ByteBuffer.wrap("<order xmlns=\"urn:order\" id=\"1\"><item quantity=\"2\">apple</item><bogus/>".getBytes(StandardCharsets.UTF_8)));
+                pushSession.endOfInput();
+            });
+            assertEquals("/order", getSchemaValidationException(smooksException).getFragmentPath());
+        }
+    }
+
+    private static SchemaValidationException getSchemaValidationException(Throwable throwable) {
+        while (throwable != null && !(throwable instanceof SchemaValidationException)) {
+            throwable = throwable.getCause();
+        }
+        assertTrue(throwable instanceof SchemaValidationException);
+        return (SchemaValidationException) throwable;
+    }
+}
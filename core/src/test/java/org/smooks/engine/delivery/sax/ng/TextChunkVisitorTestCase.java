@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.delivery.sax.ng;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.api.resource.visitor.sax.ng.TextChunkVisitor;
+import org.smooks.io.payload.StringSource;
+import org.w3c.dom.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextChunkVisitorTestCase {
+
+    @Test
+    public void testVisitText() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("chunk ").append(i).append(' ');
+        }
+        ChunkCollector chunkCollector = new ChunkCollector();
+        Smooks smooks = new Smooks();
+        smooks.addVisitor(chunkCollector, "b");
+
+        smooks.filterSource(new StringSource("<a><b>" + text + "<![CDATA[<cdata>]]><!-- comment --></b><c>ignored</c></a>"));
+
+        assertTrue(chunkCollector.chunkCount > 1);
+        assertEquals(text + "<cdata>", chunkCollector.text.toString());
+        assertEquals(1, chunkCollector.elementTextLengths.size());
+        assertEquals(0, (int) chunkCollector.elementTextLengths.get(0));
+    }
+
+    private static class ChunkCollector implements TextChunkVisitor, AfterVisitor {
+        private final StringBuilder text = new StringBuilder();
+        private final List<Integer> elementTextLengths = new ArrayList<>();
+        private int chunkCount;
+
+        @Override
+        public void visitText(Element element, CharSequence chunk, ExecutionContext executionContext) {
+            assertEquals("b", element.getTagName());
+            chunkCount++;
+            text.append(chunk);
+        }
+
+        @Override
+        public void visitAfter(Element element, ExecutionContext executionContext) {
+            elementTextLengths.add(element.getTextContent().length());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.engine.resource.reader;
+
+import com.ctc.wstx.sax.WstxSAXParser;
+import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.StreamFilterType;
+import org.smooks.engine.delivery.DefaultReaderPool;
+import org.smooks.engine.delivery.DynamicReaderPool;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.DefaultHandler2;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AaltoXMLReaderTestCase {
+
+    @Test
+    public void testParseGivenNamespaces() throws Exception {
+        assertSameEvents("<a xmlns=\"urn:a\" xmlns:b=\"urn:b\" b:x=\"1\" y=\"2\"><b:c xmlns:d=\"urn:d\" d:z=\"3\"/><e/></a>");
+    }
+
+    @Test
+    public void testParseGivenEntityReferences() throws Exception {
+        assertSameEvents("<a x=\"1 &amp; 2 &#65;\">t&amp;&lt;x &#169; &#x1F600; &gt;&quot;&apos;</a>");
+    }
+
+    @Test
+    public void testParseGivenLexicalEvents() throws Exception {
+        assertSameEvents("<?xml version=\"1.0\"?>\n<!DOCTYPE a>\n<!--before--><?pi data?>\n<a><!--inside--><![CDATA[<c> & ]]><?pi2 more data?>\n</a>\n<!--after-->");
+    }
+
+    @Test
+    public void testParseGivenWhitespace() throws Exception {
+        assertSameEvents("\n<a>\n  <b> x </b>\n  <c>\t</c>\n</a>\n");
+    }
+
+    @Test
+    public void testParseGivenByteStream() throws Exception {
+        String document = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>café</a>";
+        List<String> expectedEvents = parse(new WstxSAXParser(), new InputSource(new ByteArrayInputStream(document.getBytes(StandardCharsets.ISO_8859_1))));
+        List<String> actualEvents = parse(new AaltoXMLReader(), new InputSource(new ByteArrayInputStream(document.getBytes(StandardCharsets.ISO_8859_1))));
+
+        assertEquals(expectedEvents, actualEvents);
+    }
+
+    @Test
+    public void testParseGivenMalformedDocument() throws Exception {
+        String document = "<a><b>x</a>";
+        List<String> expectedEvents = new ArrayList<>();
+        List<String> actualEvents = new ArrayList<>();
+
+        assertThrows(SAXException.class, () -> parse(new WstxSAXParser(), new InputSource(new StringReader(document)), expectedEvents));
+        assertThrows(SAXException.class, () -> parse(new AaltoXMLReader(), new InputSource(new StringReader(document)), actualEvents));
+        assertEquals(expectedEvents, actualEvents);
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        AaltoXMLReader aaltoXMLReader = new AaltoXMLReader();
+        EventRecorder eventRecorder = new EventRecorder(new ArrayList<>());
+        aaltoXMLReader.setContentHandler(eventRecorder);
+        aaltoXMLReader.setProperty("http://xml.org/sax/properties/lexical-handler", eventRecorder);
+        aaltoXMLReader.setErrorHandler(eventRecorder);
+
+        DefaultReaderPool readerPool = new DefaultReaderPool(1);
+        readerPool.returnXMLReader(aaltoXMLReader);
+
+        assertSame(aaltoXMLReader, readerPool.borrowXMLReader());
+        assertNull(aaltoXMLReader.getContentHandler());
+        assertNull(aaltoXMLReader.getProperty("http://xml.org/sax/properties/lexical-handler"));
+        assertSame(eventRecorder, aaltoXMLReader.getErrorHandler());
+    }
+
+    @Test
+    public void testParseGivenEntityResolver() {
+        AaltoXMLReader aaltoXMLReader = new AaltoXMLReader();
+        EventRecorder eventRecorder = new EventRecorder(new ArrayList<>());
+        aaltoXMLReader.setContentHandler(eventRecorder);
+        aaltoXMLReader.setEntityResolver(eventRecorder);
+
+        assertThrows(SAXNotSupportedException.class, () -> aaltoXMLReader.parse(new InputSource(new StringReader("<a/>"))));
+        assertEquals(0, eventRecorder.events.size());
+    }
+
+    @Test
+    public void testParseGivenDTDHandler() {
+        AaltoXMLReader aaltoXMLReader = new AaltoXMLReader();
+        EventRecorder eventRecorder = new EventRecorder(new ArrayList<>());
+        aaltoXMLReader.setContentHandler(eventRecorder);
+        aaltoXMLReader.setDTDHandler(eventRecorder);
+
+        assertThrows(SAXNotSupportedException.class, () -> aaltoXMLReader.parse(new InputSource(new StringReader("<a/>"))));
+        assertEquals(0, eventRecorder.events.size());
+    }
+
+    @Test
+    public void testGetFeature() throws Exception {
+        AaltoXMLReader aaltoXMLReader = new AaltoXMLReader();
+
+        assertFalse(aaltoXMLReader.getFeature("http://xml.org/sax/features/lexical-handler/parameter-entities"));
+        assertThrows(SAXNotSupportedException.class, () -> aaltoXMLReader.setFeature("http://xml.org/sax/features/lexical-handler/parameter-entities", true));
+    }
+
+    @Test
+    public void testReturnXMLReaderGivenDynamicReaderPool() throws Exception {
+        AaltoXMLReader aaltoXMLReader = new AaltoXMLReader();
+        EventRecorder eventRecorder = new EventRecorder(new ArrayList<>());
+        aaltoXMLReader.setContentHandler(eventRecorder);
+        aaltoXMLReader.setProperty("http://xml.org/sax/properties/lexical-handler", eventRecorder);
+
+        DynamicReaderPool readerPool = new DynamicReaderPool();
+        readerPool.returnXMLReader(aaltoXMLReader);
+
+        assertSame(aaltoXMLReader, readerPool.borrowXMLReader());
+        assertNull(aaltoXMLReader.getContentHandler());
+        assertNull(aaltoXMLReader.getProperty("http://xml.org/sax/properties/lexical-handler"));
+    }
+
+    @Test
+    public void testFilterSourceGivenXmlReaderParameter() {
+        Smooks woodstoxSmooks = new Smooks();
+        Smooks aaltoSmooks = new Smooks();
+        aaltoSmooks.setFilterSettings(new FilterSettings(StreamFilterType.SAX_NG).setReaderPoolSize(1).setXmlReader(CountingAaltoXMLReader.class.getName()));
+        CountingAaltoXMLReader.INSTANCE_COUNT.set(0);
+        CountingAaltoXMLReader.PARSE_COUNT.set(0);
+
+        String document = "<!--c--><a xmlns:b=\"urn:b\" x=\"&lt;1&gt;\"><b:c>t &amp; u<![CDATA[<v>]]></b:c><d/></a>";
+        for (int i = 0; i < 3; i++) {
+            StringResult expectedResult = new StringResult();
+            StringResult actualResult = new StringResult();
+            woodstoxSmooks.filterSource(new StringSource(document), expectedResult);
+            aaltoSmooks.filterSource(new StreamSource(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))), actualResult);
+
+            assertEquals(expectedResult.getResult(), actualResult.getResult());
+        }
+        assertEquals(1, CountingAaltoXMLReader.INSTANCE_COUNT.get());
+        assertEquals(3, CountingAaltoXMLReader.PARSE_COUNT.get());
+    }
+
+    private void assertSameEvents(String document) throws IOException, SAXException {
+        List<String> expectedEvents = parse(new WstxSAXParser(), new InputSource(new StringReader(document)));
+        List<String> actualEvents = parse(new AaltoXMLReader(), new InputSource(new StringReader(document)));
+
+        assertEquals(String.join("\n", expectedEvents), String.join("\n", actualEvents));
+    }
+
+    private List<String> parse(XMLReader xmlReader, InputSource inputSource) throws IOException, SAXException {
+        List<String> events = new ArrayList<>();
+        parse(xmlReader, inputSource, events);
+
+        return events;
+    }
+
+    private void parse(XMLReader xmlReader, InputSource inputSource, List<String> events) throws IOException, SAXException {
+        EventRecorder eventRecorder = new EventRecorder(events);
+        xmlReader.setFeature("http://xml.org/sax/features/namespaces", true);
+        xmlReader.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+        xmlReader.setFeature("http://xml.org/sax/features/xmlns-uris", true);
+        xmlReader.setContentHandler(eventRecorder);
+        xmlReader.setProperty("http://xml.org/sax/properties/lexical-handler", eventRecorder);
+        try {
+            xmlReader.parse(inputSource);
+        } finally {
+            eventRecorder.flushCharacters();
+        }
+    }
+
+    private static class EventRecorder extends DefaultHandler2 {
+
+        private final List<String> events;
+        private final StringBuilder characters = new StringBuilder();
+
+        private EventRecorder(List<String> events) {
+            this.events = events;
+        }
+
+        private void record(String event) {
+            flushCharacters();
+            events.add(event);
+        }
+
+        private void flushCharacters() {
+            // parsers are free to split character data across calls
+            if (characters.length() > 0) {
+                events.add("characters: " + characters);
+                characters.setLength(0);
+            }
+        }
+
+        @Override
+        public void startDocument() {
+            record("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            record("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            record("startPrefixMapping: " + prefix + "=" + uri);
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            record("endPrefixMapping: " + prefix);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            StringBuilder event = new StringBuilder("startElement: {").append(uri).append('}').append(localName).append(' ').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                event.append(" [{").append(attributes.getURI(i)).append('}').append(attributes.getLocalName(i)).append(' ').append(attributes.getQName(i)).append(' ').append(attributes.getType(i)).append('=').append(attributes.getValue(i)).append(']');
+            }
+            record(event.toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            record("endElement: {" + uri + "}" + localName + " " + qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            characters.append(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            characters.append(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            record("processingInstruction: " + target + " " + data);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            record("comment: " + new String(ch, start, length));
+        }
+
+        @Override
+        public void startCDATA() {
+            record("startCDATA");
+        }
+
+        @Override
+        public void endCDATA() {
+            record("endCDATA");
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            record("startDTD: " + name + " " + publicId + " " + systemId);
+        }
+
+        @Override
+        public void endDTD() {
+            record("endDTD");
+        }
+
+        @Override
+        public void startEntity(String name) {
+            record("startEntity: " + name);
+        }
+
+        @Override
+        public void endEntity(String name) {
+            record("endEntity: " + name);
+        }
+    }
+
+    public static class CountingAaltoXMLReader extends AaltoXMLReader {
+
+        private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+        private static final AtomicInteger PARSE_COUNT = new AtomicInteger();
+
+        public CountingAaltoXMLReader() {
+            INSTANCE_COUNT.incrementAndGet();
+        }
+
+        @Override
+        public void parse(InputSource inputSource) throws IOException, SAXException {
+            PARSE_COUNT.incrementAndGet();
+            super.parse(inputSource);
+        }
+    }
+}
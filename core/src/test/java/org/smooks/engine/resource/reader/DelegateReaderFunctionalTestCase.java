@@ -47,19 +47,31 @@ import org.smooks.Smooks;
 import org.smooks.api.SmooksException;
 import org.smooks.api.ExecutionContext;
 import org.smooks.api.TypedKey;
+import org.smooks.api.delivery.Filter;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.api.resource.visitor.sax.ng.ElementVisitor;
 import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.engine.resource.config.ParameterAccessor;
 import org.smooks.io.FragmentWriter;
 import org.smooks.io.payload.StringSource;
 import org.w3c.dom.CharacterData;
 import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class DelegateReaderFunctionalTestCase {
 
@@ -110,4 +122,51 @@ public class DelegateReaderFunctionalTestCase {
         smooks.filterSource(execContext, new StringSource("<helloWorld>bar</helloWorld>"), new StreamResult(result));
         assertEquals("<bar>helloWorld</bar>", result.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFilterSourceGivenSeveralDocumentInputSourcesInExecution() throws Exception {
+        Smooks smooks = new Smooks(getClass().getResourceAsStream("smooks-config-delegate-reader.xml"));
+        // reuse the delegate reader across the parses
+        ParameterAccessor.setParameter(Filter.READER_POOL_SIZE, "1", smooks);
+        ExecutionContext execContext = smooks.createExecutionContext();
+        DocumentBuilder documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+
+        for (String rootName : new String[]{"helloWorld", "goodbyeWorld", "helloAgain"}) {
+            StringWriter result = new StringWriter();
+            smooks.filterSource(execContext, new DOMSource(documentBuilder.parse(new InputSource(new StringReader("<" + rootName + ">bar</" + rootName + ">")))), new StreamResult(result));
+            assertEquals("<bar>" + rootName + "</bar>", result.toString());
+        }
+    }
+
+    @Test
+    public void testFilterSourceStreamsInput() throws IOException, SAXException {
+        StringBuilder input = new StringBuilder("<records>");
+        for (int i = 0; i < 100000; i++) {
+            input.append("<record>").append(i).append("</record>");
+        }
+        input.append("</records>");
+        RecordVisitor.inputStream = new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8));
+        RecordVisitor.recordCount = 0;
+        RecordVisitor.unreadBytesAtFirstRecord = -1;
+
+        Smooks smooks = new Smooks(getClass().getResourceAsStream("smooks-config-delegate-reader-streaming.xml"));
+        smooks.filterSource(new StreamSource(RecordVisitor.inputStream), new StreamResult(new StringWriter()));
+
+        assertEquals(100000, RecordVisitor.recordCount);
+        // the nested Smooks is visiting records before the input is fully read
+        assertTrue(RecordVisitor.unreadBytesAtFirstRecord > 0);
+    }
+
+    public static class RecordVisitor implements AfterVisitor {
+        private static ByteArrayInputStream inputStream;
+        private static int recordCount;
+        private static int unreadBytesAtFirstRecord;
+
+        @Override
+        public void visitAfter(Element element, ExecutionContext executionContext) {
+            if (recordCount++ == 0) {
+                unreadBytesAtFirstRecord = inputStream.available();
+            }
+        }
+    }
+}
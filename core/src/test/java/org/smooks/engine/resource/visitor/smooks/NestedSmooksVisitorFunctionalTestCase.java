@@ -53,6 +53,7 @@ import org.xml.sax.SAXException;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -132,6 +133,52 @@ public class NestedSmooksVisitorFunctionalTestCase {
 		assertEquals("Hello World!", outputStream.toString());
 	}
 
+	@Test
+	public void testAsyncOutputToAction() throws IOException, SAXException {
+		Smooks smooks = new Smooks(getClass().getResourceAsStream("async-outputTo-nested-smooks-visitor-config.xml"));
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		smooks.getApplicationContext().getRegistry().registerObject("Output Stream", outputStream);
+		StringBuilder input = new StringBuilder("<a>");
+		StringBuilder expectedOutput = new StringBuilder();
+		for (int i = 0; i < 50; i++) {
+			input.append("<b id=\"").append(i).append("\"><c>").append(i).append("</c></b>");
+			expectedOutput.append("<b id=\"").append(i).append("\"><c>").append(i).append("</c></b>");
+		}
+		input.append("</a>");
+
+		StringResult stringResult = new StringResult();
+		smooks.filterSource(new StringSource(input.toString()), stringResult);
+		assertEquals(input.toString(), stringResult.getResult());
+		assertEquals(expectedOutput.toString(), outputStream.toString());
+	}
+
+	@Test
+	public void testAsyncOutputToActionGivenRecordOutputStreamResource() throws IOException, SAXException {
+		Smooks smooks = new Smooks(getClass().getResourceAsStream("async-outputTo-record-nested-smooks-visitor-config.xml"));
+		StringBuilder input = new StringBuilder("<a>");
+		for (int i = 0; i < 20; i++) {
+			input.append("<b id=\"").append(i).append("\"><c>").append(i).append("</c></b>");
+		}
+		input.append("</a>");
+
+		smooks.filterSource(new StringSource(input.toString()), new StringResult());
+		List<ByteArrayOutputStream> outputStreams = smooks.getApplicationContext().getRegistry().lookup(new InstanceLookup<>(RecordOutputStreamResource.class)).values().stream().findFirst().get().getOutputStreams();
+		assertEquals(20, outputStreams.size());
+		for (int i = 0; i < 20; i++) {
+			assertEquals("<b id=\"" + i + "\"><c>" + i + "</c></b>", outputStreams.get(i).toString());
+		}
+	}
+
+	@Test
+	public void testAsyncBindToAction() throws IOException, SAXException {
+		Smooks smooks = new Smooks(getClass().getResourceAsStream("async-bindTo-nested-smooks-visitor-config.xml"));
+		ExecutionContext executionContext = smooks.createExecutionContext();
+		StringResult stringResult = new StringResult();
+		smooks.filterSource(executionContext, new StringSource("<a><b><c/></b></a>"), stringResult);
+		assertEquals("<a><b><c/></b></a>", stringResult.getResult());
+		assertEquals("Hello World!", executionContext.getBeanContext().getBean("output"));
+	}
+
 	@Test
 	public void testNoOp() throws IOException, SAXException {
 		Smooks smooks = new Smooks(getClass().getResourceAsStream("no-op-nested-smooks-visitor-config.xml"));
@@ -49,6 +49,7 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.smooks.Smooks;
 import org.smooks.api.ExecutionContext;
+import org.smooks.api.SmooksConfigException;
 import org.smooks.api.SmooksException;
 import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
 import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
@@ -77,6 +78,9 @@ import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
@@ -84,6 +88,7 @@ import java.util.concurrent.ThreadLocalRandom;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class NestedSmooksVisitorTestCase {
 
@@ -664,4 +669,86 @@ public class NestedSmooksVisitorTestCase {
 
         assertEquals("<a>foo</a>bar", stringResult.toString());
     }
+
+    @Test
+    public void testVisitGivenNestedVisitedElements() throws DocumentException {
+        NestedSmooksVisitor nestedSmooksVisitor = new NestedSmooksVisitor();
+        Smooks nestedSmooks = new Smooks(new DefaultApplicationContextBuilder().setRegisterSystemResources(false).build());
+        List<String> visitedElements = new ArrayList<>();
+        nestedSmooks.addVisitor((BeforeVisitor) (element, executionContext) -> visitedElements.add(element.getParentNode().getNodeName() + "/" + element.getNodeName()), "c");
+        nestedSmooksVisitor.setNestedSmooks(nestedSmooks);
+
+        Smooks smooks = new Smooks();
+        smooks.addVisitor(nestedSmooksVisitor, "b");
+        List<Long> childEventListenerCounts = new ArrayList<>();
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> childEventListenerCounts.add(executionContext.getContentDeliveryRuntime().getExecutionEventListeners().stream().filter(executionEventListener -> executionEventListener instanceof ChildEventListener).count()), "c");
+
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        smooks.filterSource(executionContext, new DOMSource(new DOMWriter().write(DocumentHelper.createDocument().
+                addElement("a").addElement("b").addElement("b").addElement("c").
+                getDocument())), new StringResult());
+
+        assertEquals(Arrays.asList("b/c", "b/c"), visitedElements);
+        assertEquals(Collections.singletonList(1L), childEventListenerCounts);
+        assertEquals(0, executionContext.getContentDeliveryRuntime().getExecutionEventListeners().stream().filter(executionEventListener -> executionEventListener instanceof ChildEventListener).count());
+    }
+
+    @Test
+    public void testPostConstructGivenAsyncAndUnsupportedAction() {
+        NestedSmooksVisitor nestedSmooksVisitor = new NestedSmooksVisitor();
+        nestedSmooksVisitor.setApplicationContext(new DefaultApplicationContextBuilder().build());
+        nestedSmooksVisitor.setAction(Optional.of(NestedSmooksVisitor.Action.REPLACE));
+        nestedSmooksVisitor.setNestedSmooks(new Smooks(new DefaultApplicationContextBuilder().setRegisterSystemResources(false).build()));
+        nestedSmooksVisitor.setAsync(true);
+
+        assertThrows(SmooksConfigException.class, nestedSmooksVisitor::postConstruct);
+    }
+
+    @Test
+    public void testVisitGivenAsyncAndFailingNestedExecution() throws DocumentException {
+        NestedSmooksVisitor nestedSmooksVisitor = new NestedSmooksVisitor();
+        Smooks nestedSmooks = new Smooks(new DefaultApplicationContextBuilder().setRegisterSystemResources(false).build());
+        nestedSmooks.addVisitor((BeforeVisitor) (element, executionContext) -> {
+            if (element.getAttribute("id").equals("2")) {
+                throw new SmooksException("Bad record");
+            }
+        }, "b");
+        nestedSmooksVisitor.setAction(Optional.of(NestedSmooksVisitor.Action.BIND_TO));
+        nestedSmooksVisitor.setBindIdOptional(Optional.of("foo"));
+        nestedSmooksVisitor.setNestedSmooks(nestedSmooks);
+        nestedSmooksVisitor.setAsync(true);
+
+        Smooks smooks = new Smooks();
+        smooks.addVisitor(nestedSmooksVisitor, "b");
+
+        org.dom4j.Element a = DocumentHelper.createDocument().addElement("a");
+        for (int i = 0; i < 4; i++) {
+            a.addElement("b").addAttribute("id", String.valueOf(i));
+        }
+        DOMSource domSource = new DOMSource(new DOMWriter().write(a.getDocument()));
+        Throwable throwable = assertThrows(SmooksException.class, () -> smooks.filterSource(domSource, new StringResult()));
+        while (throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        assertEquals("Bad record", throwable.getMessage());
+    }
+
+    @Test
+    public void testVisitGivenAsyncOutputToAndUnboundOutputResource() throws DocumentException {
+        NestedSmooksVisitor nestedSmooksVisitor = new NestedSmooksVisitor();
+        nestedSmooksVisitor.setAction(Optional.of(NestedSmooksVisitor.Action.OUTPUT_TO));
+        nestedSmooksVisitor.setOutputStreamResourceOptional(Optional.of("foo"));
+        nestedSmooksVisitor.setNestedSmooks(new Smooks(new DefaultApplicationContextBuilder().setRegisterSystemResources(false).build()));
+        nestedSmooksVisitor.setAsync(true);
+
+        Smooks smooks = new Smooks();
+        smooks.addVisitor(nestedSmooksVisitor, "b");
+
+        DOMSource domSource = new DOMSource(new DOMWriter().write(DocumentHelper.createDocument().addElement("a").addElement("b").getDocument()));
+        Throwable throwable = assertThrows(SmooksException.class, () -> smooks.filterSource(domSource, new StringResult()));
+        while (throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        assertEquals("OutputResource 'foo' not bound to context.  Configure an 'org.smooks.io.AbstractOutputStreamResource' implementation, or change resource ordering.", throwable.getMessage());
+    }
 }
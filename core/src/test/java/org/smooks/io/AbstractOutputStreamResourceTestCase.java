@@ -122,6 +122,45 @@ public class AbstractOutputStreamResourceTestCase
         assertTrue(MockAbstractOutputStreamResource.isClosed);
     }
 
+    @Test
+    public void getOutputWriterGivenAsync() throws ParserConfigurationException, IOException {
+        AbstractOutputStreamResource resource = new MockAbstractOutputStreamResource().setAsync(true);
+        MockExecutionContext executionContext = new MockExecutionContext();
+
+        resource.visitBefore( (Element)null, executionContext );
+        Writer writer = new ResourceWriter(executionContext, resource.getResourceName()).getDelegateWriter();
+        writer.write("Hello");
+
+        resource.executeVisitLifecycleCleanup(new NodeFragment(DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()), executionContext);
+
+        assertTrue(MockAbstractOutputStreamResource.isClosed);
+        assertEquals("Hello", MockAbstractOutputStreamResource.outputStream.toString("UTF-8"));
+        assertNull(executionContext.getTerminationError());
+    }
+
+    @Test
+    public void closeResourceGivenAsyncWriteFailure() throws ParserConfigurationException, IOException {
+        AbstractOutputStreamResource resource = new AbstractOutputStreamResource() {
+            @Override
+            public OutputStream getOutputStream(ExecutionContext executionContext) {
+                return new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("disk full");
+                    }
+                };
+            }
+        }.setResourceName("Failing").setAsync(true);
+        MockExecutionContext executionContext = new MockExecutionContext();
+
+        resource.visitBefore( (Element)null, executionContext );
+        new ResourceWriter(executionContext, resource.getResourceName()).getDelegateWriter().write("Hello");
+        resource.executeVisitLifecycleCleanup(new NodeFragment(DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument()), executionContext);
+
+        assertTrue(executionContext.getTerminationError() instanceof SmooksException);
+        assertEquals("disk full", executionContext.getTerminationError().getCause().getMessage());
+    }
+
     private Object getResource(AbstractOutputStreamResource resource, MockExecutionContext executionContext) {
         return executionContext.get(new TypedKey<>(AbstractOutputStreamResource.RESOURCE_CONTEXT_KEY_PREFIX + resource.getResourceName()));
     }
@@ -132,18 +171,20 @@ public class AbstractOutputStreamResourceTestCase
 	private static class MockAbstractOutputStreamResource extends AbstractOutputStreamResource
 	{
         public static boolean isClosed;
+        public static ByteArrayOutputStream outputStream;
 
 		@Override
 		public OutputStream getOutputStream( final ExecutionContext executionContext )
 		{
             isClosed = false;
-            return new ByteArrayOutputStream() {
+            outputStream = new ByteArrayOutputStream() {
                 @Override
                 public void close() throws IOException {
                     isClosed = true;
                     super.close();
                 }
             };
+            return outputStream;
 		}
 
 		@Override
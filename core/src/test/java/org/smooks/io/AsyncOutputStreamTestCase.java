@@ -0,0 +1,164 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncOutputStreamTestCase {
+
+    @Test
+    public void testWrite() throws IOException {
+        ClosingByteArrayOutputStream outputStream = new ClosingByteArrayOutputStream();
+        AsyncOutputStream asyncOutputStream = new AsyncOutputStream(outputStream, 16, 2, AsyncOutputStream.Backpressure.BLOCK);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            String line = "line " + i + "\n";
+            expected.append(line);
+            asyncOutputStream.write(line.getBytes(StandardCharsets.UTF_8));
+            asyncOutputStream.write('.');
+            expected.append('.');
+        }
+        asyncOutputStream.close();
+
+        assertEquals(expected.toString(), outputStream.toString("UTF-8"));
+        assertTrue(outputStream.closed);
+    }
+
+    @Test
+    public void testCloseWithoutWrite() throws IOException {
+        ClosingByteArrayOutputStream outputStream = new ClosingByteArrayOutputStream();
+        new AsyncOutputStream(outputStream).close();
+
+        assertTrue(outputStream.closed);
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        AsyncOutputStream asyncOutputStream = new AsyncOutputStream(new ByteArrayOutputStream());
+        asyncOutputStream.close();
+
+        assertThrows(IOException.class, () -> asyncOutputStream.write('a'));
+    }
+
+    @Test
+    public void testCloseGivenFailingOutputStream() {
+        IOException failure = new IOException("disk full");
+        AsyncOutputStream asyncOutputStream = new AsyncOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw failure;
+            }
+        }, 16, 2, AsyncOutputStream.Backpressure.BLOCK);
+
+        IOException ioException = assertThrows(IOException.class, () -> {
+            asyncOutputStream.write(new byte[100]);
+            asyncOutputStream.close();
+        });
+        assertSame(failure, ioException);
+    }
+
+    @Test
+    public void testWriteGivenRuntimeExceptionFromOutputStream() {
+        IllegalStateException failure = new IllegalStateException("broken");
+        AsyncOutputStream asyncOutputStream = new AsyncOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw failure;
+            }
+        }, 16, 2, AsyncOutputStream.Backpressure.BLOCK);
+
+        IOException ioException = assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                asyncOutputStream.write(new byte[16]);
+            }
+            asyncOutputStream.close();
+        });
+        assertSame(failure, ioException.getCause());
+    }
+
+    @Test
+    public void testWriteGivenFailBackpressure() throws IOException, InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(b, off, len);
+            }
+        };
+        AsyncOutputStream asyncOutputStream = new AsyncOutputStream(outputStream, 4, 2, AsyncOutputStream.Backpressure.FAIL);
+
+        asyncOutputStream.write("abcdefgh".getBytes(StandardCharsets.UTF_8));
+        IOException ioException = assertThrows(IOException.class, () -> asyncOutputStream.write('i'));
+        assertTrue(ioException.getMessage().startsWith("Output queue is full"));
+
+        release.countDown();
+        asyncOutputStream.close();
+        assertEquals("abcdefgh", outputStream.toString("UTF-8"));
+    }
+
+    private static class ClosingByteArrayOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.StreamFilterType;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.io.payload.StringSource;
+
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BufferedResultWriterTestCase {
+
+    private static final String INPUT = "<a><b>1</b><c><b>2</b></c><b>3</b></a>";
+
+    @Test
+    public void testWriteGivenNoFlushThreshold() throws IOException {
+        FlushCountingWriter delegateWriter = new FlushCountingWriter();
+        BufferedResultWriter bufferedResultWriter = new BufferedResultWriter(delegateWriter, 0, 0);
+
+        bufferedResultWriter.write("abc");
+        bufferedResultWriter.write('d');
+        bufferedResultWriter.write(new char[]{'e', 'f'});
+        assertEquals("", delegateWriter.toString());
+
+        bufferedResultWriter.flush();
+        assertEquals("abcdef", delegateWriter.toString());
+        assertEquals(1, delegateWriter.flushCount);
+    }
+
+    @Test
+    public void testWriteGivenFullBuffer() throws IOException {
+        FlushCountingWriter delegateWriter = new FlushCountingWriter();
+        BufferedResultWriter bufferedResultWriter = new BufferedResultWriter(delegateWriter, 0, 0);
+        char[] chars = new char[BufferedResultWriter.DEFAULT_BUFFER_SIZE - 1];
+        Arrays.fill(chars, 'x');
+
+        bufferedResultWriter.write(chars);
+        bufferedResultWriter.write("yy");
+        assertEquals(chars.length, delegateWriter.toString().length());
+
+        char[] largeChars = new char[BufferedResultWriter.DEFAULT_BUFFER_SIZE * 2];
+        Arrays.fill(largeChars, 'z');
+        bufferedResultWriter.write(largeChars);
+        assertEquals(chars.length + 2 + largeChars.length, delegateWriter.toString().length());
+        assertEquals(0, delegateWriter.flushCount);
+
+        bufferedResultWriter.close();
+        assertEquals(1, delegateWriter.flushCount);
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        FlushCountingWriter delegateWriter = new FlushCountingWriter();
+        BufferedResultWriter bufferedResultWriter = new BufferedResultWriter(delegateWriter, 0, 0);
+        StringBuilder largeCharSequence = new StringBuilder();
+        for (int i = 0; i < BufferedResultWriter.DEFAULT_BUFFER_SIZE; i++) {
+            largeCharSequence.append((char) ('a' + i % 26));
+        }
+
+        bufferedResultWriter.append("abc").append(new StringBuilder("xdefx"), 1, 4).append(null);
+        bufferedResultWriter.append(largeCharSequence);
+        bufferedResultWriter.flush();
+
+        assertEquals("abcdefnull" + largeCharSequence, delegateWriter.toString());
+    }
+
+    @Test
+    public void testWriteGivenFlushThreshold() throws IOException {
+        FlushCountingWriter delegateWriter = new FlushCountingWriter();
+        BufferedResultWriter bufferedResultWriter = new BufferedResultWriter(delegateWriter, 4, 0);
+
+        bufferedResultWriter.write("abc");
+        assertEquals(0, delegateWriter.flushCount);
+        bufferedResultWriter.write("de");
+        assertEquals(1, delegateWriter.flushCount);
+        assertEquals("abcde", delegateWriter.toString());
+        bufferedResultWriter.write("fgh");
+        assertEquals(1, delegateWriter.flushCount);
+    }
+
+    @Test
+    public void testWriteGivenFlushInterval() throws IOException, InterruptedException {
+        FlushCountingWriter delegateWriter = new FlushCountingWriter();
+        BufferedResultWriter bufferedResultWriter = new BufferedResultWriter(delegateWriter, 0, 10);
+
+        Thread.sleep(20);
+        bufferedResultWriter.write("abc");
+        assertEquals(1, delegateWriter.flushCount);
+        assertEquals("abc", delegateWriter.toString());
+    }
+
+    @Test
+    public void testFilterSourceGivenCloseFlushPolicy() {
+        FlushCountingWriter writer = filter(new FilterSettings(StreamFilterType.SAX_NG));
+
+        assertEquals(INPUT, writer.toString());
+        assertEquals(1, writer.flushCount);
+    }
+
+    @Test
+    public void testFilterSourceGivenElementFlushPolicy() {
+        FlushCountingWriter writer = filter(new FilterSettings(StreamFilterType.SAX_NG).setFlushPolicy(FlushPolicy.ELEMENT));
+
+        assertEquals(INPUT, writer.toString());
+        assertEquals(6, writer.flushCount);
+    }
+
+    @Test
+    public void testFilterSourceGivenFragmentFlushPolicy() {
+        FlushCountingWriter writer = filter(new FilterSettings(StreamFilterType.SAX_NG).setFlushPolicy(FlushPolicy.FRAGMENT).setFlushSelector("c"));
+
+        assertEquals(INPUT, writer.toString());
+        assertEquals(2, writer.flushCount);
+    }
+
+    @Test
+    public void testFilterSourceGivenThresholdFlushPolicy() {
+        FlushCountingWriter writer = filter(new FilterSettings(StreamFilterType.SAX_NG).setFlushPolicy(FlushPolicy.THRESHOLD).setFlushThreshold(10));
+
+        assertEquals(INPUT, writer.toString());
+        assertEquals(INPUT.length() / 10 + 1, writer.flushCount);
+    }
+
+    private FlushCountingWriter filter(FilterSettings filterSettings) {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(filterSettings.setCloseResult(false));
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> {
+        }, "b");
+        FlushCountingWriter writer = new FlushCountingWriter();
+
+        smooks.filterSource(new StringSource(INPUT), new StreamResult(writer));
+
+        return writer;
+    }
+
+    private static class FlushCountingWriter extends StringWriter {
+        private int flushCount;
+
+        @Override
+        public void flush() {
+            flushCount++;
+            super.flush();
+        }
+    }
+}
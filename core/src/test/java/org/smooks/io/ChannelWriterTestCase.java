@@ -0,0 +1,191 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.BeforeVisitor;
+import org.smooks.io.payload.ChannelResult;
+import org.smooks.io.payload.StringSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChannelWriterTestCase {
+
+    @Test
+    public void testWriteGivenSplitSurrogatePair() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ChannelWriter channelWriter = new ChannelWriter(Channels.newChannel(outputStream), StandardCharsets.UTF_8, 16, 1);
+
+        channelWriter.write("0123456789abc\ud83d");
+        channelWriter.write('\ude00');
+        channelWriter.write("café".toCharArray());
+        channelWriter.close();
+
+        assertEquals("0123456789abc😀café", new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFlush() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ChannelWriter channelWriter = new ChannelWriter(Channels.newChannel(outputStream), StandardCharsets.UTF_8);
+
+        channelWriter.write("abc");
+        assertEquals(0, outputStream.size());
+        channelWriter.flush();
+        assertEquals("abc", outputStream.toString("UTF-8"));
+    }
+
+    @Test
+    public void testWriteGivenGatheringChannel() throws IOException {
+        RecordingGatheringByteChannel channel = new RecordingGatheringByteChannel();
+        ChannelWriter channelWriter = new ChannelWriter(channel, StandardCharsets.UTF_8, 16, 4);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            expected.append("line ").append(i).append('\n');
+        }
+
+        channelWriter.write(expected.toString());
+        channelWriter.close();
+
+        assertEquals(expected.toString(), new String(channel.outputStream.toByteArray(), StandardCharsets.UTF_8));
+        assertTrue(channel.gatheringWriteCount > 0);
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testWriteGivenClosedWriter() throws IOException {
+        ChannelWriter channelWriter = new ChannelWriter(Channels.newChannel(new ByteArrayOutputStream()), StandardCharsets.UTF_8);
+        channelWriter.close();
+        channelWriter.close();
+
+        assertThrows(IOException.class, () -> channelWriter.write("a"));
+    }
+
+    @Test
+    public void testCloseGivenFullBufferPool() throws IOException {
+        List<ChannelWriter> channelWriters = new ArrayList<>();
+        for (int i = 0; i < ChannelWriter.getMaxPooledBufferCount() + 4; i++) {
+            channelWriters.add(new ChannelWriter(Channels.newChannel(new ByteArrayOutputStream()), StandardCharsets.UTF_8, ChannelWriter.DEFAULT_BUFFER_SIZE, 2));
+        }
+        for (ChannelWriter channelWriter : channelWriters) {
+            channelWriter.close();
+        }
+
+        assertEquals(ChannelWriter.getMaxPooledBufferCount(), ChannelWriter.getPooledBufferCount());
+    }
+
+    @Test
+    public void testCloseGivenChannelResultWithoutWriter() throws IOException {
+        RecordingGatheringByteChannel channel = new RecordingGatheringByteChannel();
+        ChannelResult channelResult = new ChannelResult(channel);
+
+        channelResult.close();
+
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testFilterSourceGivenChannelResultAndVisitorException() {
+        RecordingGatheringByteChannel channel = new RecordingGatheringByteChannel();
+        Smooks smooks = new Smooks();
+        smooks.addVisitor((BeforeVisitor) (element, executionContext) -> {
+            throw new SmooksException("Failed to visit " + element.getLocalName());
+        }, "a");
+
+        assertThrows(SmooksException.class, () -> smooks.filterSource(new StringSource("<a/>"), new ChannelResult(channel)));
+        assertFalse(channel.isOpen());
+    }
+
+    private static class RecordingGatheringByteChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        private final WritableByteChannel channel = Channels.newChannel(outputStream);
+        private int gatheringWriteCount;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            gatheringWriteCount++;
+            // writes at most one buffer per call, like a partial write would
+            for (int i = offset; i < offset + length; i++) {
+                if (srcs[i].hasRemaining()) {
+                    return channel.write(srcs[i]);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.io.payload.StringSource;
+
+import javax.xml.transform.Source;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcatenatedDocumentIteratorTestCase {
+
+    @Test
+    public void testNext() {
+        List<String> documents = split("  <a x='>'><b/>text &gt;</a>\n\n<?xml version=\"1.0\"?>\n<!DOCTYPE a [<!ENTITY e \"]>\">]><a><![CDATA[</a>]]><!-- </a> --></a><a/>  ");
+
+        assertEquals(3, documents.size());
+        assertEquals("<a x='>'><b/>text &gt;</a>", documents.get(0));
+        assertEquals("<?xml version=\"1.0\"?>\n<!DOCTYPE a [<!ENTITY e \"]>\">]><a><![CDATA[</a>]]><!-- </a> --></a>", documents.get(1));
+        assertEquals("<a/>", documents.get(2));
+    }
+
+    @Test
+    public void testNextGivenTruncatedDocument() {
+        List<String> documents = split("<a><b/></a><a><b>");
+
+        assertEquals(2, documents.size());
+        assertEquals("<a><b>", documents.get(1));
+    }
+
+    @Test
+    public void testNextGivenEmptyInput() {
+        assertEquals(0, split(" \n ").size());
+    }
+
+    private List<String> split(String concatenatedDocuments) {
+        List<String> documents = new ArrayList<>();
+        ConcatenatedDocumentIterator concatenatedDocumentIterator = new ConcatenatedDocumentIterator(new StringReader(concatenatedDocuments));
+        while (concatenatedDocumentIterator.hasNext()) {
+            Source source = concatenatedDocumentIterator.next();
+            documents.add(((StringSource) source).getSource());
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,120 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.io.payload.StringResult;
+import org.smooks.io.payload.StringSource;
+import org.smooks.support.XmlUtil;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+import javax.xml.transform.dom.DOMResult;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DOMResultWriterTestCase {
+
+    private static final String INPUT = "<a xmlns='urn:a' xmlns:p='urn:p' x='1 &amp; 2'><p:b p:y='&quot;'>café &lt;&gt;<!--c--><![CDATA[<d>]]></p:b><e/>text</a>";
+
+    @Test
+    public void testFilterSourceGivenDOMResult() throws Exception {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings());
+
+        assertSameDocument(smooks, INPUT);
+    }
+
+    @Test
+    public void testFilterSourceGivenDOMResultAndTextWritingVisitor() throws Exception {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings());
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> {
+            try {
+                new FragmentWriter(executionContext, new NodeFragment(element)).write("<p:f xmlns:p='urn:f'>g</p:f>");
+            } catch (IOException e) {
+                throw new SmooksException(e);
+            }
+        }, "e");
+
+        assertSameDocument(smooks, INPUT);
+    }
+
+    @Test
+    public void testWriteGivenNodesAndText() throws Exception {
+        Document document = XmlUtil.parseStream(new StringReader("<a xmlns:p='urn:p'><b>x</b></a>"));
+        DOMResultWriter domResultWriter = new DOMResultWriter(XmlUtil.parseStream(new StringReader("<r/>")).getImplementation().createDocument(null, null, null));
+
+        domResultWriter.writeStartElement(document.getDocumentElement());
+        domResultWriter.write("<p:c>1</p:c>");
+        domResultWriter.writeStartElement((Element) document.getDocumentElement().getFirstChild());
+        domResultWriter.writeCharacterData((Text) document.getDocumentElement().getFirstChild().getFirstChild());
+        domResultWriter.writeEndElement((Element) document.getDocumentElement().getFirstChild());
+        domResultWriter.writeEndElement(document.getDocumentElement());
+
+        Node expected = XmlUtil.parseStream(new StringReader("<a xmlns:p='urn:p'><p:c>1</p:c><b>x</b></a>"));
+        assertTrue(expected.isEqualNode(domResultWriter.getDocument()), XmlUtil.serialize(domResultWriter.getDocument()));
+    }
+
+    private void assertSameDocument(Smooks smooks, String input) throws Exception {
+        StringResult stringResult = new StringResult();
+        smooks.filterSource(new StringSource(input), stringResult);
+        DOMResult domResult = new DOMResult();
+        smooks.filterSource(new StringSource(input), domResult);
+
+        Document expected = XmlUtil.parseStream(new StringReader(stringResult.getResult()));
+        Document actual = (Document) domResult.getNode();
+        assertEquals(XmlUtil.serialize(expected), XmlUtil.serialize(actual));
+        assertTrue(expected.isEqualNode(actual), XmlUtil.serialize(actual));
+    }
+}
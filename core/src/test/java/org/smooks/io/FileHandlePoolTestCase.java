@@ -0,0 +1,174 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileHandlePoolTestCase {
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        tempDir = Files.createTempDirectory("FileHandlePoolTestCase");
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        try (Stream<Path> paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testOpenGivenOpenFile() throws IOException {
+        FileHandlePool fileHandlePool = new FileHandlePool();
+        Path file = tempDir.resolve("a/b/foo.txt");
+
+        write(fileHandlePool.open(file), "foo");
+        write(fileHandlePool.open(file), "bar");
+        assertEquals(1, fileHandlePool.getOpenFileCount());
+        fileHandlePool.close();
+
+        assertEquals("foobar", read(file));
+    }
+
+    @Test
+    public void testOpenEvictsLeastRecentlyOpenedFile() throws IOException {
+        Files.write(tempDir.resolve("0.txt"), "stale".getBytes(StandardCharsets.UTF_8));
+        FileHandlePool fileHandlePool = new FileHandlePool(2, 4, 0);
+
+        write(fileHandlePool.open(tempDir.resolve("0.txt")), "a");
+        write(fileHandlePool.open(tempDir.resolve("1.txt")), "b");
+        write(fileHandlePool.open(tempDir.resolve("0.txt")), "c");
+        write(fileHandlePool.open(tempDir.resolve("2.txt")), "d");
+        assertEquals(2, fileHandlePool.getOpenFileCount());
+        // evicted, so written
+        assertEquals("b", read(tempDir.resolve("1.txt")));
+
+        write(fileHandlePool.open(tempDir.resolve("1.txt")), "e");
+        fileHandlePool.close();
+
+        assertEquals("ac", read(tempDir.resolve("0.txt")));
+        assertEquals("be", read(tempDir.resolve("1.txt")));
+        assertEquals("d", read(tempDir.resolve("2.txt")));
+    }
+
+    @Test
+    public void testWriteGivenEvictedFile() throws IOException {
+        FileHandlePool fileHandlePool = new FileHandlePool(1, 4, 0);
+
+        OutputStream outputStream = fileHandlePool.open(tempDir.resolve("0.txt"));
+        write(outputStream, "foo");
+        write(fileHandlePool.open(tempDir.resolve("1.txt")), "bar");
+        write(outputStream, "baz");
+        fileHandlePool.close();
+
+        assertEquals("foobaz", read(tempDir.resolve("0.txt")));
+        assertEquals("bar", read(tempDir.resolve("1.txt")));
+    }
+
+    @Test
+    public void testOpenGivenMaxFileSize() throws IOException {
+        FileHandlePool fileHandlePool = new FileHandlePool(4, 16, 5);
+        Path file = tempDir.resolve("orders.xml");
+
+        write(fileHandlePool.open(file), "<a/>");
+        write(fileHandlePool.open(file), "<b/>");
+        write(fileHandlePool.open(file), "<c/>");
+        write(fileHandlePool.open(file), "<d/>");
+        write(fileHandlePool.open(file), "<e/>");
+        fileHandlePool.close();
+
+        assertEquals("<a/><b/>", read(file));
+        assertEquals("<c/><d/>", read(tempDir.resolve("orders-1.xml")));
+        assertEquals("<e/>", read(tempDir.resolve("orders-2.xml")));
+        assertFalse(Files.exists(tempDir.resolve("orders-3.xml")));
+    }
+
+    @Test
+    public void testWriteGivenLargeWrite() throws IOException {
+        FileHandlePool fileHandlePool = new FileHandlePool(1, 4, 0);
+        Path file = tempDir.resolve("large.txt");
+
+        OutputStream outputStream = fileHandlePool.open(file);
+        write(outputStream, "ab");
+        write(outputStream, "cdefghij");
+        outputStream.write('k');
+        fileHandlePool.close();
+
+        assertEquals("abcdefghijk", read(file));
+    }
+
+    @Test
+    public void testWriteAfterClose() throws IOException {
+        FileHandlePool fileHandlePool = new FileHandlePool();
+        OutputStream outputStream = fileHandlePool.open(tempDir.resolve("foo.txt"));
+        outputStream.close();
+
+        assertThrows(IOException.class, () -> outputStream.write('a'));
+        fileHandlePool.close();
+    }
+
+    private static void write(OutputStream outputStream, String text) throws IOException {
+        outputStream.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.SmooksConfigException;
+import org.smooks.engine.delivery.fragment.NodeFragment;
+import org.smooks.tck.MockExecutionContext;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileOutputStreamResourceTestCase {
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void beforeEach() throws IOException {
+        tempDir = Files.createTempDirectory("FileOutputStreamResourceTestCase");
+    }
+
+    @AfterEach
+    public void afterEach() throws IOException {
+        try (Stream<Path> paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testGetOutputStream() throws IOException, ParserConfigurationException {
+        FileOutputStreamResource fileOutputStreamResource = new FileOutputStreamResource().setFileNamePattern("order-${orderId}.xml").setDestinationDirectoryPattern(tempDir.toString() + "/${customer}").setMaxOpenFiles(2);
+        fileOutputStreamResource.setResourceName("orders");
+        MockExecutionContext executionContext = new MockExecutionContext();
+        NodeFragment nodeFragment = new NodeFragment(DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument());
+
+        String[][] orders = {{"joe", "1"}, {"mike", "2"}, {"joe", "1"}, {"ann", "3"}, {"joe", "1"}};
+        for (String[] order : orders) {
+            executionContext.getBeanContext().addBean("customer", order[0]);
+            executionContext.getBeanContext().addBean("orderId", order[1]);
+            fileOutputStreamResource.visitBefore((Element) null, executionContext);
+            Writer writer = new ResourceWriter(executionContext, "orders").getDelegateWriter();
+            writer.write("<order id=\"" + order[1] + "\"/>");
+            fileOutputStreamResource.executeVisitLifecycleCleanup(nodeFragment, executionContext);
+        }
+        fileOutputStreamResource.executeExecutionLifecycleCleanup(executionContext);
+
+        assertEquals("<order id=\"1\"/><order id=\"1\"/><order id=\"1\"/>", read(tempDir.resolve("joe/order-1.xml")));
+        assertEquals("<order id=\"2\"/>", read(tempDir.resolve("mike/order-2.xml")));
+        assertEquals("<order id=\"3\"/>", read(tempDir.resolve("ann/order-3.xml")));
+    }
+
+    @Test
+    public void testSetAsync() {
+        assertThrows(SmooksConfigException.class, () -> new FileOutputStreamResource().setAsync(true));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,150 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import org.junit.jupiter.api.Test;
+import org.smooks.api.SmooksException;
+import org.smooks.io.payload.StringSource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordFragmentIteratorTestCase {
+
+    private static final String DOCUMENT = "<dblp xmlns:x=\"urn:x\" version=\"1\"><article key=\"a&amp;1\"><title>A &lt; B</title><x:y/></article><www/><inproceedings><article>nested</article></inproceedings><other><article/></other></dblp>";
+
+    @Test
+    public void testNext() throws XMLStreamException {
+        List<String> records = split(false, "dblp/article", "inproceedings");
+
+        assertEquals(2, records.size());
+        assertEquals("<article xmlns:x=\"urn:x\" key=\"a&amp;1\"><title>A &lt; B</title><x:y></x:y></article>", records.get(0));
+        assertEquals("<inproceedings xmlns:x=\"urn:x\"><article>nested</article></inproceedings>", records.get(1));
+    }
+
+    @Test
+    public void testNextGivenAncestorContext() throws XMLStreamException {
+        List<String> records = split(true, "article");
+
+        assertEquals(3, records.size());
+        assertEquals("<dblp xmlns:x=\"urn:x\" version=\"1\"><article key=\"a&amp;1\"><title>A &lt; B</title><x:y></x:y></article></dblp>", records.get(0));
+        assertEquals("<dblp xmlns:x=\"urn:x\" version=\"1\"><inproceedings><article>nested</article></inproceedings></dblp>", records.get(1));
+        assertEquals("<dblp xmlns:x=\"urn:x\" version=\"1\"><other><article></article></other></dblp>", records.get(2));
+    }
+
+    @Test
+    public void testNextGivenEntityReferences() throws XMLStreamException {
+        String document = "<!DOCTYPE r [<!ENTITY e \"x &amp; y\">]><r><a>&e;</a></r>";
+        RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(new WstxInputFactory().createXMLStreamReader(new StringReader(document)), false, "a");
+
+        assertEquals("<a>x &amp; y</a>", ((StringSource) recordFragmentIterator.next()).getSource());
+        assertFalse(recordFragmentIterator.hasNext());
+    }
+
+    @Test
+    public void testNextGivenUnreplacedEntityReferences() throws XMLStreamException {
+        String document = "<!DOCTYPE r [<!ENTITY e \"x\">]><r><a>&e;</a></r>";
+        XMLInputFactory xmlInputFactory = new WstxInputFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+        CloseRecordingReader input = new CloseRecordingReader(document);
+        RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(xmlInputFactory.createXMLStreamReader(input), input, false, "a");
+
+        assertThrows(SmooksException.class, recordFragmentIterator::hasNext);
+        assertTrue(input.closed);
+        assertFalse(recordFragmentIterator.hasNext());
+    }
+
+    @Test
+    public void testCloseGivenEarlyStop() throws XMLStreamException {
+        CloseRecordingReader input = new CloseRecordingReader(DOCUMENT);
+        try (RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(XMLInputFactory.newInstance().createXMLStreamReader(input), input, false, "article")) {
+            assertTrue(recordFragmentIterator.hasNext());
+            recordFragmentIterator.next();
+        }
+
+        assertTrue(input.closed);
+    }
+
+    @Test
+    public void testHasNextGivenMalformedRecord() throws XMLStreamException {
+        CloseRecordingReader input = new CloseRecordingReader("<r><a>1</a><a><b></a></r>");
+        RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(XMLInputFactory.newInstance().createXMLStreamReader(input), input, false, "a");
+
+        assertEquals("<a>1</a>", ((StringSource) recordFragmentIterator.next()).getSource());
+        assertFalse(input.closed);
+        assertThrows(SmooksException.class, recordFragmentIterator::hasNext);
+        assertTrue(input.closed);
+    }
+
+    private List<String> split(boolean ancestorContext, String... recordSelectors) throws XMLStreamException {
+        List<String> records = new ArrayList<>();
+        RecordFragmentIterator recordFragmentIterator = new RecordFragmentIterator(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(DOCUMENT)), ancestorContext, recordSelectors);
+        while (recordFragmentIterator.hasNext()) {
+            records.add(((StringSource) recordFragmentIterator.next()).getSource());
+        }
+        return records;
+    }
+
+    private static class CloseRecordingReader extends StringReader {
+        private boolean closed;
+
+        private CloseRecordingReader(String string) {
+            super(string);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -43,15 +43,33 @@
 package org.smooks.io;
 
 import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+import org.smooks.api.resource.visitor.sax.ng.AfterVisitor;
+import org.smooks.io.payload.ContentHandlerResult;
+import org.smooks.io.payload.StringSource;
+import org.smooks.support.XmlUtil;
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
 
+import javax.xml.transform.stream.StreamResult;
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class SAXWriterTestCase {
 
@@ -123,4 +141,183 @@ public class SAXWriterTestCase {
         saxWriter.write("<a xmlns:b='c'/>");
         assertEquals(1, countDownLatch.getCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWriteStartElementGivenNodes() throws Exception {
+        Document document = XmlUtil.parseStream(new StringReader("<a xmlns='urn:a' xmlns:p='urn:p' x='1'><p:b p:y='&quot;2&quot;'>caf\u00e9<!--c--><![CDATA[<d>]]></p:b><e/></a>"));
+        EventRecorder nodeEventRecorder = new EventRecorder();
+        SAXWriter saxWriter = new SAXWriter(nodeEventRecorder);
+
+        writeNode(document.getDocumentElement(), saxWriter);
+
+        EventRecorder textEventRecorder = new EventRecorder();
+        new SAXWriter(textEventRecorder).write("<a xmlns='urn:a' xmlns:p='urn:p' x='1'><p:b p:y='&quot;2&quot;'>caf\u00e9<!--c--><![CDATA[<d>]]></p:b><e/></a>");
+        assertEquals(textEventRecorder.events, nodeEventRecorder.events);
+    }
+
+    @Test
+    public void testWriteGivenTextNestedInNodes() throws Exception {
+        Document document = XmlUtil.parseStream(new StringReader("<a xmlns:p='urn:p'><b/></a>"));
+        Element a = document.getDocumentElement();
+        Element b = (Element) a.getFirstChild();
+        EventRecorder eventRecorder = new EventRecorder();
+        SAXWriter saxWriter = new SAXWriter(eventRecorder);
+
+        saxWriter.writeStartElement(a);
+        saxWriter.write("<p:c>x</p:c>");
+        saxWriter.writeStartElement(b);
+        saxWriter.writeEndElement(b);
+        saxWriter.write("<c/>");
+        saxWriter.writeEndElement(a);
+
+        EventRecorder textEventRecorder = new EventRecorder();
+        new SAXWriter(textEventRecorder).write("<a xmlns:p='urn:p'><p:c>x</p:c><b/><c/></a>");
+        assertEquals(textEventRecorder.events, eventRecorder.events);
+    }
+
+    @Test
+    public void testWriteGivenSplitSurrogatePair() throws IOException {
+        EventRecorder eventRecorder = new EventRecorder();
+        SAXWriter saxWriter = new SAXWriter(eventRecorder);
+        String text = "<a>caf\u00e9 \ud83d\ude00</a>";
+        int split = text.indexOf('\ude00');
+
+        saxWriter.write(text.substring(0, split));
+        saxWriter.write(text.substring(split));
+
+        assertEquals("characters(caf\u00e9 \ud83d\ude00)", eventRecorder.events.get(2));
+    }
+
+    @Test
+    public void testFilterSourceGivenSAXWriterResult() throws IOException {
+        Smooks smooks = new Smooks();
+        smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setCloseResult(false));
+        EventRecorder eventRecorder = new EventRecorder();
+
+        smooks.filterSource(new StringSource("<a xmlns:p='urn:p'><p:b>1 &amp; 2</p:b><c/></a>"), new StreamResult(new SAXWriter(eventRecorder)));
+
+        EventRecorder textEventRecorder = new EventRecorder();
+        new SAXWriter(textEventRecorder).write("<a xmlns:p='urn:p'><p:b>1 &amp; 2</p:b><c/></a>");
+        assertEquals(textEventRecorder.events, eventRecorder.events);
+    }
+
+    @Test
+    public void testCloseReportsEndDocument() throws Exception {
+        Document document = XmlUtil.parseStream(new StringReader("<a><b/></a>"));
+        EventRecorder nodeEventRecorder = new EventRecorder();
+        SAXWriter nodeSAXWriter = new SAXWriter(nodeEventRecorder);
+        writeNode(document.getDocumentElement(), nodeSAXWriter);
+        nodeSAXWriter.close();
+        nodeSAXWriter.close();
+
+        EventRecorder textEventRecorder = new EventRecorder();
+        SAXWriter textSAXWriter = new SAXWriter(textEventRecorder);
+        textSAXWriter.write("<a><b/></a>");
+        textSAXWriter.close();
+
+        assertEquals("endDocument", nodeEventRecorder.events.get(nodeEventRecorder.events.size() - 1));
+        assertEquals(textEventRecorder.events, nodeEventRecorder.events);
+    }
+
+    @Test
+    public void testFilterSourceGivenErrorAbortsContentHandlerResult() throws IOException {
+        Smooks smooks = new Smooks();
+        smooks.addVisitor((AfterVisitor) (element, executionContext) -> {
+            throw new IllegalStateException("boom");
+        }, "c");
+        EventRecorder eventRecorder = new EventRecorder();
+        ContentHandlerResult contentHandlerResult = new ContentHandlerResult(eventRecorder);
+
+        assertThrows(SmooksException.class, () -> smooks.filterSource(new StringSource("<a><b/><c/></a>"), contentHandlerResult));
+        contentHandlerResult.close();
+
+        assertEquals("startDocument", eventRecorder.events.get(0));
+        assertFalse(eventRecorder.events.contains("endDocument"));
+    }
+
+    private void writeNode(Node node, SAXWriter saxWriter) throws IOException {
+        if (node instanceof Element) {
+            saxWriter.writeStartElement((Element) node);
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                writeNode(child, saxWriter);
+            }
+            saxWriter.writeEndElement((Element) node);
+        } else {
+            saxWriter.writeCharacterData((CharacterData) node);
+        }
+    }
+
+    private static class EventRecorder extends DefaultHandler2 {
+        private final List<String> events = new ArrayList<>();
+        private final StringBuilder characters = new StringBuilder();
+
+        @Override
+        public void startDocument() {
+            events.add("startDocument");
+        }
+
+        @Override
+        public void endDocument() {
+            flushCharacters();
+            events.add("endDocument");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            flushCharacters();
+            events.add("startPrefixMapping(" + prefix + "," + uri + ")");
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            flushCharacters();
+            events.add("endPrefixMapping(" + prefix + ")");
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            flushCharacters();
+            StringBuilder event = new StringBuilder("startElement(" + uri + "," + localName + "," + qName);
+            for (int i = 0; i < atts.getLength(); i++) {
+                event.append(",").append(atts.getURI(i)).append("|").append(atts.getLocalName(i)).append("|").append(atts.getQName(i)).append("=").append(atts.getValue(i));
+            }
+            events.add(event.append(")").toString());
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            flushCharacters();
+            events.add("endElement(" + uri + "," + localName + "," + qName + ")");
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            characters.append(ch, start, length);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            flushCharacters();
+            events.add("comment(" + new String(ch, start, length) + ")");
+        }
+
+        @Override
+        public void startCDATA() {
+            flushCharacters();
+            events.add("startCDATA");
+        }
+
+        @Override
+        public void endCDATA() {
+            flushCharacters();
+            events.add("endCDATA");
+        }
+
+        private void flushCharacters() {
+            if (characters.length() > 0) {
+                events.add("characters(" + characters + ")");
+                characters.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextAccumulatorTestCase {
+
+    @Test
+    public void testAppendBelowThreshold() throws IOException {
+        TextAccumulator textAccumulator = new TextAccumulator(16);
+        textAccumulator.append("foo").append("bar".toCharArray(), 0, 3).append('!');
+
+        assertFalse(textAccumulator.isSpilled());
+        assertEquals(7, textAccumulator.length());
+        assertEquals("foobar!", textAccumulator.toString());
+        textAccumulator.close();
+    }
+
+    @Test
+    public void testAppendAboveThreshold() throws IOException {
+        TextAccumulator textAccumulator = new TextAccumulator(16);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            String chunk = "chunk " + i + " é ";
+            expected.append(chunk);
+            textAccumulator.append(chunk);
+        }
+
+        assertTrue(textAccumulator.isSpilled());
+        assertEquals(expected.length(), textAccumulator.length());
+        assertEquals(expected.toString(), read(textAccumulator.getReader()));
+
+        textAccumulator.append("end");
+        assertEquals(expected + "end", textAccumulator.toString());
+
+        textAccumulator.close();
+        assertFalse(textAccumulator.isSpilled());
+        assertEquals(0, textAccumulator.length());
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader closeableReader = reader) {
+            int c;
+            while ((c = closeableReader.read()) != -1) {
+                text.append((char) c);
+            }
+        }
+        return text.toString();
+    }
+}
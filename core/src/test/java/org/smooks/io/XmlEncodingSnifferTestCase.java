@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class XmlEncodingSnifferTestCase {
+
+    @Test
+    public void testSniffGivenXmlDeclaration() throws IOException {
+        assertEquals("ISO-8859-1", sniff("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a/>".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("windows-1252", sniff("<?xml version='1.0' encoding = 'windows-1252' standalone='yes'?><a/>".getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    @Test
+    public void testSniffGivenNoEncodingDeclaration() throws IOException {
+        assertNull(sniff("<?xml version=\"1.0\"?><a encoding=\"UTF-16\"/>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(sniff("<a/>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(sniff(new byte[0]));
+    }
+
+    @Test
+    public void testSniffGivenByteOrderMark() throws IOException {
+        assertEquals("UTF-8", sniff(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', 'a', '/', '>'}));
+        assertEquals("UTF-16BE", sniff(new byte[]{(byte) 0xFE, (byte) 0xFF, 0, '<', 0, 'a'}));
+        assertEquals("UTF-16LE", sniff(new byte[]{(byte) 0xFF, (byte) 0xFE, '<', 0, 'a', 0}));
+        assertEquals("UTF-32BE", sniff(new byte[]{0, 0, (byte) 0xFE, (byte) 0xFF, 0, 0, 0, '<'}));
+        assertEquals("UTF-16LE", sniff("<?xml version=\"1.0\"?><a/>".getBytes(StandardCharsets.UTF_16LE)));
+    }
+
+    @Test
+    public void testSniffResetsStream() throws IOException {
+        byte[] document = "<?xml version=\"1.0\" encoding=\"US-ASCII\"?><a/>".getBytes(StandardCharsets.US_ASCII);
+        InputStream inputStream = new BufferedInputStream(new ByteArrayInputStream(document));
+
+        assertEquals("US-ASCII", XmlEncodingSniffer.sniff(inputStream));
+        assertEquals('<', inputStream.read());
+        assertEquals(document.length - 1, inputStream.available());
+    }
+
+    private String sniff(byte[] document) throws IOException {
+        return XmlEncodingSniffer.sniff(new ByteArrayInputStream(document));
+    }
+}
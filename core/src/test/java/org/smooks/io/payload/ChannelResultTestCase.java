@@ -0,0 +1,121 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.FilterSettings;
+import org.smooks.Smooks;
+import org.smooks.api.ExecutionContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChannelResultTestCase {
+
+    private static final String DOCUMENT = "<a><b x=\"1\">café 😀</b><c>text</c></a>";
+
+    @Test
+    public void testFilterSourceGivenFileChannel() throws IOException {
+        Path path = Files.createTempFile("smooks", ".xml");
+        try {
+            Smooks smooks = new Smooks();
+
+            smooks.filterSource(new StringSource(DOCUMENT), new ChannelResult(path));
+
+            assertEquals(DOCUMENT, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testFilterSourceGivenContentEncoding() {
+        Smooks smooks = new Smooks();
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        executionContext.setContentEncoding("ISO-8859-1");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        smooks.filterSource(executionContext, new StringSource("<a>café</a>"), new ChannelResult(Channels.newChannel(outputStream)));
+
+        assertArrayEquals("<a>café</a>".getBytes(StandardCharsets.ISO_8859_1), outputStream.toByteArray());
+    }
+
+    @Test
+    public void testFilterSourceGivenSmallBuffers() throws IOException {
+        StringBuilder document = new StringBuilder("<a>");
+        for (int i = 0; i < 1000; i++) {
+            document.append("<b x=\"").append(i).append("\">café 😀</b>");
+        }
+        document.append("</a>");
+        Path path = Files.createTempFile("smooks", ".xml");
+        try {
+            Smooks smooks = new Smooks();
+            smooks.setFilterSettings(FilterSettings.newSaxNgSettings().setCloseResult(false));
+            ChannelResult channelResult = new ChannelResult(Files.newByteChannel(path, StandardOpenOption.WRITE), 16, 3);
+
+            smooks.filterSource(new StringSource(document.toString()), channelResult);
+            channelResult.getChannel().close();
+
+            assertEquals(document.toString(), new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testSetWriter() {
+        ChannelResult channelResult = new ChannelResult(Channels.newChannel(new ByteArrayOutputStream()));
+
+        assertThrows(UnsupportedOperationException.class, () -> channelResult.setWriter(null));
+        assertThrows(UnsupportedOperationException.class, () -> channelResult.setOutputStream(null));
+    }
+}
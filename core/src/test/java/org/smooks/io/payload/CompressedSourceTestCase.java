@@ -0,0 +1,223 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+import org.smooks.api.SmooksException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressedSourceTestCase {
+
+    @Test
+    public void testFilterSourceGivenGzip() throws IOException {
+        String document = createDocument(1000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(document.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertFilterSource(document, CompressedSource.gzip(new ByteArrayInputStream(compressed.toByteArray())));
+    }
+
+    @Test
+    public void testFilterSourceGivenDeflate() throws IOException {
+        String document = createDocument(1000);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(compressed)) {
+            deflaterOutputStream.write(document.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertFilterSource(document, new CompressedSource(new ByteArrayInputStream(compressed.toByteArray()), CompressedSource.DEFLATE, 16, 2));
+    }
+
+    @Test
+    public void testReadGivenCustomCodec() throws IOException {
+        byte[] content = createDocument(100).getBytes(StandardCharsets.UTF_8);
+        CompressedSource compressedSource = new CompressedSource(new ByteArrayInputStream(content), compressedInputStream -> compressedInputStream, 7, 3);
+
+        try (InputStream inputStream = compressedSource.getInputStream()) {
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            byte[] buffer = new byte[5];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                decompressed.write(buffer, 0, count);
+            }
+            assertArrayEquals(content, decompressed.toByteArray());
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    public void testReadGivenCorruptInput() throws IOException {
+        CompressedSource compressedSource = CompressedSource.gzip(new ByteArrayInputStream("not gzip".getBytes(StandardCharsets.UTF_8)));
+
+        try (InputStream inputStream = compressedSource.getInputStream()) {
+            assertThrows(IOException.class, inputStream::read);
+        }
+    }
+
+    @Test
+    public void testFilterSourceGivenCorruptInput() {
+        CompressedSource compressedSource = CompressedSource.gzip(new ByteArrayInputStream("not gzip".getBytes(StandardCharsets.UTF_8)));
+
+        assertThrows(SmooksException.class, () -> new Smooks().filterSource(compressedSource, new StringResult()));
+    }
+
+    @Test
+    public void testReadGivenCodecReturningNull() throws IOException {
+        CompressedSource compressedSource = new CompressedSource(new ByteArrayInputStream(new byte[16]), compressedInputStream -> null);
+
+        try (InputStream inputStream = compressedSource.getInputStream()) {
+            assertThrows(SmooksException.class, inputStream::read);
+        }
+    }
+
+    @Test
+    public void testReadGivenRuntimeExceptionAfterData() throws IOException {
+        InputStream failingInputStream = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() {
+                if (count++ < 96) {
+                    return 'a';
+                }
+                throw new IllegalStateException("Truncated");
+            }
+        };
+        CompressedSource compressedSource = new CompressedSource(failingInputStream, compressedInputStream -> compressedInputStream, 16, 2);
+
+        try (InputStream inputStream = compressedSource.getInputStream()) {
+            for (int i = 0; i < 96; i++) {
+                assertEquals('a', inputStream.read());
+            }
+            assertEquals("Truncated", assertThrows(IllegalStateException.class, inputStream::read).getMessage());
+            assertThrows(IllegalStateException.class, inputStream::read);
+        }
+    }
+
+    @Test
+    public void testCloseGivenBlockedRead() throws IOException, InterruptedException {
+        CountDownLatch readLatch = new CountDownLatch(1);
+        CountDownLatch closeLatch = new CountDownLatch(1);
+        InputStream blockingInputStream = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                readLatch.countDown();
+                while (closeLatch.getCount() > 0) {
+                    try {
+                        closeLatch.await();
+                    } catch (InterruptedException e) {
+                        // not interruptible, like most blocking I/O
+                    }
+                }
+                throw new IOException("Stream closed");
+            }
+
+            @Override
+            public void close() {
+                closeLatch.countDown();
+            }
+        };
+        CompressedSource compressedSource = new CompressedSource(blockingInputStream, compressedInputStream -> compressedInputStream, 16, 2);
+        InputStream inputStream = compressedSource.getInputStream();
+        Thread consumer = new Thread(() -> {
+            try {
+                inputStream.read();
+            } catch (IOException e) {
+                // expected once closed
+            }
+        });
+        consumer.setDaemon(true);
+        consumer.start();
+        assertTrue(readLatch.await(10, TimeUnit.SECONDS));
+
+        inputStream.close();
+        assertTrue(closeLatch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testClose() throws IOException {
+        CompressedSource compressedSource = new CompressedSource(new ByteArrayInputStream(createDocument(1000).getBytes(StandardCharsets.UTF_8)), compressedInputStream -> compressedInputStream, 16, 2);
+        InputStream inputStream = compressedSource.getInputStream();
+        assertEquals('<', inputStream.read());
+
+        inputStream.close();
+        assertThrows(IOException.class, inputStream::read);
+    }
+
+    private void assertFilterSource(String document, CompressedSource compressedSource) {
+        Smooks smooks = new Smooks();
+        StringResult expectedResult = new StringResult();
+        StringResult actualResult = new StringResult();
+
+        smooks.filterSource(new StringSource(document), expectedResult);
+        smooks.filterSource(compressedSource, actualResult);
+
+        assertEquals(expectedResult.getResult(), actualResult.getResult());
+    }
+
+    private String createDocument(int recordCount) {
+        StringBuilder document = new StringBuilder("<records>");
+        for (int i = 0; i < recordCount; i++) {
+            document.append("<record id=\"").append(i).append("\">value ").append(i).append("</record>");
+        }
+
+        return document.append("</records>").toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*-
+ * ========================LICENSE_START=================================
+ * Core
+ * %%
+ * Copyright (C) 2020 Smooks
+ * %%
+ * Licensed under the terms of the Apache License Version 2.0, or
+ * the GNU Lesser General Public License version 3.0 or later.
+ * 
+ * SPDX-License-Identifier: Apache-2.0 OR LGPL-3.0-or-later
+ * 
+ * ======================================================================
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * ======================================================================
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * =========================LICENSE_END==================================
+ */
+package org.smooks.io.payload;
+
+import org.junit.jupiter.api.Test;
+import org.smooks.Smooks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedFileSourceTestCase {
+
+    private static final String DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><a><b x=\"1\">café</b><c>text spanning several windows</c></a>";
+
+    @Test
+    public void testFilterSource() throws IOException {
+        File file = createFile(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+        try {
+            Smooks smooks = new Smooks();
+            StringResult expectedResult = new StringResult();
+            StringResult actualResult = new StringResult();
+
+            smooks.filterSource(new StringSource(DOCUMENT), expectedResult);
+            smooks.filterSource(new MappedFileSource(file, 7), actualResult);
+
+            assertEquals(expectedResult.getResult(), actualResult.getResult());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        byte[] content = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        File file = createFile(content);
+        try (InputStream inputStream = new MappedFileSource(file, 5).getInputStream()) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            assertEquals(content[0], inputStream.read());
+            outputStream.write(content[0]);
+
+            inputStream.mark(0);
+            assertEquals(3, inputStream.skip(3));
+            inputStream.reset();
+
+            byte[] buffer = new byte[3];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
+            }
+            assertArrayEquals(content, outputStream.toByteArray());
+            assertEquals(0, inputStream.available());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadGivenClosedStream() throws IOException {
+        File file = createFile(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+        try {
+            InputStream inputStream = new MappedFileSource(file).getInputStream();
+            assertEquals('<', inputStream.read());
+            inputStream.close();
+            inputStream.close();
+
+            assertThrows(IOException.class, inputStream::read);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private File createFile(byte[] content) throws IOException {
+        File file = File.createTempFile("MappedFileSourceTestCase", ".xml");
+        Files.write(file.toPath(), content);
+
+        return file;
+    }
+}